@@ -1,38 +1,91 @@
 package org.example;
 
+import org.example.domain.AnytimeResult;
 import org.example.domain.AppliedPayment;
+import org.example.domain.Arithmetic;
+import org.example.domain.OptimizerSettings;
 import org.example.domain.Order;
 import org.example.domain.PaymentMethod;
 import org.example.domain.PaymentOptimizer;
+import org.example.domain.SearchMode;
+import org.example.domain.SolverBackend;
+import org.example.engine.OptimizerEngine;
+import org.example.engine.PreparedPaymentMethods;
+import org.example.engine.ResultCache;
+import org.example.engine.ScenarioSweep;
+import org.example.engine.ShardedSearch;
 import org.example.loader.OrdersLoader;
 import org.example.loader.PaymentMethodsLoader;
+import org.example.loader.SnapshotLoader;
+import org.example.loader.SnapshotWriter;
 import org.example.logic.DiscountCalculator;
+import org.example.metrics.Phase;
+import org.example.metrics.SolverMetrics;
+
+import javax.management.JMException;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public class App {
+    private static final int CACHED_RESULTS_IN_MEMORY = 1024;
+
     public static void main(String[] args)
     {
-        if(args.length < 2) {
-            System.err.println("Usage: java -jar app.jar <orders.json> <paymentmethods.json>");
-            System.exit(1);
-            return;
-        }
+        try{
+            CliArguments arguments = CliArguments.parse(args);
+            List<String> inputs = arguments.positional();
+            if(arguments.has("batch")) {
+                runBatch(arguments);
+                return;
+            }
+            if(arguments.has("serve")) {
+                serve(arguments);
+                return;
+            }
 
-        String ordersFilePath = args[0];
-        String paymentMethodsFilePath = args[1];
+            boolean snapshotInput = !inputs.isEmpty() && SnapshotLoader.isSnapshot(Path.of(inputs.get(0)));
+            if(inputs.isEmpty() || (!snapshotInput && inputs.size() < 2)) {
+                System.err.println("Usage: java -jar app.jar (<orders.json> <paymentmethods.json> | <snapshot.bin>)"
+                        + " [--parallelism=N] [--budget-ms=N] [--stats=json|jmx] [--write-snapshot=<snapshot.bin>]");
+                System.err.println("       java -jar app.jar <inputs> (--shard=<directory> [--shard-depth=N] | --solve-shards=<directory> [--budget-ms=N]"
+                        + " | --merge-shards=<directory>)");
+                System.err.println("       java -jar app.jar <inputs> --sweep=<method>.<limit|discount>=<values>[;...] [--concurrency=N] [--budget-ms=N]");
+                System.err.println("       java -jar app.jar --batch=<manifest|directory> [--concurrency=N] [--budget-ms=N] [--stats=json|jmx]"
+                        + " [--cache[=<directory>]] [--cache-max-mb=N]");
+                System.err.println("       java -jar app.jar --serve[=<port>] [--concurrency=N] [--budget-ms=N] [--stats=jmx]"
+                        + " [--cache[=<directory>]] [--cache-max-mb=N]");
+                System.exit(1);
+                return;
+            }
 
-        PaymentMethodsLoader paymentMethodsLoader = new PaymentMethodsLoader();
-        OrdersLoader ordersLoader = new OrdersLoader();
+            if(arguments.has("write-snapshot")) {
+                writeSnapshot(inputs, snapshotInput, Path.of(arguments.get("write-snapshot")));
+                return;
+            }
 
-        try{
-            Map<String, PaymentMethod> allPaymentMethods = paymentMethodsLoader.loadPaymentMethods(paymentMethodsFilePath);
-            List<Order> orders = ordersLoader.loadOrders(ordersFilePath, allPaymentMethods);
+            SolverMetrics metrics = solverMetrics(arguments);
+            long phaseStart = metrics.start();
+            Map<String, PaymentMethod> allPaymentMethods;
+            List<Order> orders;
+            if(snapshotInput) {
+                SnapshotLoader.Snapshot snapshot = new SnapshotLoader().load(Path.of(inputs.get(0)));
+                allPaymentMethods = snapshot.paymentMethods();
+                orders = snapshot.orders();
+            } else {
+                allPaymentMethods = new PaymentMethodsLoader().loadPaymentMethods(inputs.get(1));
+                orders = new OrdersLoader().loadOrders(inputs.get(0), allPaymentMethods);
+            }
+            metrics.stop(Phase.LOAD, phaseStart);
+            metrics.recordLoaded(orders.size(), allPaymentMethods.size());
 
             if(orders.isEmpty()) {
                 return;
@@ -58,19 +111,49 @@ public class App {
                                             .toList();
 
             DiscountCalculator discountCalculator = new DiscountCalculator(pointsMethod, clientCards);
-            PaymentOptimizer optimizer = new PaymentOptimizer(orders, discountCalculator, allPaymentMethods);
+            OptimizerSettings settings = OptimizerSettings.builder()
+                    .searchMode(SearchMode.BRANCH_AND_BOUND)
+                    .arithmetic(Arithmetic.LONG_CENTS)
+                    .solverBackend(SolverBackend.AUTO)
+                    .parallelism(arguments.intOption("parallelism", 1))
+                    .timeBudget(timeBudget(arguments))
+                    .metrics(metrics)
+                    .build();
+
+            if(arguments.has("sweep")) {
+                runSweep(arguments, allPaymentMethods, orders, settings);
+                return;
+            }
 
-            List<AppliedPayment> optimalPaymentPlan = optimizer.findOptimalPaymentPlan();
+            AnytimeResult result;
+            if(arguments.has("shard") || arguments.has("solve-shards") || arguments.has("merge-shards")) {
+                result = runShards(arguments, allPaymentMethods, orders, settings);
+                if(result == null) {
+                    return;
+                }
+            } else {
+                result = new PaymentOptimizer(orders, discountCalculator, allPaymentMethods, settings).findPaymentPlanWithinBudget();
+            }
+            List<AppliedPayment> optimalPaymentPlan = result.plan();
+            if(!result.complete()){
+                System.err.println((arguments.has("merge-shards") ? "Some shards are not solved yet" : "Time budget exhausted") + "; plan is within "
+                        + result.optimalityGap().movePointRight(2).stripTrailingZeros().toPlainString()
+                        + "% of the best possible discount.");
+            }
 
             if(optimalPaymentPlan.isEmpty() && totalOrderValueToPay.compareTo(BigDecimal.ZERO) > 0) {
                 System.err.println("Could not find payment plan for orders.");
             }
 
+            phaseStart = metrics.start();
             Map<String, BigDecimal> aggregatedExpenses = aggregateExpenses(optimalPaymentPlan);
             printResult(aggregatedExpenses);
+            metrics.stop(Phase.AGGREGATION, phaseStart);
+            if("json".equals(arguments.get("stats"))) {
+                System.err.println(metrics.toJson());
+            }
 
-
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("I/O error: " + e.getMessage());
             System.exit(2);
         } catch (IllegalArgumentException e){
@@ -82,7 +165,162 @@ public class App {
         }
     }
 
-    private static Map<String, BigDecimal> aggregateExpenses(List<AppliedPayment> paymentPlan) {
+    // one NDJSON line per customer on stdout; exits with 5 when any customer failed
+    private static void runBatch(CliArguments arguments) throws IOException, JMException, InterruptedException {
+        List<BatchRunner.Job> jobs = BatchRunner.jobs(Path.of(arguments.get("batch")));
+        SolverMetrics metrics = solverMetrics(arguments);
+        OptimizerSettings settings = solverSettings(arguments, metrics);
+        int concurrency = arguments.intOption("concurrency", Runtime.getRuntime().availableProcessors());
+        int failures = new BatchRunner(new OptimizerEngine(settings, resultCache(arguments)), concurrency, metrics).run(jobs, System.out);
+        System.out.flush();
+        if("json".equals(arguments.get("stats"))) {
+            System.err.println(metrics.toJson());
+        }
+        if(failures > 0) {
+            System.err.println(failures + " of " + jobs.size() + " customers failed.");
+            System.exit(5);
+        }
+    }
+
+    // --serve answers on stdin/stdout until end of input, --serve=<port> listens on the loopback interface instead
+    private static void serve(CliArguments arguments) throws IOException, JMException, InterruptedException {
+        SolverMetrics metrics = solverMetrics(arguments);
+        NdjsonServer server = new NdjsonServer(new OptimizerEngine(solverSettings(arguments, metrics), resultCache(arguments)),
+                arguments.intOption("concurrency", Runtime.getRuntime().availableProcessors()), metrics);
+        if(arguments.get("serve").isEmpty()) {
+            server.serve(System.in, System.out);
+            return;
+        }
+        server.listen(arguments.intOption("serve", 0), port -> System.err.println("Listening on 127.0.0.1:" + port));
+    }
+
+    /*
+     * --shard writes the shards of the basket, --solve-shards solves them in as many processes as are started on
+     * the directory, and --merge-shards returns the plan; null when there is no plan to print yet.
+     */
+    private static AnytimeResult runShards(CliArguments arguments,
+                                           Map<String, PaymentMethod> paymentMethods,
+                                           List<Order> orders,
+                                           OptimizerSettings settings) throws IOException {
+        if(arguments.has("shard")) {
+            int depth = arguments.intOption("shard-depth", 4);
+            int shards = new ShardedSearch(shardDirectory(arguments, "shard"), PreparedPaymentMethods.of(paymentMethods), orders).partition(depth);
+            System.err.println("Wrote " + shards + " shards.");
+            return null;
+        }
+        if(arguments.has("solve-shards")) {
+            int solved = new ShardedSearch(shardDirectory(arguments, "solve-shards"), PreparedPaymentMethods.of(paymentMethods), orders).solve(settings);
+            System.err.println("Solved " + solved + " shards.");
+            return null;
+        }
+        return new ShardedSearch(shardDirectory(arguments, "merge-shards"), PreparedPaymentMethods.of(paymentMethods), orders).merge();
+    }
+
+    /*
+     * One tab separated line per scenario: the swept values, the discount, whether the search finished within the
+     * budget and the amount spent with every payment method; '-' where no plan pays for the basket.
+     */
+    private static void runSweep(CliArguments arguments,
+                                 Map<String, PaymentMethod> paymentMethods,
+                                 List<Order> orders,
+                                 OptimizerSettings settings) throws InterruptedException {
+        List<ScenarioSweep.Scenario> scenarios = ScenarioSweep.grid(arguments.get("sweep"));
+        int concurrency = arguments.intOption("concurrency", Runtime.getRuntime().availableProcessors());
+        List<ScenarioSweep.ScenarioResult> results = new ScenarioSweep(settings, PreparedPaymentMethods.of(paymentMethods), orders)
+                .solve(scenarios, concurrency);
+
+        StringBuilder header = new StringBuilder();
+        for(ScenarioSweep.Variation variation : scenarios.get(0).variations()) {
+            header.append(variation.name()).append('\t');
+        }
+        header.append("discount\tcomplete");
+        paymentMethods.keySet().forEach(methodId -> header.append('\t').append(methodId));
+        System.out.println(header);
+        for(ScenarioSweep.ScenarioResult scenarioResult : results) {
+            StringBuilder line = new StringBuilder();
+            for(ScenarioSweep.Variation variation : scenarioResult.scenario().variations()) {
+                line.append(variation.value().toPlainString()).append('\t');
+            }
+            AnytimeResult result = scenarioResult.result();
+            boolean found = !result.plan().isEmpty();
+            line.append(found ? result.discount().setScale(2, RoundingMode.HALF_UP).toPlainString() : "-").append('\t').append(result.complete());
+            Map<String, BigDecimal> expenses = aggregateExpenses(result.plan());
+            for(String methodId : paymentMethods.keySet()) {
+                line.append('\t').append(found ? expenses.getOrDefault(methodId, BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP).toPlainString() : "-");
+            }
+            System.out.println(line);
+        }
+    }
+
+    private static Path shardDirectory(CliArguments arguments, String option) {
+        if(arguments.get(option).isEmpty()) {
+            throw new IllegalArgumentException("--" + option + " needs a directory");
+        }
+        return Path.of(arguments.get(option));
+    }
+
+    private static void writeSnapshot(List<String> inputs, boolean snapshotInput, Path target) throws IOException {
+        if(snapshotInput) {
+            throw new IllegalArgumentException("Input is already a snapshot: " + inputs.get(0));
+        }
+        Map<String, PaymentMethod> paymentMethods = new PaymentMethodsLoader().loadPaymentMethods(inputs.get(1));
+        try(Stream<Order> orders = new OrdersLoader().streamOrders(inputs.get(0), paymentMethods)){
+            new SnapshotWriter().write(target, paymentMethods, orders.iterator());
+        }
+    }
+
+    // --stats=jmx only publishes the MXBean, --stats=json also dumps the counters to stderr when done
+    private static SolverMetrics solverMetrics(CliArguments arguments) throws JMException {
+        if(!arguments.has("stats")) {
+            return SolverMetrics.DISABLED;
+        }
+        String format = arguments.get("stats");
+        if(!"json".equals(format) && !"jmx".equals(format)) {
+            throw new IllegalArgumentException("Invalid value for --stats: " + format);
+        }
+        SolverMetrics metrics = SolverMetrics.create();
+        metrics.registerMBean();
+        return metrics;
+    }
+
+    // per request settings for batch and serve, where concurrency comes from solving several requests at once
+    private static OptimizerSettings solverSettings(CliArguments arguments, SolverMetrics metrics) {
+        return OptimizerSettings.builder()
+                .searchMode(SearchMode.BRANCH_AND_BOUND)
+                .arithmetic(Arithmetic.LONG_CENTS)
+                .solverBackend(SolverBackend.AUTO)
+                .timeBudget(timeBudget(arguments))
+                .metrics(metrics)
+                .build();
+    }
+
+    // --cache keeps recent results in memory, --cache=<directory> also shares them with other processes through files
+    private static ResultCache resultCache(CliArguments arguments) throws IOException {
+        if(!arguments.has("cache")){
+            return null;
+        }
+        if(arguments.get("cache").isEmpty()){
+            return ResultCache.inMemory(CACHED_RESULTS_IN_MEMORY);
+        }
+        int maxMegabytes = arguments.intOption("cache-max-mb", 256);
+        if(maxMegabytes <= 0){
+            throw new IllegalArgumentException("Invalid value for --cache-max-mb: " + maxMegabytes);
+        }
+        return ResultCache.withDirectory(CACHED_RESULTS_IN_MEMORY, Path.of(arguments.get("cache")), maxMegabytes * 1024L * 1024L);
+    }
+
+    private static Duration timeBudget(CliArguments arguments) {
+        if(!arguments.has("budget-ms")){
+            return null;
+        }
+        int budgetMillis = arguments.intOption("budget-ms", 0);
+        if(budgetMillis <= 0){
+            throw new IllegalArgumentException("Invalid value for --budget-ms: " + budgetMillis);
+        }
+        return Duration.ofMillis(budgetMillis);
+    }
+
+    static Map<String, BigDecimal> aggregateExpenses(List<AppliedPayment> paymentPlan) {
         Map<String, BigDecimal> totalSpentByMethod = new HashMap<>();
         if(paymentPlan != null){
             for(AppliedPayment payment : paymentPlan){
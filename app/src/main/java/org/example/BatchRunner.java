@@ -0,0 +1,214 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.domain.AnytimeResult;
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.engine.OptimizerEngine;
+import org.example.engine.PreparedPaymentMethods;
+import org.example.loader.OrdersLoader;
+import org.example.loader.PaymentMethodsLoader;
+import org.example.metrics.Phase;
+import org.example.metrics.SolverMetrics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/*
+ * Solves many customers in one JVM, one virtual thread per customer with at most `concurrency` of them loading
+ * or solving at a time. Every customer produces exactly one NDJSON line on the output as soon as it is done,
+ * so lines come in completion order; a customer whose input cannot be loaded or solved gets an error line and
+ * the rest of the batch carries on.
+ */
+final class BatchRunner {
+    static final String ORDERS_SUFFIX = ".orders.json";
+    static final String PAYMENT_METHODS_SUFFIX = ".paymentmethods.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    record Job(String customer, Path orders, Path paymentMethods) {}
+
+    private final OptimizerEngine engine;
+    private final int concurrency;
+    private final SolverMetrics metrics;
+    private final PaymentMethodsLoader paymentMethodsLoader = new PaymentMethodsLoader();
+    private final OrdersLoader ordersLoader = new OrdersLoader();
+
+    BatchRunner(OptimizerEngine engine, int concurrency, SolverMetrics metrics) {
+        if(concurrency < 1){
+            throw new IllegalArgumentException("Concurrency must be at least 1: " + concurrency);
+        }
+        this.engine = engine;
+        this.concurrency = concurrency;
+        this.metrics = metrics;
+    }
+
+    /*
+     * A directory holds <customer>.orders.json next to <customer>.paymentmethods.json. Any other file is a
+     * manifest with one "<customer> <orders.json> <paymentmethods.json>" line per customer, paths relative to
+     * the manifest; blank lines and lines starting with # are skipped.
+     */
+    static List<Job> jobs(Path input) throws IOException {
+        if(Files.isDirectory(input)){
+            return directoryJobs(input);
+        }
+        return manifestJobs(input);
+    }
+
+    // returns the number of customers that failed
+    int run(List<Job> jobs, PrintStream out) throws InterruptedException {
+        return run(jobs, out, this::solve);
+    }
+
+    int run(List<Job> jobs, PrintStream out, Function<Job, Map<String, Object>> solver) throws InterruptedException {
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicInteger failures = new AtomicInteger();
+        try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()){
+            for(Job job : jobs){
+                permits.acquire();
+                executor.submit(() -> {
+                    try{
+                        String json = line(job, solver, failures);
+                        synchronized(out){
+                            out.println(json);
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        return failures.get();
+    }
+
+    /*
+     * Whatever escapes the solver, an Error such as a StackOverflowError on a huge basket included, still
+     * becomes the customer's error line, so no customer goes missing from the output or the failure count.
+     */
+    private static String line(Job job, Function<Job, Map<String, Object>> solver, AtomicInteger failures) {
+        try{
+            Map<String, Object> line = solver.apply(job);
+            String json = json(line);
+            if("error".equals(line.get("status"))){
+                failures.incrementAndGet();
+            }
+            return json;
+        } catch (Throwable e) {
+            failures.incrementAndGet();
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("customer", job.customer());
+            return json(error(line, e.getClass().getSimpleName() + ": " + e.getMessage()));
+        }
+    }
+
+    Map<String, Object> solve(Job job) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("customer", job.customer());
+        try{
+            long phaseStart = metrics.start();
+            Map<String, PaymentMethod> paymentMethods = paymentMethodsLoader.loadPaymentMethods(job.paymentMethods().toString());
+            List<Order> orders = ordersLoader.loadOrders(job.orders().toString(), paymentMethods);
+            metrics.stop(Phase.LOAD, phaseStart);
+            metrics.recordLoaded(orders.size(), paymentMethods.size());
+
+            return solve(engine, paymentMethods, orders, line);
+        } catch (IOException | UncheckedIOException e) {
+            return error(line, "I/O error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return error(line, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    // fills in the status, payments per method and, for an incomplete search, the optimality gap
+    static Map<String, Object> solve(OptimizerEngine engine,
+                                     Map<String, PaymentMethod> paymentMethods,
+                                     List<Order> orders,
+                                     Map<String, Object> line) {
+        BigDecimal total = orders.stream().map(Order::value).reduce(BigDecimal.ZERO, BigDecimal::add);
+        Map<String, String> payments = new TreeMap<>();
+        boolean complete = true;
+        if(total.compareTo(BigDecimal.ZERO) > 0){
+            if(paymentMethods.isEmpty()){
+                return error(line, "No payment methods available.");
+            }
+            AnytimeResult result = engine.solve(PreparedPaymentMethods.of(paymentMethods), orders);
+            if(result.plan().isEmpty()){
+                return error(line, "Could not find payment plan for orders.");
+            }
+            complete = result.complete();
+            App.aggregateExpenses(result.plan()).forEach((methodId, amount) ->
+                    payments.put(methodId, amount.setScale(2, RoundingMode.HALF_UP).toPlainString()));
+            if(!complete){
+                line.put("optimalityGap", result.optimalityGap().toPlainString());
+            }
+        }
+        line.put("status", "ok");
+        line.put("complete", complete);
+        line.put("payments", payments);
+        return line;
+    }
+
+    static Map<String, Object> error(Map<String, Object> line, String message) {
+        line.put("status", "error");
+        line.put("error", message);
+        return line;
+    }
+
+    static String json(Map<String, Object> line) {
+        try{
+            return MAPPER.writeValueAsString(line);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Job> directoryJobs(Path directory) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        try(Stream<Path> files = Files.list(directory)){
+            for(Path orders : files.sorted().toList()){
+                String fileName = orders.getFileName().toString();
+                if(fileName.endsWith(ORDERS_SUFFIX)){
+                    String customer = fileName.substring(0, fileName.length() - ORDERS_SUFFIX.length());
+                    jobs.add(new Job(customer, orders, directory.resolve(customer + PAYMENT_METHODS_SUFFIX)));
+                }
+            }
+        }
+        return jobs;
+    }
+
+    private static List<Job> manifestJobs(Path manifest) throws IOException {
+        Path base = manifest.toAbsolutePath().getParent();
+        List<Job> jobs = new ArrayList<>();
+        List<String> lines = Files.readAllLines(manifest);
+        for(int lineNumber = 1; lineNumber <= lines.size(); lineNumber++){
+            String line = lines.get(lineNumber - 1).strip();
+            if(line.isEmpty() || line.startsWith("#")){
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            if(fields.length != 3){
+                throw new IllegalArgumentException("Manifest line " + lineNumber
+                        + " must be <customer> <orders.json> <paymentmethods.json>: " + line);
+            }
+            jobs.add(new Job(fields[0], base.resolve(fields[1]), base.resolve(fields[2])));
+        }
+        return jobs;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+final class CliArguments {
+    // every --name the CLI reads; a mistyped option would otherwise be ignored without a word
+    private static final Set<String> OPTIONS = Set.of(
+            "parallelism", "budget-ms", "stats", "write-snapshot",
+            "shard", "shard-depth", "solve-shards", "merge-shards", "sweep",
+            "batch", "serve", "concurrency", "cache", "cache-max-mb");
+
+    private final List<String> positional;
+    private final Map<String, String> options;
+
+    private CliArguments(List<String> positional, Map<String, String> options) {
+        this.positional = positional;
+        this.options = options;
+    }
+
+    static CliArguments parse(String[] args) {
+        List<String> positional = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        for(String arg : args){
+            if(arg.startsWith("--")){
+                int separator = arg.indexOf('=');
+                String name = separator < 0 ? arg.substring(2) : arg.substring(2, separator);
+                if(!OPTIONS.contains(name)){
+                    throw new IllegalArgumentException("Unknown option --" + name);
+                }
+                options.put(name, separator < 0 ? "" : arg.substring(separator + 1));
+            } else {
+                positional.add(arg);
+            }
+        }
+        return new CliArguments(positional, options);
+    }
+
+    List<String> positional() {
+        return positional;
+    }
+
+    boolean has(String name) {
+        return options.containsKey(name);
+    }
+
+    String get(String name) {
+        return options.get(name);
+    }
+
+    int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        if(value == null){
+            return defaultValue;
+        }
+        try{
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for --" + name + ": " + value, e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.engine.OptimizerEngine;
+import org.example.loader.OrdersLoader;
+import org.example.loader.PaymentMethodsLoader;
+import org.example.metrics.Phase;
+import org.example.metrics.SolverMetrics;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.IntConsumer;
+
+/*
+ * Keeps one JVM, one pair of loaders and one engine warm across requests. Each input line is a JSON object
+ * {"id": ..., "paymentMethods": [...], "orders": [...]} with the arrays in the file formats; each gets one output
+ * line shaped like a batch line, with "id" echoed instead of "customer". Up to `concurrency` requests are solved at
+ * once on virtual threads while later lines are still being read, but responses are written in request order.
+ */
+final class NdjsonServer {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Future<String> END_OF_INPUT = CompletableFuture.completedFuture(null);
+
+    private final OptimizerEngine engine;
+    private final int concurrency;
+    private final SolverMetrics metrics;
+    private final PaymentMethodsLoader paymentMethodsLoader = new PaymentMethodsLoader();
+    private final OrdersLoader ordersLoader = new OrdersLoader();
+
+    NdjsonServer(OptimizerEngine engine, int concurrency, SolverMetrics metrics) {
+        if(concurrency < 1){
+            throw new IllegalArgumentException("Concurrency must be at least 1: " + concurrency);
+        }
+        this.engine = engine;
+        this.concurrency = concurrency;
+        this.metrics = metrics;
+    }
+
+    // returns at end of input, once every response has been written
+    void serve(InputStream input, OutputStream output) throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        Semaphore inFlight = new Semaphore(concurrency);
+        BlockingQueue<Future<String>> responses = new LinkedBlockingQueue<>();
+        try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()){
+            Future<?> responseWriter = executor.submit(() -> {
+                try{
+                    writeResponses(responses, writer, inFlight);
+                } catch (Exception e) {
+                    // unblock the reader, which stops at its next line
+                    inFlight.release(concurrency);
+                    throw e;
+                }
+                return null;
+            });
+            try{
+                String line;
+                while((line = reader.readLine()) != null){
+                    if(line.isBlank()){
+                        continue;
+                    }
+                    inFlight.acquire();
+                    if(responseWriter.isDone()){
+                        break;
+                    }
+                    String request = line;
+                    responses.add(executor.submit(() -> respond(request)));
+                }
+            } finally {
+                responses.add(END_OF_INPUT);
+            }
+            responseWriter.get();
+        } catch (ExecutionException e) {
+            // the client went away or the output broke; nothing left to answer to
+            if(e.getCause() instanceof IOException ioException){
+                throw ioException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /*
+     * Accepts connections on the loopback interface only and serves each on its own virtual thread until the
+     * process is stopped. Port 0 picks a free port; the bound port is reported through onBound.
+     */
+    void listen(int port, IntConsumer onBound) throws IOException {
+        try(ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+            ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor()){
+            onBound.accept(serverSocket.getLocalPort());
+            while(!serverSocket.isClosed()){
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> {
+                    try(socket){
+                        serve(socket.getInputStream(), socket.getOutputStream());
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    String respond(String request) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        try{
+            JsonNode node = MAPPER.readTree(request);
+            if(node == null || !node.isObject()){
+                throw new IllegalArgumentException("Request must be a JSON object");
+            }
+            if(node.hasNonNull("id")){
+                line.put("id", node.get("id").asText());
+            }
+            Iterator<String> fields = node.fieldNames();
+            while(fields.hasNext()){
+                String field = fields.next();
+                if(!field.equals("id") && !field.equals("paymentMethods") && !field.equals("orders")){
+                    throw new IllegalArgumentException("Unrecognized request field: " + field);
+                }
+            }
+            if(!node.has("paymentMethods") || !node.has("orders")){
+                throw new IllegalArgumentException("Request needs both paymentMethods and orders");
+            }
+
+            long phaseStart = metrics.start();
+            Map<String, PaymentMethod> paymentMethods = paymentMethodsLoader.readPaymentMethods(node.get("paymentMethods").traverse(MAPPER));
+            List<Order> orders = ordersLoader.readOrders(node.get("orders").traverse(MAPPER), paymentMethods);
+            metrics.stop(Phase.LOAD, phaseStart);
+            metrics.recordLoaded(orders.size(), paymentMethods.size());
+
+            BatchRunner.solve(engine, paymentMethods, orders, line);
+        } catch (IOException | UncheckedIOException e) {
+            BatchRunner.error(line, "Invalid request: " + e.getMessage());
+        } catch (RuntimeException e) {
+            BatchRunner.error(line, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        return BatchRunner.json(line);
+    }
+
+    private static void writeResponses(BlockingQueue<Future<String>> responses, Writer writer, Semaphore inFlight)
+            throws IOException, InterruptedException, ExecutionException {
+        while(true){
+            Future<String> response = responses.take();
+            if(response == END_OF_INPUT){
+                writer.flush();
+                return;
+            }
+            writer.write(response.get());
+            writer.write('\n');
+            inFlight.release();
+            // flush once the pipeline has drained rather than after every line
+            if(responses.isEmpty()){
+                writer.flush();
+            }
+        }
+    }
+}
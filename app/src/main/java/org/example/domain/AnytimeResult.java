@@ -0,0 +1,23 @@
+package org.example.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/*
+ * Best plan of a search that may have been stopped early. discountUpperBound is no lower than the discount
+ * of the optimal plan; both are equal once the search ran to completion.
+ */
+public record AnytimeResult(List<AppliedPayment> plan,
+                            boolean complete,
+                            BigDecimal discount,
+                            BigDecimal discountUpperBound) {
+
+    // share of the best possible discount the plan may be missing, 0 for a proven optimum
+    public BigDecimal optimalityGap() {
+        if(discountUpperBound.signum() <= 0 || discount.compareTo(discountUpperBound) >= 0){
+            return BigDecimal.ZERO;
+        }
+        return discountUpperBound.subtract(discount).divide(discountUpperBound, 4, RoundingMode.UP);
+    }
+}
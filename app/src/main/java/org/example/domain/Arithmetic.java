@@ -0,0 +1,6 @@
+package org.example.domain;
+
+public enum Arithmetic {
+    BIG_DECIMAL,
+    LONG_CENTS
+}
@@ -3,6 +3,7 @@ package org.example.domain;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Map;
+import java.util.Objects;
 
 public record CalculatedPaymentOption(Order order,
                                       BigDecimal finalPrice,
@@ -13,4 +14,20 @@ public record CalculatedPaymentOption(Order order,
     public CalculatedPaymentOption {
         discountAmount = order.value().subtract(finalPrice).setScale(2, RoundingMode.HALF_UP);
     }
+
+    // written out, as in Order, so the first distinct() of a run does not bootstrap ObjectMethods
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CalculatedPaymentOption option
+                && order.equals(option.order)
+                && Objects.equals(finalPrice, option.finalPrice)
+                && discountAmount.equals(option.discountAmount)
+                && paymentStrategyType == option.paymentStrategyType
+                && Objects.equals(spent, option.spent);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(order, finalPrice, discountAmount, paymentStrategyType, spent);
+    }
 }
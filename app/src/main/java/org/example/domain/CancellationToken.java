@@ -0,0 +1,16 @@
+package org.example.domain;
+
+/*
+ * Stops a running search from another thread; the optimizer then returns the best plan found so far.
+ */
+public final class CancellationToken {
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
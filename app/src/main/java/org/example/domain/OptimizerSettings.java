@@ -0,0 +1,61 @@
+package org.example.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.example.metrics.SolverMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+@Getter
+@Builder(toBuilder = true)
+public class OptimizerSettings {
+    @Builder.Default
+    private final SearchMode searchMode = SearchMode.EXHAUSTIVE;
+    // LONG_CENTS falls back to BIG_DECIMAL for instances that are not exact in whole cents
+    @Builder.Default
+    private final Arithmetic arithmetic = Arithmetic.LONG_CENTS;
+    // worker threads for the long-cents search; the BigDecimal path always runs on the calling thread
+    @Builder.Default
+    private final int parallelism = 1;
+    // leading orders split into fork/join tasks, 0 derives it from the branching factor
+    @Builder.Default
+    private final int parallelSplitDepth = 0;
+    // runs the fork/join tasks of every solve with these settings; null starts and stops a pool per solve
+    private final ForkJoinPool forkJoinPool;
+    // nodes above this depth of the long-cents branch and bound are also bounded by an LP relaxation, see
+    // LinearRelaxation; 0 leaves them to the per-order bound. The plan found is the same
+    @Builder.Default
+    private final int relaxationDepth = 0;
+    // long-cents only; the BigDecimal path always searches
+    @Builder.Default
+    private final SolverBackend solverBackend = SolverBackend.SEARCH;
+    // most states the dynamic program may tabulate over all orders, four bytes each
+    @Builder.Default
+    private final long dynamicProgrammingStates = 1 << 22;
+    // capacity of the MEMOIZED state table, rounded down to a power of two
+    @Builder.Default
+    private final int memoTableEntries = 1 << 18;
+    // drop dominated options and skip symmetric branches, see OptionReduction; the plan found is the same
+    @Builder.Default
+    private final boolean reduceOptions = true;
+    // solve orders that cannot compete for any limit one by one, see SlackDecomposition; the plan found is the same
+    @Builder.Default
+    private final boolean decomposeSlack = true;
+    // visiting order of the long-cents depth-first search, see CentsProblem.ordered; the plan found is the same
+    @Builder.Default
+    private final OrderOrdering orderOrdering = OrderOrdering.AS_GIVEN;
+    @Builder.Default
+    private final OptionOrdering optionOrdering = OptionOrdering.AS_GENERATED;
+    // wall-clock limit of the long-cents search, null to search until the optimum is proven
+    private final Duration timeBudget;
+    // lets another thread stop the long-cents search early, like the budget running out
+    private final CancellationToken cancellationToken;
+    // receives phase timings and search counters of every solve
+    @Builder.Default
+    private final SolverMetrics metrics = SolverMetrics.DISABLED;
+
+    public static OptimizerSettings defaults() {
+        return builder().build();
+    }
+}
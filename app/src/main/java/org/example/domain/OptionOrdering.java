@@ -0,0 +1,9 @@
+package org.example.domain;
+
+// the order in which the depth-first search tries the payment options of one order
+public enum OptionOrdering {
+    AS_GENERATED,
+    HIGHEST_DISCOUNT,
+    // options that may spend points first, by the points they may spend and then by discount
+    POINTS_FIRST
+}
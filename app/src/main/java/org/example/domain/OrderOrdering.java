@@ -0,0 +1,9 @@
+package org.example.domain;
+
+// the order in which the depth-first search decides the orders of a basket
+public enum OrderOrdering {
+    AS_GIVEN,
+    HIGHEST_VALUE,
+    // fewest branches first, larger orders first among equals
+    MOST_CONSTRAINED
+}
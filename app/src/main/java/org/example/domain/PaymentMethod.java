@@ -1,7 +1,6 @@
 package org.example.domain;
 
 import lombok.Getter;
-import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -11,8 +10,6 @@ public class PaymentMethod {
     private final String id;
     private final BigDecimal discountPercentage;
     private final BigDecimal methodLimit;
-    @Setter
-    private BigDecimal currentLimit;
 
     public PaymentMethod(String id, BigDecimal discountPercentage, BigDecimal methodLimit) {
         if(methodLimit.scale() > 2) {
@@ -21,7 +18,6 @@ public class PaymentMethod {
         this.id = id;
         this.discountPercentage = discountPercentage;
         this.methodLimit = methodLimit.setScale(2, RoundingMode.HALF_UP);
-        this.currentLimit = methodLimit;
     }
 
     public boolean isPoints() {
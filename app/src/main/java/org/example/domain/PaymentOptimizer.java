@@ -1,196 +1,547 @@
 package org.example.domain;
 
+import org.example.engine.CentsProblem;
+import org.example.engine.CentsSolver;
+import org.example.engine.OptionReduction;
+import org.example.engine.SlackDecomposition;
+import org.example.engine.PaymentMethodIndex;
 import org.example.logic.DiscountCalculator;
+import org.example.logic.PaymentOptionTable;
+import org.example.metrics.Phase;
+import org.example.metrics.SolverMetrics;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.stream.IntStream;
 
 public class PaymentOptimizer {
+    private static final int PARALLEL_DECOMPOSITION_THRESHOLD = 32;
+    private static final int ZERO_VALUE_DECISION = -1;
+    private static final int NO_CARD = -1;
+
     private final List<Order> allOrders;
     private final DiscountCalculator discountCalculator;
-    private final Map<String, PaymentMethod> initialPaymentMethods;
     private final PaymentMethod pointsPaymentMethodGlobalReference;
-    private final List<PaymentMethod> clientCardPaymentMethods;
+    private final PaymentMethodIndex methodIndex;
+    private final SearchMode searchMode;
+    private final Arithmetic arithmetic;
+    private final OptimizerSettings settings;
 
     private BigDecimal bestTotalDiscountSoFar;
-    private List<AppliedPayment> bestPaymentPlanSoFar;
+    private int[] bestTrailSoFar;
     private BigDecimal pointsSpentInBestPlan;
 
+    private PaymentOptionTable optionTable;
+    private OptionReduction reduction;
+    private OptionReduction lastReduction;
+    /*
+     * The current path, one decision per order encoded like CentsProblem.encodeDecision: the option index
+     * and the card taking the remainder of a partial-points payment. Plans are only built for the winner.
+     */
+    private int[] trail;
+    // indexed by methodIndex; decremented before recursing and restored on backtrack
+    private BigDecimal[] remainingLimits;
+    // [orderIndex * methodCount + method]: the limits before the branch taken at that order, restored on backtrack
+    private BigDecimal[] savedLimits;
+    private BigDecimal[] maxRemainingDiscount;
+    private BigDecimal[] maxRemainingPoints;
+    private BigDecimal initialPointsLimit;
+    private long nodesVisited;
+    private long nodesPruned;
+    private long feasibleBranches;
+    private long incumbentImprovements;
+    private long searchStartNanos;
+    private long timeToFirstSolutionNanos;
+    private SearchStatistics lastSearchStatistics = SearchStatistics.EMPTY;
+
     public PaymentOptimizer(List<Order> allOrders,
                             DiscountCalculator discountCalculator,
                             Map<String, PaymentMethod> allClientInitialPaymentMethods) {
+        this(allOrders, discountCalculator, allClientInitialPaymentMethods, OptimizerSettings.defaults());
+    }
+
+    public PaymentOptimizer(List<Order> allOrders,
+                            DiscountCalculator discountCalculator,
+                            Map<String, PaymentMethod> allClientInitialPaymentMethods,
+                            SearchMode searchMode) {
+        this(allOrders, discountCalculator, allClientInitialPaymentMethods,
+                OptimizerSettings.builder().searchMode(searchMode).build());
+    }
+
+    public PaymentOptimizer(List<Order> allOrders,
+                            DiscountCalculator discountCalculator,
+                            Map<String, PaymentMethod> allClientInitialPaymentMethods,
+                            OptimizerSettings settings) {
+        this(allOrders, discountCalculator, PaymentMethodIndex.forClient(allClientInitialPaymentMethods), settings);
+    }
+
+    /*
+     * For callers that solve many baskets against the same payment methods, see OptimizerEngine.
+     */
+    public PaymentOptimizer(List<Order> allOrders,
+                            DiscountCalculator discountCalculator,
+                            PaymentMethodIndex methodIndex,
+                            OptimizerSettings settings) {
         this.allOrders = allOrders;
         this.discountCalculator = discountCalculator;
-
-        this.initialPaymentMethods = Map.copyOf(allClientInitialPaymentMethods);
-        this.pointsPaymentMethodGlobalReference = this.initialPaymentMethods.get("PUNKTY");
-        this.clientCardPaymentMethods = this.initialPaymentMethods.values().stream()
-                .filter(paymentMethod -> paymentMethod != null && !paymentMethod.isPoints())
-                .toList();
+        this.searchMode = settings.getSearchMode();
+        this.arithmetic = settings.getArithmetic();
+        this.settings = settings;
+        if(settings.getParallelism() < 1){
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + settings.getParallelism());
+        }
+        this.methodIndex = methodIndex;
+        this.pointsPaymentMethodGlobalReference = methodIndex.pointsMethod();
     }
 
     public List<AppliedPayment> findOptimalPaymentPlan(){
+        return findPaymentPlanWithinBudget().plan();
+    }
+
+    /*
+     * Honors the time budget and cancellation token of the settings: the result then holds the best plan found
+     * before the search stopped and an upper bound on the optimal discount. The BigDecimal path always completes.
+     */
+    public AnytimeResult findPaymentPlanWithinBudget(){
+        return findPaymentPlanWithinBudget(List.of());
+    }
+
+    /*
+     * warmStart is an earlier plan for some of these orders, matched by order ID. The long-cents search starts
+     * from as much of it as still fits as its first incumbent, which lets it prune from the first node; the plan
+     * returned is the one a search without it returns.
+     */
+    public AnytimeResult findPaymentPlanWithinBudget(List<AppliedPayment> warmStart){
+        SolverMetrics metrics = settings.getMetrics();
+        long phaseStart = metrics.start();
+        optionTable = PaymentOptionTable.build(allOrders, discountCalculator);
+        if(metrics.isEnabled()){
+            metrics.recordOptionsGenerated(optionTable.optionCount());
+        }
+        if(settings.isDecomposeSlack()){
+            SlackDecomposition decomposition = SlackDecomposition.of(optionTable, methodIndex);
+            if(decomposition.isDecomposed()){
+                metrics.stop(Phase.OPTION_GENERATION, phaseStart);
+                PaymentOptionTable table = optionTable;
+                optionTable = null;
+                lastReduction = null;
+                phaseStart = metrics.start();
+                AnytimeResult result = solveDecomposed(table, decomposition, warmStart);
+                metrics.stop(Phase.SEARCH, phaseStart);
+                metrics.recordSearch(lastSearchStatistics, timeToFirstSolutionNanos);
+                return result;
+            }
+        }
+        reduction = null;
+        if(settings.isReduceOptions()){
+            reduction = OptionReduction.reduce(optionTable, methodIndex);
+            optionTable = reduction.table();
+            metrics.recordReduction(reduction.branchingFactorBefore(), reduction.branchingFactorAfter());
+        }
+        lastReduction = reduction;
+        metrics.stop(Phase.OPTION_GENERATION, phaseStart);
+
+        phaseStart = metrics.start();
+        if(arithmetic == Arithmetic.LONG_CENTS){
+            Optional<CentsProblem> centsProblem = reduction == null
+                    ? CentsProblem.from(optionTable, methodIndex)
+                    : CentsProblem.from(reduction, methodIndex);
+            if(centsProblem.isPresent()){
+                CentsSolver solver = CentsSolver.select(centsProblem.get(), settings);
+                AnytimeResult result = solver.searchWithinBudget(warmStart);
+                lastSearchStatistics = solver.statistics();
+                optionTable = null;
+                reduction = null;
+                metrics.stop(Phase.SEARCH, phaseStart);
+                metrics.recordSearch(lastSearchStatistics, solver.timeToFirstSolutionNanos());
+                return result;
+            }
+        }
+        List<AppliedPayment> plan = findOptimalPaymentPlanWithBigDecimals();
+        metrics.stop(Phase.SEARCH, phaseStart);
+        metrics.recordSearch(lastSearchStatistics, timeToFirstSolutionNanos);
+        BigDecimal discount = plan.isEmpty() ? BigDecimal.ZERO : bestTotalDiscountSoFar;
+        return new AnytimeResult(plan, true, discount, discount);
+    }
+
+    /*
+     * Every independent order is solved on its own, in parallel for large baskets, and the contended orders are
+     * searched together; all parts see the full limits, which the decomposition guarantees they never exhaust.
+     * The merged plan is the plan the search over the whole basket returns.
+     */
+    private AnytimeResult solveDecomposed(PaymentOptionTable table, SlackDecomposition decomposition, List<AppliedPayment> warmStart) {
+        long startNanos = System.nanoTime();
+        OptimizerSettings partSettings = settings.toBuilder()
+                .decomposeSlack(false)
+                .metrics(SolverMetrics.DISABLED)
+                .build();
+        OptimizerSettings orderSettings = partSettings.toBuilder().parallelism(1).build();
+
+        int[] independentOrders = decomposition.independentOrders();
+        IntStream indices = IntStream.range(0, independentOrders.length);
+        if(independentOrders.length >= PARALLEL_DECOMPOSITION_THRESHOLD){
+            indices = indices.parallel();
+        }
+        List<DecomposedPart> parts = new ArrayList<>(indices
+                .mapToObj(k -> solvePart(table, new int[]{independentOrders[k]}, orderSettings, List.of()))
+                .toList());
+        if(decomposition.contendedOrders().length > 0){
+            parts.add(solvePart(table, decomposition.contendedOrders(), partSettings, warmStart));
+        }
+
+        AppliedPayment[] plan = new AppliedPayment[table.size()];
+        SearchStatistics statistics = SearchStatistics.EMPTY;
+        boolean complete = true;
+        boolean planMissing = false;
+        BigDecimal discount = BigDecimal.ZERO;
+        BigDecimal discountUpperBound = BigDecimal.ZERO;
+        for(DecomposedPart part : parts){
+            statistics = statistics.plus(part.statistics());
+            complete &= part.result().complete();
+            discount = discount.add(part.result().discount());
+            discountUpperBound = discountUpperBound.add(part.result().discountUpperBound());
+            List<AppliedPayment> partPlan = part.result().plan();
+            if(partPlan.isEmpty()){
+                planMissing = true;
+                continue;
+            }
+            for(int k = 0; k < part.orderIndices().length; k++){
+                plan[part.orderIndices()[k]] = partPlan.get(k);
+            }
+        }
+        lastSearchStatistics = statistics;
+        if(planMissing){
+            timeToFirstSolutionNanos = -1;
+            return new AnytimeResult(new ArrayList<>(), complete, BigDecimal.ZERO, complete ? BigDecimal.ZERO : discountUpperBound);
+        }
+        timeToFirstSolutionNanos = System.nanoTime() - startNanos;
+        return new AnytimeResult(new ArrayList<>(Arrays.asList(plan)), complete, discount, discountUpperBound);
+    }
+
+    private DecomposedPart solvePart(PaymentOptionTable table,
+                                     int[] orderIndices,
+                                     OptimizerSettings partSettings,
+                                     List<AppliedPayment> warmStart) {
+        List<Order> orders = new ArrayList<>(orderIndices.length);
+        for(int orderIndex : orderIndices){
+            orders.add(table.order(orderIndex));
+        }
+        PaymentOptimizer optimizer = new PaymentOptimizer(orders, discountCalculator, methodIndex, partSettings);
+        AnytimeResult result = optimizer.findPaymentPlanWithinBudget(warmStart);
+        return new DecomposedPart(orderIndices, result, optimizer.getLastSearchStatistics());
+    }
+
+    private record DecomposedPart(int[] orderIndices, AnytimeResult result, SearchStatistics statistics) {}
+
+    private List<AppliedPayment> findOptimalPaymentPlanWithBigDecimals(){
         bestTotalDiscountSoFar = BigDecimal.valueOf(-1);
-        bestPaymentPlanSoFar = new ArrayList<>();
+        bestTrailSoFar = null;
         pointsSpentInBestPlan = BigDecimal.valueOf(Long.MAX_VALUE);
 
-        Map<String, BigDecimal> initialLimits = new HashMap<>();
-        for(PaymentMethod pm : initialPaymentMethods.values()) {
-            initialLimits.put(pm.getId(), pm.getMethodLimit());
+        remainingLimits = initialLimits();
+        trail = new int[optionTable.size()];
+        savedLimits = new BigDecimal[optionTable.size() * methodIndex.size()];
+
+        nodesVisited = 0;
+        nodesPruned = 0;
+        feasibleBranches = 0;
+        incumbentImprovements = 0;
+        timeToFirstSolutionNanos = -1;
+        searchStartNanos = System.nanoTime();
+        if(searchMode == SearchMode.BRANCH_AND_BOUND){
+            computeRemainingBounds();
+            initialPointsLimit = pointsPaymentMethodGlobalReference == null
+                    ? BigDecimal.ZERO
+                    : pointsPaymentMethodGlobalReference.getMethodLimit();
         }
 
-        solveRecursively(0, initialLimits, BigDecimal.ZERO, new ArrayList<>());
-        return bestPaymentPlanSoFar;
+        solveRecursively(0, BigDecimal.ZERO, BigDecimal.ZERO);
+        lastSearchStatistics = new SearchStatistics(nodesVisited, nodesPruned, feasibleBranches, incumbentImprovements);
+        List<AppliedPayment> plan = bestTrailSoFar == null ? new ArrayList<>() : materialize(bestTrailSoFar);
+        optionTable = null;
+        reduction = null;
+        remainingLimits = null;
+        savedLimits = null;
+        trail = null;
+        bestTrailSoFar = null;
+        return plan;
+    }
+
+    private BigDecimal[] initialLimits() {
+        BigDecimal[] limits = new BigDecimal[methodIndex.size()];
+        for(int i = 0; i < methodIndex.size(); i++) {
+            limits[i] = methodIndex.method(i).getMethodLimit();
+        }
+        return limits;
+    }
+
+    // replays the trail against fresh limits, so partial-points payments get the amounts the search charged
+    private List<AppliedPayment> materialize(int[] decisions) {
+        BigDecimal[] limits = initialLimits();
+        List<AppliedPayment> plan = new ArrayList<>(decisions.length);
+        for(int orderIndex = 0; orderIndex < decisions.length; orderIndex++){
+            Order order = optionTable.order(orderIndex);
+            if(decisions[orderIndex] == ZERO_VALUE_DECISION){
+                plan.add(new AppliedPayment(order.id(), BigDecimal.ZERO, PaymentStrategyType.FULL_PAYMENT_NO_PROMOTION, Collections.emptyMap()));
+                continue;
+            }
+            CalculatedPaymentOption option = optionTable.options(orderIndex).get(decisions[orderIndex] / (methodIndex.cardCount() + 1));
+            int cardSlot = decisions[orderIndex] % (methodIndex.cardCount() + 1) - 1;
+            Map<PaymentMethod, BigDecimal> actualSpent = new HashMap<>();
+            if(cardSlot == NO_CARD){
+                actualSpent.putAll(option.spent());
+            } else {
+                BigDecimal pointsToSpend = partialPointsToSpend(option, order, limits[methodIndex.pointsIndex()]);
+                actualSpent.put(pointsPaymentMethodGlobalReference, pointsToSpend);
+                actualSpent.put(methodIndex.card(cardSlot), option.finalPrice().subtract(pointsToSpend));
+            }
+            for(Map.Entry<PaymentMethod, BigDecimal> entry : actualSpent.entrySet()){
+                int index = methodIndex.indexOf(entry.getKey().getId());
+                limits[index] = limits[index].subtract(entry.getValue());
+            }
+            plan.add(new AppliedPayment(order.id(), option.finalPrice(), option.paymentStrategyType(), actualSpent));
+        }
+        return plan;
+    }
+
+    public SearchStatistics getLastSearchStatistics() {
+        return lastSearchStatistics;
+    }
+
+    // null when the last solve ran with reduceOptions off or was split by SlackDecomposition
+    public OptionReduction getLastOptionReduction() {
+        return lastReduction;
+    }
+
+    /*
+     * Suffix sums of the best discount (and the most points) any single option can give each order.
+     * Both ignore the shared limits, so they never underestimate what the remaining orders can still add.
+     */
+    private void computeRemainingBounds() {
+        int orderCount = optionTable.size();
+        maxRemainingDiscount = new BigDecimal[orderCount + 1];
+        maxRemainingPoints = new BigDecimal[orderCount + 1];
+        maxRemainingDiscount[orderCount] = BigDecimal.ZERO;
+        maxRemainingPoints[orderCount] = BigDecimal.ZERO;
+
+        for(int i = orderCount - 1; i >= 0; i--){
+            BigDecimal bestDiscount = BigDecimal.ZERO;
+            BigDecimal mostPoints = BigDecimal.ZERO;
+            for(CalculatedPaymentOption option : optionTable.options(i)){
+                bestDiscount = bestDiscount.max(option.discountAmount());
+                if(option.paymentStrategyType() == PaymentStrategyType.PARTIAL_POINTS_10_PERCENT_GLOBAL_DISCOUNT
+                        || option.spent().keySet().stream().anyMatch(PaymentMethod::isPoints)){
+                    mostPoints = mostPoints.max(option.finalPrice());
+                }
+            }
+            maxRemainingDiscount[i] = maxRemainingDiscount[i + 1].add(bestDiscount);
+            maxRemainingPoints[i] = maxRemainingPoints[i + 1].add(mostPoints);
+        }
     }
 
-    private void solveRecursively(
-                                    int orderIndex,
-                                    Map<String, BigDecimal> currentLimits,
-                                    BigDecimal currentAccumulatedDiscount,
-                                    List<AppliedPayment> currentPath){
-        if(orderIndex == allOrders.size()){
-            BigDecimal totalPointsSpentOnThisPath = calculateTotalPointsSpentFromPath(currentPath);
+    private boolean cannotBeatIncumbent(int orderIndex, BigDecimal currentAccumulatedDiscount) {
+        BigDecimal optimisticDiscount = currentAccumulatedDiscount.add(maxRemainingDiscount[orderIndex]);
+        int comparison = optimisticDiscount.compareTo(bestTotalDiscountSoFar);
+        if(comparison != 0){
+            return comparison < 0;
+        }
+
+        BigDecimal pointsLeft = remainingLimit(methodIndex.pointsIndex());
+        BigDecimal optimisticPoints = initialPointsLimit.subtract(pointsLeft)
+                .add(pointsLeft.min(maxRemainingPoints[orderIndex]));
+        return optimisticPoints.compareTo(pointsSpentInBestPlan) <= 0;
+    }
 
+    private void solveRecursively(int orderIndex, BigDecimal currentAccumulatedDiscount, BigDecimal pointsSpent){
+        nodesVisited++;
+        if(orderIndex == optionTable.size()){
             if(currentAccumulatedDiscount.compareTo(bestTotalDiscountSoFar) > 0){
                 bestTotalDiscountSoFar = currentAccumulatedDiscount;
-                bestPaymentPlanSoFar = new ArrayList<>(currentPath);
-                pointsSpentInBestPlan = totalPointsSpentOnThisPath;
+                pointsSpentInBestPlan = pointsSpent;
+                keepTrail();
             }
             else if (currentAccumulatedDiscount.compareTo(bestTotalDiscountSoFar) == 0){
-                if(totalPointsSpentOnThisPath.compareTo(pointsSpentInBestPlan) > 0){
-                    bestPaymentPlanSoFar = new ArrayList<>(currentPath);
-                    pointsSpentInBestPlan = totalPointsSpentOnThisPath;
+                if(pointsSpent.compareTo(pointsSpentInBestPlan) > 0){
+                    pointsSpentInBestPlan = pointsSpent;
+                    keepTrail();
                 }
             }
             return;
         }
 
-        Order currentOrder = allOrders.get(orderIndex);
+        if(searchMode == SearchMode.BRANCH_AND_BOUND
+                && cannotBeatIncumbent(orderIndex, currentAccumulatedDiscount)){
+            nodesPruned++;
+            return;
+        }
+
+        Order currentOrder = optionTable.order(orderIndex);
         if(currentOrder.value().compareTo(BigDecimal.ZERO) <= 0){
-            currentPath.add(new AppliedPayment(
-                    currentOrder.id(),
-                    BigDecimal.ZERO,
-                    PaymentStrategyType.FULL_PAYMENT_NO_PROMOTION,
-                    Collections.emptyMap()));
-            solveRecursively(orderIndex + 1, currentLimits, currentAccumulatedDiscount, currentPath);
-            currentPath.removeLast();
+            trail[orderIndex] = ZERO_VALUE_DECISION;
+            solveRecursively(orderIndex + 1, currentAccumulatedDiscount, pointsSpent);
             return;
         }
 
-        List<CalculatedPaymentOption> optionsForThisOrder = discountCalculator.calculateOptionsForOrder(currentOrder);
+        List<CalculatedPaymentOption> optionsForThisOrder = optionTable.options(orderIndex);
+        for(int optionIndex = 0; optionIndex < optionsForThisOrder.size(); optionIndex++){
+            CalculatedPaymentOption option = optionsForThisOrder.get(optionIndex);
+            if(option.paymentStrategyType() == PaymentStrategyType.PARTIAL_POINTS_10_PERCENT_GLOBAL_DISCOUNT){
+                branchOnPartialPoints(orderIndex, optionIndex, option, currentOrder, currentAccumulatedDiscount, pointsSpent);
+            } else if(!skipsFixedOption(orderIndex, optionIndex)){
+                branchOnFixedAmounts(orderIndex, optionIndex, option, currentAccumulatedDiscount, pointsSpent);
+            }
+        }
+    }
 
-        if(optionsForThisOrder.isEmpty()){
+    private void branchOnFixedAmounts(int orderIndex,
+                                      int optionIndex,
+                                      CalculatedPaymentOption option,
+                                      BigDecimal currentAccumulatedDiscount,
+                                      BigDecimal pointsSpent) {
+        Map<PaymentMethod, BigDecimal> spent = option.spent();
+        if(spent.isEmpty()){
             return;
         }
+        for(Map.Entry<PaymentMethod, BigDecimal> entry : spent.entrySet()){
+            if(remainingLimit(methodIndex.indexOf(entry.getKey().getId())).compareTo(entry.getValue()) < 0){
+                return;
+            }
+        }
 
-        for(CalculatedPaymentOption option : optionsForThisOrder){
-            List<Map<PaymentMethod, BigDecimal>> possibleCombinations =
-                    determineActualSpentAmountsAndFeasibility(option, currentOrder, currentLimits);
-            for(Map<PaymentMethod, BigDecimal> actualSpentAmounts : possibleCombinations){
-                if(actualSpentAmounts.isEmpty()){
-                    continue;
-                }
+        saveLimits(orderIndex);
+        for(Map.Entry<PaymentMethod, BigDecimal> entry : spent.entrySet()){
+            int index = methodIndex.indexOf(entry.getKey().getId());
+            remainingLimits[index] = remainingLimits[index].subtract(entry.getValue());
+        }
+        BigDecimal pointsInPayment = pointsPaymentMethodGlobalReference == null ? null : spent.get(pointsPaymentMethodGlobalReference);
+        trail[orderIndex] = optionIndex * (methodIndex.cardCount() + 1);
+        feasibleBranches++;
+        solveRecursively(orderIndex + 1,
+                currentAccumulatedDiscount.add(option.discountAmount()),
+                pointsInPayment == null ? pointsSpent : pointsSpent.add(pointsInPayment));
+        restoreLimits(orderIndex);
+    }
 
-                Map<String, BigDecimal> newLimits = new HashMap<>(currentLimits);
-                for(Map.Entry<PaymentMethod, BigDecimal> entry : actualSpentAmounts.entrySet()){
-                    String methodId = entry.getKey().getId();
-                    BigDecimal amountToSpend = entry.getValue();
-                    BigDecimal newLimit = newLimits.get(methodId).subtract(amountToSpend);
-                    newLimits.put(methodId, newLimit);
-                }
+    private void branchOnPartialPoints(int orderIndex,
+                                       int optionIndex,
+                                       CalculatedPaymentOption option,
+                                       Order order,
+                                       BigDecimal currentAccumulatedDiscount,
+                                       BigDecimal pointsSpent) {
+        int pointsIndex = methodIndex.indexOf(pointsPaymentMethodGlobalReference.getId());
+        BigDecimal pointsToSpend = partialPointsToSpend(option, order, remainingLimit(pointsIndex));
+        if(pointsToSpend == null){
+            return;
+        }
+        BigDecimal cardAmount = option.finalPrice().subtract(pointsToSpend);
+        if(cardAmount.compareTo(BigDecimal.ZERO) <= 0){
+            return;
+        }
+
+        for(int cardSlot = 0; cardSlot < methodIndex.cardCount(); cardSlot++){
+            int cardIndex = methodIndex.cardIndex(cardSlot);
+            if(remainingLimit(cardIndex).compareTo(cardAmount) < 0 || skipsCard(orderIndex, cardSlot)){
+                continue;
+            }
+            saveLimits(orderIndex);
+            remainingLimits[pointsIndex] = remainingLimits[pointsIndex].subtract(pointsToSpend);
+            remainingLimits[cardIndex] = remainingLimits[cardIndex].subtract(cardAmount);
+            trail[orderIndex] = optionIndex * (methodIndex.cardCount() + 1) + cardSlot + 1;
+            feasibleBranches++;
+            solveRecursively(orderIndex + 1,
+                    currentAccumulatedDiscount.add(option.discountAmount()),
+                    pointsSpent.add(pointsToSpend));
+            restoreLimits(orderIndex);
+        }
+    }
+
+    /*
+     * Points a partial-points payment spends given the points still available: as many as leave at least
+     * 0.01 for the card, and never less than 10% of the order value. Null when that 10% is not available.
+     */
+    private static BigDecimal partialPointsToSpend(CalculatedPaymentOption option, Order order, BigDecimal pointsAvailable) {
+        BigDecimal minPointsRequired = order.value().multiply(BigDecimal.valueOf(0.10)
+                                                        .setScale(2, RoundingMode.HALF_UP));
+        if(pointsAvailable.compareTo(minPointsRequired) < 0){
+            return null;
+        }
+
+        BigDecimal maxPointsToSpendLeavingMinimalAmountForCard = option.finalPrice().subtract(new BigDecimal("0.01"));
+        if(maxPointsToSpendLeavingMinimalAmountForCard.compareTo(BigDecimal.ZERO) < 0){
+            maxPointsToSpendLeavingMinimalAmountForCard = BigDecimal.ZERO;
+        }
+
+        BigDecimal actualPointsToSpend = pointsAvailable.min(maxPointsToSpendLeavingMinimalAmountForCard);
+        if(actualPointsToSpend.compareTo(minPointsRequired) < 0){
+            actualPointsToSpend = minPointsRequired;
+        }
+        return actualPointsToSpend;
+    }
+
+    private void saveLimits(int orderIndex) {
+        System.arraycopy(remainingLimits, 0, savedLimits, orderIndex * remainingLimits.length, remainingLimits.length);
+    }
+
+    private void restoreLimits(int orderIndex) {
+        System.arraycopy(savedLimits, orderIndex * remainingLimits.length, remainingLimits, 0, remainingLimits.length);
+    }
+
+    private void keepTrail() {
+        if(bestTrailSoFar == null){
+            bestTrailSoFar = trail.clone();
+        } else {
+            System.arraycopy(trail, 0, bestTrailSoFar, 0, trail.length);
+        }
+        recordImprovement();
+    }
+
+    private void recordImprovement() {
+        if(incumbentImprovements++ == 0){
+            timeToFirstSolutionNanos = System.nanoTime() - searchStartNanos;
+        }
+    }
+
+    // the same symmetry rules as CentsProblem.skipsFixedOption and skipsCard
+    private boolean skipsFixedOption(int orderIndex, int optionIndex) {
+        if(reduction == null){
+            return false;
+        }
+        if(reduction.sameAsPrevious(orderIndex)){
+            int previous = trail[orderIndex - 1];
+            if(previous % (methodIndex.cardCount() + 1) - 1 == NO_CARD && previous / (methodIndex.cardCount() + 1) > optionIndex){
+                return true;
+            }
+        }
+        int[] mirrors = reduction.mirroredBy(orderIndex, optionIndex);
+        if(mirrors.length == 0){
+            return false;
+        }
+        BigDecimal limit = remainingLimit(methodIndex.cardIndex(reduction.optionCardSlot(orderIndex, optionIndex)));
+        for(int mirror : mirrors){
+            if(remainingLimit(methodIndex.cardIndex(reduction.optionCardSlot(orderIndex, mirror))).compareTo(limit) == 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean skipsCard(int orderIndex, int cardSlot) {
+        if(reduction == null){
+            return false;
+        }
+        int cardClass = reduction.cardClassAfter(orderIndex, cardSlot);
+        BigDecimal limit = remainingLimit(methodIndex.cardIndex(cardSlot));
+        for(int earlier = 0; earlier < cardSlot; earlier++){
+            if(reduction.cardClassAfter(orderIndex, earlier) == cardClass
+                    && remainingLimit(methodIndex.cardIndex(earlier)).compareTo(limit) == 0){
+                return true;
+            }
+        }
+        return false;
+    }
 
-                currentPath.add(new AppliedPayment(
-                        currentOrder.id(),
-                        option.finalPrice(),
-                        option.paymentStrategyType(),
-                        actualSpentAmounts
-                ));
-
-                solveRecursively(orderIndex + 1,
-                        newLimits,
-                        currentAccumulatedDiscount.add(option.discountAmount()),
-                        currentPath);
-
-                currentPath.removeLast();
-            }
-        }
-    }
-
-    private List<Map<PaymentMethod, BigDecimal>> determineActualSpentAmountsAndFeasibility(
-            CalculatedPaymentOption option,
-            Order order,
-            Map<String, BigDecimal> currentLimits) {
-
-            List<Map<PaymentMethod, BigDecimal>> possibleCombinations = new ArrayList<>();
-
-            switch(option.paymentStrategyType()){
-                case FULL_CARD_WITH_PROMOTION:
-                case FULL_POINTS_OWN_DISCOUNT:
-                case FULL_PAYMENT_NO_PROMOTION:
-                    Map<PaymentMethod, BigDecimal> proposedSpentAmount = option.spent();
-                    boolean possible = true;
-                    for(Map.Entry<PaymentMethod, BigDecimal> entry : proposedSpentAmount.entrySet()){
-                        PaymentMethod paymentMethod = entry.getKey();
-                        BigDecimal amountNeeded = entry.getValue();
-                        if(currentLimits.getOrDefault(paymentMethod.getId(), BigDecimal.ZERO).compareTo(amountNeeded) < 0){
-                            possible = false;
-                            break;
-                        }
-                    }
-                    if(possible && !proposedSpentAmount.isEmpty()){
-                        possibleCombinations.add(new HashMap<>(proposedSpentAmount));
-                    }
-                    break;
-                case PARTIAL_POINTS_10_PERCENT_GLOBAL_DISCOUNT:
-                    BigDecimal finalPrice = option.finalPrice();
-                    BigDecimal minPointsRequired = order.value().multiply(BigDecimal.valueOf(0.10)
-                                                                    .setScale(2, RoundingMode.HALF_UP));
-                    BigDecimal pointsAvailable = currentLimits.getOrDefault(pointsPaymentMethodGlobalReference.getId(), BigDecimal.ZERO);
-
-                    if(pointsAvailable.compareTo(minPointsRequired) < 0){
-                        break;
-                    }
-
-                    BigDecimal maxPointsToSpendLeavingMinimalAmountForCard = finalPrice.subtract(new BigDecimal("0.01"));
-                    if(maxPointsToSpendLeavingMinimalAmountForCard.compareTo(BigDecimal.ZERO) < 0){
-                        maxPointsToSpendLeavingMinimalAmountForCard = BigDecimal.ZERO;
-                    }
-
-                    BigDecimal actualPointsToSpend = pointsAvailable.min(maxPointsToSpendLeavingMinimalAmountForCard);
-
-                    if(actualPointsToSpend.compareTo(minPointsRequired) < 0){
-                        actualPointsToSpend = minPointsRequired;
-                    }
-
-                    BigDecimal cardAmount = finalPrice.subtract(actualPointsToSpend);
-
-                    if(cardAmount.compareTo(BigDecimal.ZERO) <= 0){
-                        break;
-                    }
-
-                    for(PaymentMethod card : clientCardPaymentMethods){
-                        if(currentLimits.getOrDefault(card.getId(), BigDecimal.ZERO).compareTo(cardAmount) >= 0){
-                            Map<PaymentMethod, BigDecimal> currentRealization = new HashMap<>();
-                            currentRealization.put(pointsPaymentMethodGlobalReference, actualPointsToSpend);
-                            currentRealization.put(card, cardAmount);
-                            possibleCombinations.add(currentRealization);
-                        }
-                    }
-                    break;
-            }
-            return possibleCombinations;
-    }
-
-    private BigDecimal calculateTotalPointsSpentFromPath(List<AppliedPayment> path){
-        BigDecimal total = BigDecimal.ZERO;
-        if(path == null){
-            return total;
-        }
-        for(AppliedPayment payment : path){
-            BigDecimal pointsInPayment = payment.actualAmountSpent().getOrDefault(pointsPaymentMethodGlobalReference, BigDecimal.ZERO);
-            total = total.add(pointsInPayment);
-        }
-        return total;
+    private BigDecimal remainingLimit(int index) {
+        return index == PaymentMethodIndex.UNKNOWN ? BigDecimal.ZERO : remainingLimits[index];
     }
 }
@@ -0,0 +1,8 @@
+package org.example.domain;
+
+public enum SearchMode {
+    EXHAUSTIVE,
+    BRANCH_AND_BOUND,
+    // caches solved (order, remaining limits) states; long-cents only, the BigDecimal path searches exhaustively
+    MEMOIZED
+}
@@ -0,0 +1,43 @@
+package org.example.domain;
+
+/*
+ * Counters of the last search. feasibleBranches counts the payment realizations that passed the limit checks
+ * and were descended into; incumbentImprovements counts replacements of the best plan. The memo fields stay
+ * zero unless the memoized search or the dynamic program ran; memoMemoryBytes is the footprint of its table.
+ */
+public record SearchStatistics(long nodesVisited,
+                               long nodesPruned,
+                               long feasibleBranches,
+                               long incumbentImprovements,
+                               long memoLookups,
+                               long memoHits,
+                               long memoEvictions,
+                               long memoEntries,
+                               long memoMemoryBytes) {
+    public static final SearchStatistics EMPTY = new SearchStatistics(0, 0);
+
+    public SearchStatistics(long nodesVisited, long nodesPruned) {
+        this(nodesVisited, nodesPruned, 0, 0);
+    }
+
+    public SearchStatistics(long nodesVisited, long nodesPruned, long feasibleBranches, long incumbentImprovements) {
+        this(nodesVisited, nodesPruned, feasibleBranches, incumbentImprovements, 0, 0, 0, 0, 0);
+    }
+
+    // counters of two searches over disjoint parts of one problem
+    public SearchStatistics plus(SearchStatistics other) {
+        return new SearchStatistics(nodesVisited + other.nodesVisited,
+                nodesPruned + other.nodesPruned,
+                feasibleBranches + other.feasibleBranches,
+                incumbentImprovements + other.incumbentImprovements,
+                memoLookups + other.memoLookups,
+                memoHits + other.memoHits,
+                memoEvictions + other.memoEvictions,
+                memoEntries + other.memoEntries,
+                memoMemoryBytes + other.memoMemoryBytes);
+    }
+
+    public double memoHitRate() {
+        return memoLookups == 0 ? 0 : (double) memoHits / memoLookups;
+    }
+}
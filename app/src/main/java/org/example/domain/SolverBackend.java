@@ -0,0 +1,11 @@
+package org.example.domain;
+
+// how the long-cents path solves an instance; the plan returned is the same
+public enum SolverBackend {
+    // the depth-first search configured by SearchMode
+    SEARCH,
+    // tabulates every reachable budget once, see BudgetDynamicProgram; searches when the table would not fit
+    DYNAMIC_PROGRAMMING,
+    // the dynamic program when its table is small next to the search tree, the search otherwise
+    AUTO
+}
@@ -0,0 +1,248 @@
+package org.example.engine;
+
+import org.example.domain.AnytimeResult;
+import org.example.domain.AppliedPayment;
+import org.example.domain.OptimizerSettings;
+import org.example.domain.SearchStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/*
+ * Exact dynamic program over the remaining budgets, like a multi-dimensional knapsack. A state is an order index
+ * plus the remaining limit in cents of every contended method, i.e. every method whose limit is below what the
+ * basket could charge to it, capped like CentsProblem.canonicalLimits; the other methods never run short and
+ * take no dimension. With the cards rarely contended that leaves the points budget, so the table grows with the
+ * order count times the points limit instead of exponentially with the order count.
+ *
+ * Layers are filled from the last order back, each state once, trying branches in depth-first order and only
+ * replacing the best suffix with a strictly better one, so the plan is the one the search in file order returns.
+ * Only the decisions are kept per layer, four bytes a state. There are no intermediate plans: stopped by the
+ * deadline, it returns the greedy plan like a search stopped before its first leaf. Runs on the calling thread.
+ */
+final class BudgetDynamicProgram implements CentsSolver {
+    static final long NOT_TABULABLE = Long.MAX_VALUE;
+    private static final int NO_PLAN = Integer.MIN_VALUE;
+    // branch and bound rarely visits more than a small share of the full search tree
+    private static final long SEARCH_VISITS_ONE_IN = 1024;
+
+    private final CentsProblem problem;
+    private final OptimizerSettings settings;
+    private final int[] contendedMethods;
+
+    private SearchStatistics statistics = SearchStatistics.EMPTY;
+    private long timeToFirstSolutionNanos = -1;
+
+    BudgetDynamicProgram(CentsProblem problem, OptimizerSettings settings) {
+        if(tableStates(problem) == NOT_TABULABLE){
+            throw new IllegalArgumentException("Problem cannot be tabulated by budget");
+        }
+        this.problem = problem;
+        this.settings = settings;
+        this.contendedMethods = contendedMethods(problem);
+    }
+
+    static boolean fits(CentsProblem problem, OptimizerSettings settings) {
+        return tableStates(problem) <= settings.getDynamicProgrammingStates();
+    }
+
+    // the table fits and filling it takes far fewer steps than the search tree has leaves
+    static boolean preferred(CentsProblem problem, OptimizerSettings settings) {
+        if(!fits(problem, settings)){
+            return false;
+        }
+        long searchLeaves = 1;
+        long tableSteps = 0;
+        for(int orderIndex = 0; orderIndex < problem.orderCount(); orderIndex++){
+            long branches = Math.max(problem.branchCount(orderIndex), 1);
+            searchLeaves = searchLeaves > Long.MAX_VALUE / branches ? Long.MAX_VALUE : searchLeaves * branches;
+            tableSteps += layerStates(problem, contendedMethods(problem), orderIndex) * branches;
+        }
+        return tableSteps <= searchLeaves / SEARCH_VISITS_ONE_IN;
+    }
+
+    /*
+     * States over all layers, or NOT_TABULABLE when refunds (negative amounts) or negative limits make the capped
+     * budgets inexact, the search runs in another order, or the count overflows.
+     */
+    static long tableStates(CentsProblem problem) {
+        if(problem.hasNegativeAmounts || problem.isReordered()){
+            return NOT_TABULABLE;
+        }
+        int[] contended = contendedMethods(problem);
+        for(int method : contended){
+            if(problem.initialLimitsCents[method] < 0){
+                return NOT_TABULABLE;
+            }
+        }
+        long states = 0;
+        for(int depth = 0; depth <= problem.orderCount(); depth++){
+            long layer = layerStates(problem, contended, depth);
+            if(layer == NOT_TABULABLE || states > NOT_TABULABLE - layer){
+                return NOT_TABULABLE;
+            }
+            states += layer;
+        }
+        return states;
+    }
+
+    @Override
+    public AnytimeResult searchWithinBudget(List<AppliedPayment> warmStart) {
+        long startNanos = System.nanoTime();
+        timeToFirstSolutionNanos = -1;
+        SearchDeadline deadline = SearchDeadline.start(settings.getTimeBudget(), settings.getCancellationToken());
+        int orderCount = problem.orderCount();
+        int methodCount = problem.methodCount();
+        long[] limits = new long[methodCount];
+
+        int[][] decisions = new int[orderCount + 1][];
+        decisions[orderCount] = new int[]{0};
+        long[] nextDiscount = {0};
+        long[] nextPoints = {0};
+        long statesVisited = 0;
+        long feasibleBranches = 0;
+        long tableBytes = 0;
+        for(int orderIndex = orderCount - 1; orderIndex >= 0; orderIndex--){
+            int states = (int) layerStates(problem, contendedMethods, orderIndex);
+            int[] layerDecisions = new int[states];
+            long[] discounts = new long[states];
+            long[] points = new long[states];
+            tableBytes += 4L * states;
+            int[] next = decisions[orderIndex + 1];
+            CentsOption[] options = problem.options[orderIndex];
+            for(int state = 0; state < states; state++){
+                if(deadline.shouldStop(++statesVisited)){
+                    statistics = new SearchStatistics(statesVisited, 0, feasibleBranches, 0, 0, 0, 0, statesVisited, tableBytes);
+                    return stoppedResult(warmStart, startNanos);
+                }
+                decode(orderIndex, state, limits);
+                if(problem.orderValueCents[orderIndex] <= 0){
+                    int child = encode(orderIndex + 1, limits);
+                    layerDecisions[state] = next[child] == NO_PLAN ? NO_PLAN : CentsProblem.ZERO_VALUE_DECISION;
+                    discounts[state] = nextDiscount[child];
+                    points[state] = nextPoints[child];
+                    continue;
+                }
+                boolean feasible = false;
+                long bestDiscount = 0;
+                long bestPoints = 0;
+                int bestDecision = NO_PLAN;
+                for(int optionIndex = 0; optionIndex < options.length; optionIndex++){
+                    CentsOption option = options[optionIndex];
+                    for(int cardSlot = problem.firstCardSlot(option); cardSlot < problem.endCardSlot(option); cardSlot++){
+                        long pointsCharged = problem.charge(limits, orderIndex, option, cardSlot);
+                        if(pointsCharged == CentsProblem.INFEASIBLE){
+                            continue;
+                        }
+                        int decision = problem.encodeDecision(optionIndex, cardSlot);
+                        int child = encode(orderIndex + 1, limits);
+                        problem.refund(limits, orderIndex, decision, pointsCharged);
+                        feasibleBranches++;
+                        if(next[child] == NO_PLAN){
+                            continue;
+                        }
+                        long discount = option.discountCents + nextDiscount[child];
+                        long pointsSpent = pointsCharged + nextPoints[child];
+                        if(!feasible || discount > bestDiscount || (discount == bestDiscount && pointsSpent > bestPoints)){
+                            feasible = true;
+                            bestDiscount = discount;
+                            bestPoints = pointsSpent;
+                            bestDecision = decision;
+                        }
+                    }
+                }
+                layerDecisions[state] = bestDecision;
+                discounts[state] = bestDiscount;
+                points[state] = bestPoints;
+            }
+            decisions[orderIndex] = layerDecisions;
+            nextDiscount = discounts;
+            nextPoints = points;
+        }
+
+        long[] remaining = problem.initialLimitsCents.clone();
+        int start = encode(0, remaining);
+        boolean found = decisions[0][start] != NO_PLAN && nextDiscount[start] > LocalIncumbent.NO_PLAN_DISCOUNT_CENTS;
+        statistics = new SearchStatistics(statesVisited, 0, feasibleBranches, found ? 1 : 0, 0, 0, 0, statesVisited, tableBytes);
+        if(!found){
+            return new AnytimeResult(new ArrayList<>(), true, Cents.toBigDecimal(0), Cents.toBigDecimal(0));
+        }
+        int[] trail = new int[orderCount];
+        for(int orderIndex = 0; orderIndex < orderCount; orderIndex++){
+            trail[orderIndex] = decisions[orderIndex][encode(orderIndex, remaining)];
+            problem.applyDecision(remaining, orderIndex, trail[orderIndex]);
+        }
+        timeToFirstSolutionNanos = System.nanoTime() - startNanos;
+        return new AnytimeResult(problem.materialize(trail), true, Cents.toBigDecimal(nextDiscount[start]), Cents.toBigDecimal(nextDiscount[start]));
+    }
+
+    @Override
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    @Override
+    public long timeToFirstSolutionNanos() {
+        return timeToFirstSolutionNanos;
+    }
+
+    private AnytimeResult stoppedResult(List<AppliedPayment> warmStart, long startNanos) {
+        long upperBound = problem.maxRemainingDiscountCents[0];
+        GreedySeed seed = GreedySeed.build(problem, problem.decisionsOf(warmStart));
+        if(seed == null){
+            return new AnytimeResult(new ArrayList<>(), false, Cents.toBigDecimal(0), Cents.toBigDecimal(upperBound));
+        }
+        timeToFirstSolutionNanos = System.nanoTime() - startNanos;
+        return new AnytimeResult(problem.materialize(seed.trail), false, Cents.toBigDecimal(seed.discountCents),
+                Cents.toBigDecimal(Math.max(seed.discountCents, upperBound)));
+    }
+
+    // limits of the contended methods are read from the state, the others get everything the later orders can charge
+    private void decode(int depth, int state, long[] limits) {
+        int methodCount = problem.methodCount();
+        for(int m = 0; m < methodCount; m++){
+            limits[m] = problem.maxRemainingChargeCents[depth * methodCount + m];
+        }
+        long rest = state;
+        for(int method : contendedMethods){
+            long radix = budgetRange(problem, method, depth);
+            limits[method] = rest % radix;
+            rest /= radix;
+        }
+    }
+
+    private int encode(int depth, long[] limits) {
+        long state = 0;
+        long stride = 1;
+        for(int method : contendedMethods){
+            long radix = budgetRange(problem, method, depth);
+            state += Math.min(limits[method], radix - 1) * stride;
+            stride *= radix;
+        }
+        return (int) state;
+    }
+
+    private static int[] contendedMethods(CentsProblem problem) {
+        return IntStream.range(0, problem.methodCount())
+                .filter(m -> problem.initialLimitsCents[m] < problem.maxRemainingChargeCents[m])
+                .toArray();
+    }
+
+    // distinct capped budgets of one method at a depth
+    private static long budgetRange(CentsProblem problem, int method, int depth) {
+        return Math.min(problem.initialLimitsCents[method], problem.maxRemainingChargeCents[depth * problem.methodCount() + method]) + 1;
+    }
+
+    private static long layerStates(CentsProblem problem, int[] contended, int depth) {
+        long states = 1;
+        for(int method : contended){
+            long range = budgetRange(problem, method, depth);
+            if(states > Integer.MAX_VALUE / range){
+                return NOT_TABULABLE;
+            }
+            states *= range;
+        }
+        return states;
+    }
+}
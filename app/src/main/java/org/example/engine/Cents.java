@@ -0,0 +1,16 @@
+package org.example.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public final class Cents {
+    private Cents() {}
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
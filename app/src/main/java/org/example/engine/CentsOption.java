@@ -0,0 +1,43 @@
+package org.example.engine;
+
+import org.example.domain.CalculatedPaymentOption;
+import org.example.domain.PaymentStrategyType;
+
+final class CentsOption {
+    final CalculatedPaymentOption source;
+    final PaymentStrategyType strategyType;
+    final long discountCents;
+    final long finalPriceCents;
+    final long pointsUpperBoundCents;
+
+    // FULL_* strategies: fixed amounts per method index
+    final int[] methodIndices;
+    final long[] amountsCents;
+    final long tieBreakPointsCents;
+
+    // PARTIAL_POINTS_10_PERCENT_GLOBAL_DISCOUNT: points are chosen against the remaining limit
+    final long maxPointsCents;
+
+    CentsOption(CalculatedPaymentOption source,
+                long discountCents,
+                long finalPriceCents,
+                long pointsUpperBoundCents,
+                int[] methodIndices,
+                long[] amountsCents,
+                long tieBreakPointsCents,
+                long maxPointsCents) {
+        this.source = source;
+        this.strategyType = source.paymentStrategyType();
+        this.discountCents = discountCents;
+        this.finalPriceCents = finalPriceCents;
+        this.pointsUpperBoundCents = pointsUpperBoundCents;
+        this.methodIndices = methodIndices;
+        this.amountsCents = amountsCents;
+        this.tieBreakPointsCents = tieBreakPointsCents;
+        this.maxPointsCents = maxPointsCents;
+    }
+
+    boolean isPartialPoints() {
+        return strategyType == PaymentStrategyType.PARTIAL_POINTS_10_PERCENT_GLOBAL_DISCOUNT;
+    }
+}
@@ -0,0 +1,540 @@
+package org.example.engine;
+
+import org.example.domain.AppliedPayment;
+import org.example.domain.CalculatedPaymentOption;
+import org.example.domain.OptionOrdering;
+import org.example.domain.Order;
+import org.example.domain.OrderOrdering;
+import org.example.domain.PaymentMethod;
+import org.example.domain.PaymentStrategyType;
+import org.example.logic.PaymentOptionTable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/*
+ * The option table and limits of one solve converted to long cents.
+ * Instances that cannot be represented exactly (amounts finer than a cent, magnitudes close to overflow,
+ * options spending on methods the optimizer does not know) are rejected so the caller can stay on BigDecimal.
+ */
+public final class CentsProblem {
+    private static final long MAX_TOTAL_MAGNITUDE = Long.MAX_VALUE / 16;
+    static final int ZERO_VALUE_DECISION = -1;
+    static final int NO_CARD = -1;
+    static final long INFEASIBLE = -1;
+    static final int NO_HINT = -2;
+
+    final Order[] orders;
+    final long[] orderValueCents;
+    final CentsOption[][] options;
+    final long[] initialLimitsCents;
+    final int pointsIndex;
+    final PaymentMethod pointsMethod;
+    final int[] cardMethodIndices;
+    final PaymentMethod[] cards;
+    // the order decided at each depth of the search, and per order the option indices in the order they are tried
+    final int[] searchSequence;
+    final int[][] optionSequence;
+    // bounds over the orders from a depth of the search sequence on
+    final long[] maxRemainingDiscountCents;
+    final long[] maxRemainingPointsCents;
+    // [depth * methodCount + method]: most the orders from that depth on can charge to that method
+    final long[] maxRemainingChargeCents;
+    final boolean hasNegativeAmounts;
+    // symmetry rules of the reduction the options came from, null when they were not reduced
+    final OptionReduction reduction;
+
+    private CentsProblem(Order[] orders,
+                         long[] orderValueCents,
+                         CentsOption[][] options,
+                         long[] initialLimitsCents,
+                         int pointsIndex,
+                         PaymentMethod pointsMethod,
+                         int[] cardMethodIndices,
+                         PaymentMethod[] cards,
+                         OptionReduction reduction,
+                         int[] searchSequence,
+                         int[][] optionSequence) {
+        this.orders = orders;
+        this.reduction = reduction;
+        this.searchSequence = searchSequence;
+        this.optionSequence = optionSequence;
+        this.orderValueCents = orderValueCents;
+        this.options = options;
+        this.initialLimitsCents = initialLimitsCents;
+        this.pointsIndex = pointsIndex;
+        this.pointsMethod = pointsMethod;
+        this.cardMethodIndices = cardMethodIndices;
+        this.cards = cards;
+
+        int orderCount = orders.length;
+        this.maxRemainingDiscountCents = new long[orderCount + 1];
+        this.maxRemainingPointsCents = new long[orderCount + 1];
+        for(int i = orderCount - 1; i >= 0; i--){
+            long bestDiscount = 0;
+            long mostPoints = 0;
+            for(CentsOption option : options[searchSequence[i]]){
+                bestDiscount = Math.max(bestDiscount, option.discountCents);
+                mostPoints = Math.max(mostPoints, option.pointsUpperBoundCents);
+            }
+            maxRemainingDiscountCents[i] = maxRemainingDiscountCents[i + 1] + bestDiscount;
+            maxRemainingPointsCents[i] = maxRemainingPointsCents[i + 1] + mostPoints;
+        }
+
+        int methodCount = initialLimitsCents.length;
+        this.maxRemainingChargeCents = new long[(orderCount + 1) * methodCount];
+        boolean negativeAmounts = false;
+        long[] orderCharge = new long[methodCount];
+        for(int i = orderCount - 1; i >= 0; i--){
+            Arrays.fill(orderCharge, 0);
+            for(CentsOption option : options[searchSequence[i]]){
+                if(option.isPartialPoints()){
+                    orderCharge[pointsIndex] = Math.max(orderCharge[pointsIndex], option.maxPointsCents);
+                    for(int cardIndex : cardMethodIndices){
+                        orderCharge[cardIndex] = Math.max(orderCharge[cardIndex], option.finalPriceCents);
+                    }
+                    negativeAmounts |= option.finalPriceCents < 0;
+                    continue;
+                }
+                long[] optionCharge = new long[methodCount];
+                for(int k = 0; k < option.methodIndices.length; k++){
+                    optionCharge[option.methodIndices[k]] += option.amountsCents[k];
+                    negativeAmounts |= option.amountsCents[k] < 0;
+                }
+                for(int m = 0; m < methodCount; m++){
+                    orderCharge[m] = Math.max(orderCharge[m], optionCharge[m]);
+                }
+            }
+            for(int m = 0; m < methodCount; m++){
+                maxRemainingChargeCents[i * methodCount + m] = maxRemainingChargeCents[(i + 1) * methodCount + m] + orderCharge[m];
+            }
+        }
+        this.hasNegativeAmounts = negativeAmounts;
+    }
+
+    public static Optional<CentsProblem> from(PaymentOptionTable optionTable, PaymentMethodIndex methodIndex) {
+        return from(optionTable, methodIndex, null);
+    }
+
+    // the reduced options, searched with the reduction's symmetry rules
+    public static Optional<CentsProblem> from(OptionReduction reduction, PaymentMethodIndex methodIndex) {
+        return from(reduction.table(), methodIndex, reduction);
+    }
+
+    private static Optional<CentsProblem> from(PaymentOptionTable optionTable, PaymentMethodIndex methodIndex, OptionReduction reduction) {
+        try{
+            return Optional.ofNullable(convert(optionTable, methodIndex, reduction));
+        } catch (ArithmeticException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static CentsProblem convert(PaymentOptionTable optionTable, PaymentMethodIndex methodIndex, OptionReduction reduction) {
+        long[] initialLimits = new long[methodIndex.size()];
+        long magnitude = 0;
+        for(int i = 0; i < methodIndex.size(); i++){
+            initialLimits[i] = Cents.toCents(methodIndex.method(i).getMethodLimit());
+            magnitude = Math.addExact(magnitude, Math.abs(initialLimits[i]));
+        }
+
+        PaymentMethod pointsMethod = methodIndex.pointsMethod();
+        int pointsIndex = methodIndex.pointsIndex();
+        int[] cardIndices = new int[methodIndex.cardCount()];
+        PaymentMethod[] cards = new PaymentMethod[methodIndex.cardCount()];
+        for(int i = 0; i < cardIndices.length; i++){
+            cardIndices[i] = methodIndex.cardIndex(i);
+            cards[i] = methodIndex.card(i);
+        }
+
+        int orderCount = optionTable.size();
+        Order[] orders = new Order[orderCount];
+        long[] orderValues = new long[orderCount];
+        CentsOption[][] options = new CentsOption[orderCount][];
+        for(int i = 0; i < orderCount; i++){
+            orders[i] = optionTable.order(i);
+            orderValues[i] = Cents.toCents(orders[i].value());
+            magnitude = Math.addExact(magnitude, Math.abs(orderValues[i]));
+
+            List<CalculatedPaymentOption> sourceOptions = optionTable.options(i);
+            options[i] = new CentsOption[sourceOptions.size()];
+            for(int k = 0; k < sourceOptions.size(); k++){
+                CentsOption option = convertOption(sourceOptions.get(k), orderValues[i], methodIndex, pointsMethod);
+                if(option == null){
+                    return null;
+                }
+                magnitude = Math.addExact(magnitude, Math.abs(option.discountCents));
+                magnitude = Math.addExact(magnitude, Math.abs(option.finalPriceCents));
+                options[i][k] = option;
+            }
+        }
+        if(magnitude > MAX_TOTAL_MAGNITUDE){
+            return null;
+        }
+
+        int[][] optionSequence = new int[orderCount][];
+        for(int i = 0; i < orderCount; i++){
+            optionSequence[i] = identity(options[i].length);
+        }
+        return new CentsProblem(orders, orderValues, options, initialLimits, pointsIndex, pointsMethod, cardIndices, cards,
+                reduction, identity(orderCount), optionSequence);
+    }
+
+    private static CentsOption convertOption(CalculatedPaymentOption option,
+                                             long orderValueCents,
+                                             PaymentMethodIndex methodIndex,
+                                             PaymentMethod pointsMethod) {
+        long finalPrice = Cents.toCents(option.finalPrice());
+        long discount = orderValueCents - finalPrice;
+        boolean partialPoints = option.paymentStrategyType() == PaymentStrategyType.PARTIAL_POINTS_10_PERCENT_GLOBAL_DISCOUNT;
+        long pointsUpperBound = partialPoints || option.spent().keySet().stream().anyMatch(PaymentMethod::isPoints)
+                ? Math.max(finalPrice, 0)
+                : 0;
+
+        if(partialPoints){
+            if(pointsMethod == null){
+                return null;
+            }
+            long maxPoints = Math.max(finalPrice - 1, 0);
+            // The BigDecimal path falls back to an unrounded 10% of the order value here; keep that case on BigDecimal.
+            if(Math.multiplyExact(maxPoints, 10) < orderValueCents){
+                return null;
+            }
+            return new CentsOption(option, discount, finalPrice, pointsUpperBound, null, null, 0, maxPoints);
+        }
+
+        Map<PaymentMethod, BigDecimal> spent = option.spent();
+        int[] methodIndices = new int[spent.size()];
+        long[] amounts = new long[spent.size()];
+        int slot = 0;
+        for(Map.Entry<PaymentMethod, BigDecimal> entry : spent.entrySet()){
+            int index = methodIndex.indexOf(entry.getKey().getId());
+            if(index == PaymentMethodIndex.UNKNOWN){
+                return null;
+            }
+            methodIndices[slot] = index;
+            amounts[slot] = Cents.toCents(entry.getValue());
+            slot++;
+        }
+        BigDecimal tieBreakPoints = spent.get(pointsMethod);
+        return new CentsOption(option, discount, finalPrice, pointsUpperBound, methodIndices, amounts,
+                tieBreakPoints == null ? 0 : Cents.toCents(tieBreakPoints), 0);
+    }
+
+    public int orderCount() {
+        return orders.length;
+    }
+
+    /*
+     * The same problem searched in another order. Options are tried in the given order, and the orders are
+     * decided in the given order as long as that cannot change what a plan spends: the remainder of a
+     * partial-points payment depends on the points left by the orders before it, so orders are only moved
+     * when no such payment can run short of points. Trails keep their order and option indices, so a full tie
+     * is still settled by the plan the search in file order would keep, see isReordered. Moving orders gives
+     * up the reduction's symmetry rules, which are only sound for the file order; MemoizedSearch always
+     * searches in file order.
+     */
+    public CentsProblem ordered(OrderOrdering orderOrdering, OptionOrdering optionOrdering) {
+        int[] sequence = searchSequence;
+        if(orderOrdering != OrderOrdering.AS_GIVEN && spendsTheSameInAnyOrder()){
+            sequence = sortedOrders(orderOrdering);
+        }
+        int[][] optionSequence = this.optionSequence;
+        if(optionOrdering != OptionOrdering.AS_GENERATED){
+            optionSequence = new int[orders.length][];
+            for(int i = 0; i < orders.length; i++){
+                optionSequence[i] = sortedOptions(i, optionOrdering);
+            }
+        }
+        if(Arrays.equals(sequence, searchSequence) && Arrays.deepEquals(optionSequence, this.optionSequence)){
+            return this;
+        }
+        boolean ordersMoved = !Arrays.equals(sequence, identity(orders.length));
+        return new CentsProblem(orders, orderValueCents, options, initialLimitsCents, pointsIndex, pointsMethod,
+                cardMethodIndices, cards, ordersMoved ? null : reduction, sequence, optionSequence);
+    }
+
+    /*
+     * Leaves of a reordered search do not arrive in the lexicographic order of their trails, so the search
+     * has to settle full ties by comparing trails and cannot prune subtrees that can at best tie.
+     */
+    boolean isReordered() {
+        if(!Arrays.equals(searchSequence, identity(orders.length))){
+            return true;
+        }
+        for(int i = 0; i < orders.length; i++){
+            if(!Arrays.equals(optionSequence[i], identity(options[i].length))){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // every partial-points payment gets its full points share whatever was decided before it
+    private boolean spendsTheSameInAnyOrder() {
+        if(hasNegativeAmounts){
+            return false;
+        }
+        if(pointsIndex < 0){
+            return true;
+        }
+        boolean partialPoints = Arrays.stream(options).flatMap(Arrays::stream).anyMatch(CentsOption::isPartialPoints);
+        return !partialPoints || initialLimitsCents[pointsIndex] >= maxRemainingChargeCents[pointsIndex];
+    }
+
+    private int[] sortedOrders(OrderOrdering orderOrdering) {
+        Comparator<Integer> byValue = Comparator.comparingLong(i -> -orderValueCents[i]);
+        Comparator<Integer> comparator = switch(orderOrdering){
+            case AS_GIVEN -> Comparator.comparingInt(i -> i);
+            case HIGHEST_VALUE -> byValue;
+            case MOST_CONSTRAINED -> Comparator.<Integer>comparingLong(this::branchCount).thenComparing(byValue);
+        };
+        return IntStream.range(0, orders.length).boxed().sorted(comparator).mapToInt(Integer::intValue).toArray();
+    }
+
+    long branchCount(int orderIndex) {
+        if(orderValueCents[orderIndex] <= 0){
+            return 1;
+        }
+        long branches = 0;
+        for(CentsOption option : options[orderIndex]){
+            branches += option.isPartialPoints() ? cards.length : 1;
+        }
+        return branches;
+    }
+
+    private int[] sortedOptions(int orderIndex, OptionOrdering optionOrdering) {
+        CentsOption[] orderOptions = options[orderIndex];
+        Comparator<Integer> byDiscount = Comparator.comparingLong(k -> -orderOptions[k].discountCents);
+        Comparator<Integer> comparator = switch(optionOrdering){
+            case AS_GENERATED -> Comparator.comparingInt(k -> k);
+            case HIGHEST_DISCOUNT -> byDiscount;
+            case POINTS_FIRST -> Comparator.<Integer>comparingLong(k -> -orderOptions[k].pointsUpperBoundCents).thenComparing(byDiscount);
+        };
+        return IntStream.range(0, orderOptions.length).boxed().sorted(comparator).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] identity(int length) {
+        return IntStream.range(0, length).toArray();
+    }
+
+    /*
+     * Decisions are encoded so that comparing two trails lexicographically follows the order in which
+     * the depth-first search visits them: options first, then the card carrying the remainder.
+     */
+    int encodeDecision(int optionIndex, int cardSlot) {
+        return optionIndex * (cards.length + 1) + cardSlot + 1;
+    }
+
+    /*
+     * The branch each order took in an earlier plan, matched by order ID, strategy and the methods paid with,
+     * or NO_HINT where the plan has no payment for the order or no branch here pays the same way.
+     */
+    int[] decisionsOf(List<AppliedPayment> plan) {
+        Map<String, AppliedPayment> payments = new HashMap<>();
+        for(AppliedPayment payment : plan){
+            payments.putIfAbsent(payment.orderId(), payment);
+        }
+        int[] decisions = new int[orders.length];
+        Arrays.fill(decisions, NO_HINT);
+        for(int orderIndex = 0; orderIndex < orders.length; orderIndex++){
+            AppliedPayment payment = payments.get(orders[orderIndex].id());
+            if(payment == null || orderValueCents[orderIndex] <= 0){
+                continue;
+            }
+            Set<String> methodIds = new HashSet<>();
+            payment.actualAmountSpent().keySet().forEach(method -> methodIds.add(method.getId()));
+            for(int optionIndex = 0; optionIndex < options[orderIndex].length && decisions[orderIndex] == NO_HINT; optionIndex++){
+                CentsOption option = options[orderIndex][optionIndex];
+                if(option.strategyType != payment.strategyType()){
+                    continue;
+                }
+                if(!option.isPartialPoints()){
+                    Set<String> optionMethodIds = new HashSet<>();
+                    option.source.spent().keySet().forEach(method -> optionMethodIds.add(method.getId()));
+                    if(optionMethodIds.equals(methodIds)){
+                        decisions[orderIndex] = encodeDecision(optionIndex, NO_CARD);
+                    }
+                    continue;
+                }
+                for(int cardSlot = 0; cardSlot < cards.length; cardSlot++){
+                    if(methodIds.equals(Set.of(pointsMethod.getId(), cards[cardSlot].getId()))){
+                        decisions[orderIndex] = encodeDecision(optionIndex, cardSlot);
+                    }
+                }
+            }
+        }
+        return decisions;
+    }
+
+    int methodCount() {
+        return initialLimitsCents.length;
+    }
+
+    /*
+     * A remaining limit at least as large as everything the later orders could charge to it behaves exactly
+     * like any larger limit, so states are keyed by the limits capped at that demand. Only valid while no
+     * option refunds a method (negative amounts).
+     */
+    void canonicalLimits(int orderIndex, long[] limits, long[] key) {
+        int methodCount = limits.length;
+        int offset = orderIndex * methodCount;
+        for(int m = 0; m < methodCount; m++){
+            key[m] = hasNegativeAmounts ? limits[m] : Math.min(limits[m], maxRemainingChargeCents[offset + m]);
+        }
+    }
+
+    /*
+     * The reduction's symmetry rules, see OptionReduction: a fixed option is skipped when an earlier option
+     * charges the same to an interchangeable card with the same remaining limit, or when the identical previous
+     * order was paid with a later fixed option; a card for the partial-points remainder is skipped when an
+     * earlier interchangeable card has the same remaining limit.
+     */
+    boolean skipsFixedOption(long[] limits, int[] trail, int orderIndex, int optionIndex) {
+        if(reduction == null){
+            return false;
+        }
+        if(reduction.sameAsPrevious(orderIndex)){
+            int previous = trail[orderIndex - 1];
+            if(previous % (cards.length + 1) - 1 == NO_CARD && previous / (cards.length + 1) > optionIndex){
+                return true;
+            }
+        }
+        int[] mirrors = reduction.mirroredBy(orderIndex, optionIndex);
+        if(mirrors.length == 0){
+            return false;
+        }
+        long limit = limits[cardMethodIndices[reduction.optionCardSlot(orderIndex, optionIndex)]];
+        for(int mirror : mirrors){
+            if(limits[cardMethodIndices[reduction.optionCardSlot(orderIndex, mirror)]] == limit){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean skipsCard(long[] limits, int orderIndex, int cardSlot) {
+        if(reduction == null){
+            return false;
+        }
+        int cardClass = reduction.cardClassAfter(orderIndex, cardSlot);
+        long limit = limits[cardMethodIndices[cardSlot]];
+        for(int earlier = 0; earlier < cardSlot; earlier++){
+            if(reduction.cardClassAfter(orderIndex, earlier) == cardClass && limits[cardMethodIndices[earlier]] == limit){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int firstCardSlot(CentsOption option) {
+        return option.isPartialPoints() ? 0 : NO_CARD;
+    }
+
+    int endCardSlot(CentsOption option) {
+        return option.isPartialPoints() ? cards.length : NO_CARD + 1;
+    }
+
+    /*
+     * Charges one branch to the limits if it fits and returns the points it counts towards the tie-break,
+     * or INFEASIBLE without touching the limits. The same feasibility rules as SearchWorker.
+     */
+    long charge(long[] limits, int orderIndex, CentsOption option, int cardSlot) {
+        if(cardSlot == NO_CARD){
+            int[] methodIndices = option.methodIndices;
+            if(methodIndices.length == 0){
+                return INFEASIBLE;
+            }
+            for(int i = 0; i < methodIndices.length; i++){
+                if(limits[methodIndices[i]] < option.amountsCents[i]){
+                    return INFEASIBLE;
+                }
+            }
+            for(int i = 0; i < methodIndices.length; i++){
+                limits[methodIndices[i]] -= option.amountsCents[i];
+            }
+            return option.tieBreakPointsCents;
+        }
+
+        long pointsAvailable = limits[pointsIndex];
+        if(pointsAvailable * 10 < orderValueCents[orderIndex]){
+            return INFEASIBLE;
+        }
+        long pointsToSpend = Math.min(pointsAvailable, option.maxPointsCents);
+        long cardAmount = option.finalPriceCents - pointsToSpend;
+        int cardIndex = cardMethodIndices[cardSlot];
+        if(cardAmount <= 0 || limits[cardIndex] < cardAmount){
+            return INFEASIBLE;
+        }
+        limits[pointsIndex] -= pointsToSpend;
+        limits[cardIndex] -= cardAmount;
+        return pointsToSpend;
+    }
+
+    void refund(long[] limits, int orderIndex, int decision, long pointsCharged) {
+        CentsOption option = options[orderIndex][decision / (cards.length + 1)];
+        int cardSlot = decision % (cards.length + 1) - 1;
+        if(cardSlot == NO_CARD){
+            for(int i = 0; i < option.methodIndices.length; i++){
+                limits[option.methodIndices[i]] += option.amountsCents[i];
+            }
+        } else {
+            limits[pointsIndex] += pointsCharged;
+            limits[cardMethodIndices[cardSlot]] += option.finalPriceCents - pointsCharged;
+        }
+    }
+
+    void applyDecision(long[] limits, int orderIndex, int decision) {
+        if(decision == ZERO_VALUE_DECISION){
+            return;
+        }
+        CentsOption option = options[orderIndex][decision / (cards.length + 1)];
+        int cardSlot = decision % (cards.length + 1) - 1;
+        if(cardSlot == NO_CARD){
+            for(int i = 0; i < option.methodIndices.length; i++){
+                limits[option.methodIndices[i]] -= option.amountsCents[i];
+            }
+        } else {
+            long pointsToSpend = Math.min(limits[pointsIndex], option.maxPointsCents);
+            limits[pointsIndex] -= pointsToSpend;
+            limits[cardMethodIndices[cardSlot]] -= option.finalPriceCents - pointsToSpend;
+        }
+    }
+
+    List<AppliedPayment> materialize(int[] trail) {
+        long[] limits = initialLimitsCents.clone();
+        List<AppliedPayment> plan = new ArrayList<>(trail.length);
+        for(int orderIndex = 0; orderIndex < trail.length; orderIndex++){
+            String orderId = orders[orderIndex].id();
+            if(trail[orderIndex] == ZERO_VALUE_DECISION){
+                plan.add(new AppliedPayment(orderId, BigDecimal.ZERO, PaymentStrategyType.FULL_PAYMENT_NO_PROMOTION, Collections.emptyMap()));
+                continue;
+            }
+
+            CentsOption option = options[orderIndex][trail[orderIndex] / (cards.length + 1)];
+            int cardSlot = trail[orderIndex] % (cards.length + 1) - 1;
+            Map<PaymentMethod, BigDecimal> actualSpent;
+            if(cardSlot == NO_CARD){
+                actualSpent = new HashMap<>(option.source.spent());
+            } else {
+                long pointsToSpend = Math.min(limits[pointsIndex], option.maxPointsCents);
+                long cardAmount = option.finalPriceCents - pointsToSpend;
+                actualSpent = new HashMap<>();
+                actualSpent.put(pointsMethod, Cents.toBigDecimal(pointsToSpend));
+                actualSpent.put(cards[cardSlot], Cents.toBigDecimal(cardAmount));
+            }
+            plan.add(new AppliedPayment(orderId, option.source.finalPrice(), option.strategyType, actualSpent));
+            applyDecision(limits, orderIndex, trail[orderIndex]);
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,188 @@
+package org.example.engine;
+
+import org.example.domain.AnytimeResult;
+import org.example.domain.AppliedPayment;
+import org.example.domain.OptimizerSettings;
+import org.example.domain.SearchMode;
+import org.example.domain.SearchStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Same search as PaymentOptimizer's BigDecimal path, including the order in which options and cards are
+ * tried, so ties resolve to the same plan. Amounts stay in long cents until the winning plan is materialized.
+ * With parallelism above one the first orders of the tree are split into fork/join tasks that share
+ * one lock-free incumbent; the result is the same plan the sequential search returns. They run on the settings'
+ * pool, which any number of solves may share, or on a pool of their own.
+ * MEMOIZED solves each distinct (order, remaining limits) state once instead, see MemoizedSearch.
+ * With a time budget or a cancellation token the search is seeded with a greedy plan and may stop early;
+ * a warm start seeds it with an earlier plan, completed greedily where that no longer fits.
+ * The settings' order and option orderings change the order in which the depth-first search visits the tree,
+ * not the plan it returns, see CentsProblem.ordered. With a relaxation depth, branch and bound also prunes the
+ * upper levels of the tree with LP bounds, see LinearRelaxation; the root's caps the bound of a stopped search.
+ */
+public final class CentsSearchEngine implements CentsSolver {
+    private static final int TASKS_PER_THREAD = 16;
+
+    private final CentsProblem problem;
+    private final OptimizerSettings settings;
+
+    private SearchStatistics statistics = SearchStatistics.EMPTY;
+    private long timeToFirstSolutionNanos = -1;
+    private long timeToBestSolutionNanos = -1;
+
+    public CentsSearchEngine(CentsProblem problem, SearchMode searchMode) {
+        this(problem, OptimizerSettings.builder().searchMode(searchMode).build());
+    }
+
+    /*
+     * splitDepth is the number of leading orders whose branches become separate tasks; 0 picks one from the
+     * branching factor so that every thread gets a handful of tasks to steal.
+     */
+    public CentsSearchEngine(CentsProblem problem, SearchMode searchMode, int parallelism, int splitDepth) {
+        this(problem, OptimizerSettings.builder()
+                .searchMode(searchMode)
+                .parallelism(parallelism)
+                .parallelSplitDepth(splitDepth)
+                .build());
+    }
+
+    public CentsSearchEngine(CentsProblem problem, OptimizerSettings settings) {
+        if(settings.getParallelism() < 1){
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + settings.getParallelism());
+        }
+        if(settings.getMemoTableEntries() < 1){
+            throw new IllegalArgumentException("Memo table needs at least one entry: " + settings.getMemoTableEntries());
+        }
+        this.problem = problem;
+        this.settings = settings;
+    }
+
+    public List<AppliedPayment> search() {
+        return searchWithinBudget().plan();
+    }
+
+    /*
+     * The memoized search has no intermediate plans and always runs to completion.
+     */
+    public AnytimeResult searchWithinBudget() {
+        return searchWithinBudget(List.of());
+    }
+
+    // warmStart: an earlier plan to seed the incumbent with, see PaymentOptimizer.findPaymentPlanWithinBudget
+    @Override
+    public AnytimeResult searchWithinBudget(List<AppliedPayment> warmStart) {
+        long startNanos = System.nanoTime();
+        timeToFirstSolutionNanos = -1;
+        timeToBestSolutionNanos = -1;
+        if(settings.getSearchMode() == SearchMode.MEMOIZED){
+            MemoizedSearch memoizedSearch = new MemoizedSearch(problem, settings.getMemoTableEntries());
+            int[] bestTrail = memoizedSearch.search();
+            statistics = memoizedSearch.statistics();
+            if(bestTrail != null){
+                timeToFirstSolutionNanos = System.nanoTime() - startNanos;
+                timeToBestSolutionNanos = timeToFirstSolutionNanos;
+            }
+            long discount = bestTrail == null ? 0 : memoizedSearch.bestDiscountCents();
+            return result(bestTrail, discount, true, discount);
+        }
+
+        boolean pruning = settings.getSearchMode() == SearchMode.BRANCH_AND_BOUND;
+        CentsProblem searched = problem.ordered(settings.getOrderOrdering(), settings.getOptionOrdering());
+        SearchDeadline deadline = SearchDeadline.start(settings.getTimeBudget(), settings.getCancellationToken());
+        SearchCounters counters = new SearchCounters();
+        long[] limits = problem.initialLimitsCents.clone();
+        int[] trail = new int[problem.orderCount()];
+        LinearRelaxation relaxation = pruning && settings.getRelaxationDepth() > 0
+                ? LinearRelaxation.of(searched, Math.min(settings.getRelaxationDepth(), searched.orderCount()))
+                : null;
+
+        Incumbent incumbent;
+        if(deadline.isActive() || !warmStart.isEmpty()){
+            // the seed is not in depth-first position, so full ties must be settled by trail order
+            incumbent = new SharedIncumbent();
+            GreedySeed seed = GreedySeed.build(problem, problem.decisionsOf(warmStart));
+            if(seed != null){
+                incumbent.offer(seed.discountCents, seed.pointsCents, seed.trail);
+            }
+        } else if(searched.isReordered()){
+            // neither are the leaves of a reordered search
+            incumbent = new SharedIncumbent();
+        } else if(settings.getParallelism() == 1){
+            incumbent = new LocalIncumbent();
+        } else {
+            incumbent = new SharedIncumbent();
+        }
+
+        if(settings.getParallelism() == 1){
+            new SearchWorker(searched, pruning, incumbent, limits, trail, 0, counters, deadline, relaxation).run(0, 0, 0);
+        } else {
+            SearchTask root = new SearchTask(searched, pruning, incumbent, limits, trail,
+                    effectiveSplitDepth(searched), counters, deadline, relaxation, 0, 0, 0);
+            if(settings.getForkJoinPool() != null){
+                settings.getForkJoinPool().invoke(root);
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(settings.getParallelism());
+                try{
+                    pool.invoke(root);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+
+        statistics = counters.snapshot(incumbent.improvements());
+        if(incumbent.firstImprovementNanos() != 0){
+            timeToFirstSolutionNanos = incumbent.firstImprovementNanos() - startNanos;
+            timeToBestSolutionNanos = incumbent.lastImprovementNanos() - startNanos;
+        }
+        int[] bestTrail = incumbent.bestTrail();
+        long discount = bestTrail == null ? 0 : incumbent.bestDiscountCents();
+        if(!deadline.stopped()){
+            return result(bestTrail, discount, true, discount);
+        }
+        long upperBound = deadline.abandonedBound();
+        if(relaxation != null){
+            upperBound = Math.min(upperBound, relaxation.rootBoundCents());
+        }
+        upperBound = Math.max(discount, upperBound);
+        return result(bestTrail, discount, false, upperBound);
+    }
+
+    @Override
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    @Override
+    public long timeToFirstSolutionNanos() {
+        return timeToFirstSolutionNanos;
+    }
+
+    // from the start of the last search to finding the plan it returned, -1 if it found none
+    public long timeToBestSolutionNanos() {
+        return timeToBestSolutionNanos;
+    }
+
+    private AnytimeResult result(int[] bestTrail, long discountCents, boolean complete, long upperBoundCents) {
+        List<AppliedPayment> plan = bestTrail == null ? new ArrayList<>() : problem.materialize(bestTrail);
+        return new AnytimeResult(plan, complete, Cents.toBigDecimal(discountCents), Cents.toBigDecimal(upperBoundCents));
+    }
+
+    private int effectiveSplitDepth(CentsProblem searched) {
+        int splitDepth = settings.getParallelSplitDepth();
+        if(splitDepth > 0){
+            return Math.min(splitDepth, searched.orderCount());
+        }
+        long wantedTasks = (long) settings.getParallelism() * TASKS_PER_THREAD;
+        long tasks = 1;
+        int depth = 0;
+        while(depth < searched.orderCount() && tasks < wantedTasks){
+            tasks *= Math.max(searched.options[searched.searchSequence[depth]].length, 1);
+            depth++;
+        }
+        return depth;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.engine;
+
+import org.example.domain.AnytimeResult;
+import org.example.domain.AppliedPayment;
+import org.example.domain.OptimizerSettings;
+import org.example.domain.SearchStatistics;
+
+import java.util.List;
+
+/*
+ * A backend that solves one CentsProblem exactly. Every backend returns the plan the depth-first search in file
+ * order returns, ties included, so the settings' SolverBackend only changes how long a solve takes.
+ */
+public interface CentsSolver {
+    // warmStart: an earlier plan a backend may start from, see PaymentOptimizer.findPaymentPlanWithinBudget
+    AnytimeResult searchWithinBudget(List<AppliedPayment> warmStart);
+
+    SearchStatistics statistics();
+
+    // from the start of the last solve to its first complete plan, -1 if it found none
+    long timeToFirstSolutionNanos();
+
+    static CentsSolver select(CentsProblem problem, OptimizerSettings settings) {
+        return switch(settings.getSolverBackend()){
+            case SEARCH -> new CentsSearchEngine(problem, settings);
+            case DYNAMIC_PROGRAMMING -> BudgetDynamicProgram.fits(problem, settings)
+                    ? new BudgetDynamicProgram(problem, settings)
+                    : new CentsSearchEngine(problem, settings);
+            case AUTO -> BudgetDynamicProgram.preferred(problem, settings)
+                    ? new BudgetDynamicProgram(problem, settings)
+                    : new CentsSearchEngine(problem, settings);
+        };
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.engine;
+
+/*
+ * Small dense tableau simplex for max c.x subject to A.x <= b, x >= 0 with b >= 0, so that the slack basis is
+ * a feasible start. After the first solve only the right-hand side changes: resolve keeps the optimal basis,
+ * which stays dual feasible, and restores primal feasibility with dual simplex pivots, usually only a few.
+ * The objective row holds the reduced costs c_B.B^-1.A - c, its slack part the dual values y = c_B.B^-1.
+ * Solves give up after a fixed number of pivots; callers only rely on the duals being non-negative.
+ */
+final class DenseSimplex {
+    private static final double EPSILON = 1e-9;
+    private static final int PIVOTS_PER_ROW_AND_COLUMN = 8;
+
+    private final int rows;
+    private final int columns;
+    private final int width;
+    // rows x (columns structural, rows slack, right-hand side)
+    private final double[][] tableau;
+    private final double[] objective;
+    private final double[] rhs;
+    private final int maxPivots;
+
+    private DenseSimplex(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.width = columns + rows + 1;
+        this.tableau = new double[rows][width];
+        this.objective = new double[width];
+        this.rhs = new double[rows];
+        this.maxPivots = PIVOTS_PER_ROW_AND_COLUMN * (rows + columns);
+    }
+
+    // a[row][column]; the tableau starts from the slack basis and is pivoted to an optimum
+    static DenseSimplex solve(double[][] a, double[] b, double[] c) {
+        DenseSimplex simplex = new DenseSimplex(b.length, c.length);
+        for(int row = 0; row < simplex.rows; row++){
+            if(b[row] < 0){
+                throw new IllegalArgumentException("Right-hand side must not be negative: " + b[row]);
+            }
+            System.arraycopy(a[row], 0, simplex.tableau[row], 0, simplex.columns);
+            simplex.tableau[row][simplex.columns + row] = 1;
+            simplex.tableau[row][simplex.width - 1] = b[row];
+        }
+        for(int column = 0; column < simplex.columns; column++){
+            simplex.objective[column] = -c[column];
+        }
+        simplex.primalPivots();
+        return simplex;
+    }
+
+    DenseSimplex emptyCopy() {
+        return new DenseSimplex(rows, columns);
+    }
+
+    void copyInto(DenseSimplex target) {
+        for(int row = 0; row < rows; row++){
+            System.arraycopy(tableau[row], 0, target.tableau[row], 0, width);
+        }
+        System.arraycopy(objective, 0, target.objective, 0, width);
+    }
+
+    // re-optimizes for another right-hand side, starting from the current basis
+    void resolve(double[] b) {
+        for(int row = 0; row < rows; row++){
+            double value = 0;
+            double[] line = tableau[row];
+            for(int r = 0; r < rows; r++){
+                value += line[columns + r] * b[r];
+            }
+            rhs[row] = value;
+        }
+        for(int row = 0; row < rows; row++){
+            tableau[row][width - 1] = rhs[row];
+        }
+        dualPivots();
+    }
+
+    // y_r, clamped at zero so that they stay a valid dual whatever the rounding
+    void duals(double[] target) {
+        for(int row = 0; row < rows; row++){
+            target[row] = Math.max(objective[columns + row], 0);
+        }
+    }
+
+    private void primalPivots() {
+        for(int pivots = 0; pivots < maxPivots; pivots++){
+            int entering = -1;
+            double mostNegative = -EPSILON;
+            for(int column = 0; column < width - 1; column++){
+                if(objective[column] < mostNegative){
+                    mostNegative = objective[column];
+                    entering = column;
+                }
+            }
+            if(entering < 0){
+                return;
+            }
+            int leaving = -1;
+            double bestRatio = Double.POSITIVE_INFINITY;
+            for(int row = 0; row < rows; row++){
+                double coefficient = tableau[row][entering];
+                if(coefficient > EPSILON){
+                    double ratio = tableau[row][width - 1] / coefficient;
+                    if(ratio < bestRatio){
+                        bestRatio = ratio;
+                        leaving = row;
+                    }
+                }
+            }
+            if(leaving < 0){
+                return;
+            }
+            pivot(leaving, entering);
+        }
+    }
+
+    private void dualPivots() {
+        for(int pivots = 0; pivots < maxPivots; pivots++){
+            int leaving = -1;
+            double mostNegative = -EPSILON;
+            for(int row = 0; row < rows; row++){
+                if(tableau[row][width - 1] < mostNegative){
+                    mostNegative = tableau[row][width - 1];
+                    leaving = row;
+                }
+            }
+            if(leaving < 0){
+                return;
+            }
+            int entering = -1;
+            double bestRatio = Double.POSITIVE_INFINITY;
+            double[] line = tableau[leaving];
+            for(int column = 0; column < width - 1; column++){
+                if(line[column] < -EPSILON){
+                    double ratio = Math.max(objective[column], 0) / -line[column];
+                    if(ratio < bestRatio){
+                        bestRatio = ratio;
+                        entering = column;
+                    }
+                }
+            }
+            if(entering < 0){
+                return;
+            }
+            pivot(leaving, entering);
+        }
+    }
+
+    private void pivot(int pivotRow, int pivotColumn) {
+        double[] line = tableau[pivotRow];
+        double inverse = 1 / line[pivotColumn];
+        for(int column = 0; column < width; column++){
+            line[column] *= inverse;
+        }
+        line[pivotColumn] = 1;
+        for(int row = 0; row < rows; row++){
+            if(row != pivotRow){
+                eliminate(tableau[row], line, pivotColumn);
+            }
+        }
+        eliminate(objective, line, pivotColumn);
+    }
+
+    private void eliminate(double[] target, double[] line, int pivotColumn) {
+        double factor = target[pivotColumn];
+        if(factor == 0){
+            return;
+        }
+        for(int column = 0; column < width; column++){
+            target[column] -= factor * line[column];
+        }
+        target[pivotColumn] = 0;
+    }
+}
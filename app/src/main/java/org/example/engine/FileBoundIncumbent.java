@@ -0,0 +1,129 @@
+package org.example.engine;
+
+import org.example.io.AtomicFiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Incumbent of one shard of a ShardedSearch: the shard's own best plan, kept like SharedIncumbent, plus the best
+ * discount and points any worker has published to the bound file. The published bound only prunes subtrees that
+ * cannot reach a full tie with it, so every shard still finds its tied plans and the merge settles them by trail.
+ * The file is read again every so often while pruning and rewritten whenever this shard beats it. Two workers
+ * may race and leave the worse of two bounds behind, which costs pruning but never the plan. One thread only.
+ */
+final class FileBoundIncumbent implements Incumbent {
+    private static final long CHECKS_BETWEEN_READS = 4096;
+    private static final long NANOS_BETWEEN_READS = 100_000_000;
+
+    private final SharedIncumbent shard = new SharedIncumbent();
+    private final Path boundFile;
+    private long boundDiscountCents = LocalIncumbent.NO_PLAN_DISCOUNT_CENTS;
+    private long boundPointsCents = Long.MIN_VALUE;
+    private long checks;
+    private long lastReadNanos;
+
+    FileBoundIncumbent(Path boundFile) {
+        this.boundFile = boundFile;
+        readBound();
+    }
+
+    @Override
+    public boolean cannotBeat(long optimisticDiscountCents, long optimisticPointsCents) {
+        if(shard.cannotBeat(optimisticDiscountCents, optimisticPointsCents)){
+            return true;
+        }
+        if(++checks % CHECKS_BETWEEN_READS == 0 && System.nanoTime() - lastReadNanos >= NANOS_BETWEEN_READS){
+            readBound();
+        }
+        return isBelowBound(optimisticDiscountCents, optimisticPointsCents);
+    }
+
+    @Override
+    public void offer(long discountCents, long pointsCents, int[] trail) {
+        shard.offer(discountCents, pointsCents, trail);
+        if(discountCents > boundDiscountCents || (discountCents == boundDiscountCents && pointsCents > boundPointsCents)){
+            readBound();
+            if(discountCents > boundDiscountCents || (discountCents == boundDiscountCents && pointsCents > boundPointsCents)){
+                boundDiscountCents = discountCents;
+                boundPointsCents = pointsCents;
+                publish(boundFile, discountCents, pointsCents);
+            }
+        }
+    }
+
+    @Override
+    public int[] bestTrail() {
+        return shard.bestTrail();
+    }
+
+    @Override
+    public long bestDiscountCents() {
+        return shard.bestDiscountCents();
+    }
+
+    @Override
+    public long bestPointsCents() {
+        return shard.bestPointsCents();
+    }
+
+    @Override
+    public long improvements() {
+        return shard.improvements();
+    }
+
+    @Override
+    public long firstImprovementNanos() {
+        return shard.firstImprovementNanos();
+    }
+
+    @Override
+    public long lastImprovementNanos() {
+        return shard.lastImprovementNanos();
+    }
+
+    /*
+     * Writes "<discount cents> <points cents>" through AtomicFiles, so readers only ever see a whole bound. The
+     * bound only speeds up the other workers, so write errors are not passed on.
+     */
+    static void publish(Path boundFile, long discountCents, long pointsCents) {
+        try{
+            AtomicFiles.write(boundFile, temporary -> Files.writeString(temporary, discountCents + " " + pointsCents + "\n", StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // the workers keep pruning with their own bounds
+        }
+    }
+
+    private boolean isBelowBound(long discountCents, long pointsCents) {
+        if(discountCents != boundDiscountCents){
+            return discountCents < boundDiscountCents;
+        }
+        return pointsCents < boundPointsCents;
+    }
+
+    // only ever raises the bound; a missing or unreadable file leaves it as it is
+    private void readBound() {
+        lastReadNanos = System.nanoTime();
+        String[] fields;
+        try{
+            fields = Files.readString(boundFile, StandardCharsets.UTF_8).trim().split(" ");
+        } catch (IOException e) {
+            return;
+        }
+        if(fields.length != 2){
+            return;
+        }
+        try{
+            long discountCents = Long.parseLong(fields[0]);
+            long pointsCents = Long.parseLong(fields[1]);
+            if(discountCents > boundDiscountCents || (discountCents == boundDiscountCents && pointsCents > boundPointsCents)){
+                boundDiscountCents = discountCents;
+                boundPointsCents = pointsCents;
+            }
+        } catch (NumberFormatException e) {
+            // written by something else; ignore it
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.engine;
+
+import java.util.Arrays;
+
+/*
+ * Quick first plan for an anytime search: order by order, take the branch with the largest discount that
+ * still fits the remaining limits. Among equal discounts the first one the search would try wins.
+ * A hinted decision, e.g. from an earlier plan, is taken instead whenever it still fits.
+ */
+final class GreedySeed {
+    final int[] trail;
+    final long discountCents;
+    final long pointsCents;
+
+    private GreedySeed(int[] trail, long discountCents, long pointsCents) {
+        this.trail = trail;
+        this.discountCents = discountCents;
+        this.pointsCents = pointsCents;
+    }
+
+    // null when some order has no branch left that fits
+    static GreedySeed build(CentsProblem problem) {
+        int[] noHints = new int[problem.orderCount()];
+        Arrays.fill(noHints, CentsProblem.NO_HINT);
+        return build(problem, noHints);
+    }
+
+    static GreedySeed build(CentsProblem problem, int[] hints) {
+        long[] limits = problem.initialLimitsCents.clone();
+        int[] trail = new int[problem.orderCount()];
+        long totalDiscount = 0;
+        long totalPoints = 0;
+
+        for(int orderIndex = 0; orderIndex < trail.length; orderIndex++){
+            if(problem.orderValueCents[orderIndex] <= 0){
+                trail[orderIndex] = CentsProblem.ZERO_VALUE_DECISION;
+                continue;
+            }
+            int bestDecision = CentsProblem.ZERO_VALUE_DECISION;
+            long bestDiscount = Long.MIN_VALUE;
+            long bestPoints = 0;
+            CentsOption[] options = problem.options[orderIndex];
+            int hint = hints[orderIndex];
+            boolean hintFits = false;
+            if(hint != CentsProblem.NO_HINT){
+                CentsOption option = options[hint / (problem.cards.length + 1)];
+                long points = problem.charge(limits, orderIndex, option, hint % (problem.cards.length + 1) - 1);
+                if(points != CentsProblem.INFEASIBLE){
+                    problem.refund(limits, orderIndex, hint, points);
+                    bestDecision = hint;
+                    bestDiscount = option.discountCents;
+                    bestPoints = points;
+                    hintFits = true;
+                }
+            }
+            for(int optionIndex = 0; !hintFits && optionIndex < options.length; optionIndex++){
+                CentsOption option = options[optionIndex];
+                if(option.discountCents <= bestDiscount){
+                    continue;
+                }
+                for(int cardSlot = problem.firstCardSlot(option); cardSlot < problem.endCardSlot(option); cardSlot++){
+                    long points = problem.charge(limits, orderIndex, option, cardSlot);
+                    if(points == CentsProblem.INFEASIBLE){
+                        continue;
+                    }
+                    int decision = problem.encodeDecision(optionIndex, cardSlot);
+                    problem.refund(limits, orderIndex, decision, points);
+                    bestDecision = decision;
+                    bestDiscount = option.discountCents;
+                    bestPoints = points;
+                    break;
+                }
+            }
+            if(bestDecision == CentsProblem.ZERO_VALUE_DECISION){
+                return null;
+            }
+            problem.applyDecision(limits, orderIndex, bestDecision);
+            trail[orderIndex] = bestDecision;
+            totalDiscount += bestDiscount;
+            totalPoints += bestPoints;
+        }
+        return new GreedySeed(trail, totalDiscount, totalPoints);
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.engine;
+
+import org.example.domain.AnytimeResult;
+import org.example.domain.AppliedPayment;
+import org.example.domain.CalculatedPaymentOption;
+import org.example.domain.OptimizerSettings;
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.domain.PaymentOptimizer;
+import org.example.domain.SearchStatistics;
+import org.example.logic.DiscountCalculator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * One basket that is edited and re-solved again and again, e.g. at checkout. Options are calculated once per
+ * order and kept until that order or the payment methods change, and every solve starts from the previous plan
+ * as its incumbent, so a small edit usually re-solves in a fraction of the first solve. Each solve returns the
+ * plan a full solve of orders() against paymentMethods() returns. Not thread-safe: one instance per basket.
+ */
+public final class IncrementalOptimizer {
+    private final OptimizerSettings settings;
+    private final List<Order> orders = new ArrayList<>();
+
+    private PreparedPaymentMethods paymentMethods;
+    private OptionCache optionCache;
+    private List<AppliedPayment> previousPlan = List.of();
+    private SearchStatistics lastSearchStatistics = SearchStatistics.EMPTY;
+
+    public IncrementalOptimizer(OptimizerSettings settings, PreparedPaymentMethods paymentMethods, List<Order> basket) {
+        if(settings.getParallelism() < 1){
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + settings.getParallelism());
+        }
+        this.settings = settings;
+        this.paymentMethods = paymentMethods;
+        this.optionCache = new OptionCache(paymentMethods);
+        for(Order order : basket){
+            addOrder(order.id(), order.value(), promotionIds(order));
+        }
+    }
+
+    public List<Order> orders() {
+        return List.copyOf(orders);
+    }
+
+    public PreparedPaymentMethods paymentMethods() {
+        return paymentMethods;
+    }
+
+    // promotions resolve against paymentMethods() like PreparedPaymentMethods.order
+    public void addOrder(String orderId, BigDecimal value, List<String> promotionIds) {
+        if(indexOf(orderId) >= 0){
+            throw new IllegalArgumentException("Basket already contains order " + orderId);
+        }
+        orders.add(paymentMethods.order(orderId, value, promotionIds));
+    }
+
+    public void removeOrder(String orderId) {
+        optionCache.forget(orders.remove(existingIndexOf(orderId)));
+    }
+
+    public void changeOrderValue(String orderId, BigDecimal value) {
+        int orderIndex = existingIndexOf(orderId);
+        Order order = orders.get(orderIndex);
+        optionCache.forget(order);
+        orders.set(orderIndex, paymentMethods.order(orderId, value, promotionIds(order)));
+    }
+
+    /*
+     * Every option names the PaymentMethod instances it pays with, so the methods are replaced, the orders
+     * rebound to them and all options calculated again; the previous plan still seeds the next solve.
+     */
+    public void changeLimit(String methodId, BigDecimal limit) {
+        PaymentMethod method = paymentMethods.method(methodId);
+        if(method == null){
+            throw new IllegalArgumentException("Unknown payment method " + methodId);
+        }
+        Map<String, PaymentMethod> methods = new LinkedHashMap<>(paymentMethods.paymentMethods());
+        methods.put(methodId, new PaymentMethod(methodId, method.getDiscountPercentage(), limit));
+        paymentMethods = PreparedPaymentMethods.of(methods);
+        optionCache = new OptionCache(paymentMethods);
+        orders.replaceAll(order -> paymentMethods.order(order.id(), order.value(), promotionIds(order)));
+    }
+
+    public List<AppliedPayment> findOptimalPaymentPlan() {
+        return solve().plan();
+    }
+
+    public AnytimeResult solve() {
+        PaymentOptimizer optimizer = new PaymentOptimizer(List.copyOf(orders), optionCache, paymentMethods.methodIndex(), settings);
+        AnytimeResult result = optimizer.findPaymentPlanWithinBudget(previousPlan);
+        lastSearchStatistics = optimizer.getLastSearchStatistics();
+        if(!result.plan().isEmpty()){
+            previousPlan = result.plan();
+        }
+        return result;
+    }
+
+    public SearchStatistics getLastSearchStatistics() {
+        return lastSearchStatistics;
+    }
+
+    private int indexOf(String orderId) {
+        for(int i = 0; i < orders.size(); i++){
+            if(orders.get(i).id().equals(orderId)){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int existingIndexOf(String orderId) {
+        int orderIndex = indexOf(orderId);
+        if(orderIndex < 0){
+            throw new IllegalArgumentException("Basket has no order " + orderId);
+        }
+        return orderIndex;
+    }
+
+    private static List<String> promotionIds(Order order) {
+        return order.applicablePromotions().stream().map(PaymentMethod::getId).toList();
+    }
+
+    // PaymentOptionTable builds large baskets in parallel, hence the concurrent map
+    private static final class OptionCache extends DiscountCalculator {
+        private final Map<Order, List<CalculatedPaymentOption>> options = new ConcurrentHashMap<>();
+
+        OptionCache(PreparedPaymentMethods paymentMethods) {
+            super(paymentMethods.methodIndex().pointsMethod(), PreparedPaymentMethods.cards(paymentMethods.paymentMethods()));
+        }
+
+        @Override
+        public List<CalculatedPaymentOption> calculateOptionsForOrder(Order order) {
+            return options.computeIfAbsent(order, key -> List.copyOf(super.calculateOptionsForOrder(key)));
+        }
+
+        void forget(Order order) {
+            options.remove(order);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.engine;
+
+/*
+ * The best plan found so far, ranked by discount and then by points spent.
+ */
+interface Incumbent {
+    boolean cannotBeat(long optimisticDiscountCents, long optimisticPointsCents);
+
+    void offer(long discountCents, long pointsCents, int[] trail);
+
+    int[] bestTrail();
+
+    long bestDiscountCents();
+
+    long bestPointsCents();
+
+    long improvements();
+
+    // System.nanoTime() of the first accepted plan, 0 while there is none
+    long firstImprovementNanos();
+
+    // System.nanoTime() of the plan that is best so far, 0 while there is none
+    long lastImprovementNanos();
+}
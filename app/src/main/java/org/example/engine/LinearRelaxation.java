@@ -0,0 +1,248 @@
+package org.example.engine;
+
+/*
+ * LP relaxation of a CentsProblem: every branch of an order is a column x in [0, 1], an order takes at most one
+ * branch in total, and every limit that can run short caps what the chosen branches charge to it. A
+ * partial-points branch charges at least 10% of the order value to the points and a cent to its card, and
+ * exactly its final price to the two together, so each card also gets a row for points plus card. Unlike the
+ * per-order best discount this bound sees that the orders share their limits.
+ *
+ * A node fixes its decided orders to zero and lowers the limit rows to what is left, i.e. only the right-hand
+ * side changes, so the relaxation is re-solved from the basis of the nearest ancestor with a few dual simplex
+ * pivots. The bound is not read from the tableau but from its duals y: b.y plus, for every open column, how much
+ * its discount exceeds y.A. That is an upper bound for any y >= 0, so rounding in the simplex can only loosen it.
+ */
+final class LinearRelaxation {
+    private static final double ROUNDING_MARGIN = 1e-9;
+
+    private final CentsProblem problem;
+    private final int nodeDepth;
+    private final int[] orderRow;
+    private final int[] methodRow;
+    private final int[] combinedRow;
+    // per order its columns, each with its discount and its coefficients over all rows
+    private final int[][] orderColumns;
+    private final double[] discounts;
+    private final double[][] coefficients;
+    // depth of the search sequence at which each order is decided
+    private final int[] decidedAt;
+    private final int rowCount;
+    private final DenseSimplex root;
+    private final long rootBoundCents;
+
+    private LinearRelaxation(CentsProblem problem,
+                             int nodeDepth,
+                             int[] orderRow,
+                             int[] methodRow,
+                             int[] combinedRow,
+                             int[][] orderColumns,
+                             double[] discounts,
+                             double[][] coefficients,
+                             int rowCount) {
+        this.problem = problem;
+        this.nodeDepth = nodeDepth;
+        this.orderRow = orderRow;
+        this.methodRow = methodRow;
+        this.combinedRow = combinedRow;
+        this.orderColumns = orderColumns;
+        this.discounts = discounts;
+        this.coefficients = coefficients;
+        this.rowCount = rowCount;
+        this.decidedAt = new int[problem.orderCount()];
+        for(int depth = 0; depth < problem.orderCount(); depth++){
+            decidedAt[problem.searchSequence[depth]] = depth;
+        }
+
+        double[][] a = new double[rowCount][discounts.length];
+        for(int column = 0; column < discounts.length; column++){
+            for(int row = 0; row < rowCount; row++){
+                a[row][column] = coefficients[column][row];
+            }
+        }
+        double[] b = rightHandSide(0, problem.initialLimitsCents);
+        this.root = DenseSimplex.solve(a, b, discounts);
+        this.rootBoundCents = bound(root, 0, b);
+    }
+
+    /*
+     * Null when the relaxation cannot be tighter than the per-order bound, because no limit can run short,
+     * or cannot be built, because options refund a method or a limit starts out negative.
+     */
+    static LinearRelaxation of(CentsProblem problem, int nodeDepth) {
+        if(problem.hasNegativeAmounts){
+            return null;
+        }
+        int methodCount = problem.methodCount();
+        int orderCount = problem.orderCount();
+        int rowCount = 0;
+        int[] orderRow = new int[orderCount];
+        for(int orderIndex = 0; orderIndex < orderCount; orderIndex++){
+            orderRow[orderIndex] = problem.orderValueCents[orderIndex] > 0 ? rowCount++ : -1;
+        }
+        int orderRows = rowCount;
+
+        int[] methodRow = new int[methodCount];
+        for(int m = 0; m < methodCount; m++){
+            boolean contended = problem.initialLimitsCents[m] < problem.maxRemainingChargeCents[m];
+            if(contended && problem.initialLimitsCents[m] < 0){
+                return null;
+            }
+            methodRow[m] = contended ? rowCount++ : -1;
+        }
+        int[] combinedRow = new int[problem.cards.length];
+        for(int cardSlot = 0; cardSlot < combinedRow.length; cardSlot++){
+            int cardIndex = problem.cardMethodIndices[cardSlot];
+            boolean shared = problem.pointsIndex >= 0 && (methodRow[problem.pointsIndex] >= 0 || methodRow[cardIndex] >= 0);
+            combinedRow[cardSlot] = shared ? rowCount++ : -1;
+        }
+        if(rowCount == orderRows){
+            return null;
+        }
+
+        int columnCount = 0;
+        int[][] orderColumns = new int[orderCount][];
+        for(int orderIndex = 0; orderIndex < orderCount; orderIndex++){
+            int branches = orderRow[orderIndex] < 0 ? 0 : (int) problem.branchCount(orderIndex);
+            orderColumns[orderIndex] = new int[branches];
+            for(int k = 0; k < branches; k++){
+                orderColumns[orderIndex][k] = columnCount++;
+            }
+        }
+        double[] discounts = new double[columnCount];
+        double[][] coefficients = new double[columnCount][rowCount];
+        for(int orderIndex = 0; orderIndex < orderCount; orderIndex++){
+            int next = 0;
+            if(orderRow[orderIndex] < 0){
+                continue;
+            }
+            long minPoints = (problem.orderValueCents[orderIndex] + 9) / 10;
+            for(CentsOption option : problem.options[orderIndex]){
+                if(option.isPartialPoints()){
+                    for(int cardSlot = 0; cardSlot < problem.cards.length; cardSlot++){
+                        int column = orderColumns[orderIndex][next++];
+                        double[] line = coefficients[column];
+                        discounts[column] = option.discountCents;
+                        line[orderRow[orderIndex]] = 1;
+                        add(line, methodRow[problem.pointsIndex], minPoints);
+                        add(line, methodRow[problem.cardMethodIndices[cardSlot]], 1);
+                        for(int slot = 0; slot < problem.cards.length; slot++){
+                            add(line, combinedRow[slot], slot == cardSlot ? option.finalPriceCents : minPoints);
+                        }
+                    }
+                    continue;
+                }
+                int column = orderColumns[orderIndex][next++];
+                double[] line = coefficients[column];
+                discounts[column] = option.discountCents;
+                line[orderRow[orderIndex]] = 1;
+                for(int k = 0; k < option.methodIndices.length; k++){
+                    int method = option.methodIndices[k];
+                    add(line, methodRow[method], option.amountsCents[k]);
+                    for(int slot = 0; slot < problem.cards.length; slot++){
+                        if(method == problem.pointsIndex || method == problem.cardMethodIndices[slot]){
+                            add(line, combinedRow[slot], option.amountsCents[k]);
+                        }
+                    }
+                }
+            }
+        }
+        return new LinearRelaxation(problem, nodeDepth, orderRow, methodRow, combinedRow, orderColumns,
+                discounts, coefficients, rowCount);
+    }
+
+    // nodes above this depth of the search sequence are bounded by the relaxation
+    int nodeDepth() {
+        return nodeDepth;
+    }
+
+    // most discount the whole problem can give
+    long rootBoundCents() {
+        return rootBoundCents;
+    }
+
+    Workspace newWorkspace() {
+        return new Workspace();
+    }
+
+    /*
+     * Most discount the orders from this depth on can add with the given limits left. Re-solves from the
+     * tableau the workspace kept for the parent depth when it has one, from the root's otherwise.
+     */
+    long remainingBoundCents(Workspace workspace, int depth, long[] limits) {
+        DenseSimplex source = depth > 0 && workspace.solvedDepth >= depth - 1 ? workspace.tableau(depth - 1) : root;
+        DenseSimplex target = workspace.tableau(depth);
+        source.copyInto(target);
+        double[] b = rightHandSide(depth, limits);
+        target.resolve(b);
+        workspace.solvedDepth = depth;
+        return bound(target, depth, b);
+    }
+
+    private long bound(DenseSimplex simplex, int depth, double[] b) {
+        double[] y = new double[rowCount];
+        simplex.duals(y);
+        double bound = 0;
+        double magnitude = 0;
+        for(int row = 0; row < rowCount; row++){
+            bound += b[row] * y[row];
+            magnitude += Math.abs(b[row] * y[row]);
+        }
+        for(int orderIndex = 0; orderIndex < orderColumns.length; orderIndex++){
+            if(decidedAt[orderIndex] < depth){
+                continue;
+            }
+            for(int column : orderColumns[orderIndex]){
+                double priced = 0;
+                double[] line = coefficients[column];
+                for(int row = 0; row < rowCount; row++){
+                    priced += line[row] * y[row];
+                }
+                double excess = discounts[column] - priced;
+                if(excess > 0){
+                    bound += excess;
+                    magnitude += Math.abs(discounts[column]) + Math.abs(priced);
+                }
+            }
+        }
+        return (long) Math.floor(bound + ROUNDING_MARGIN * (1 + magnitude));
+    }
+
+    private double[] rightHandSide(int depth, long[] limits) {
+        double[] b = new double[rowCount];
+        for(int orderIndex = 0; orderIndex < orderRow.length; orderIndex++){
+            if(orderRow[orderIndex] >= 0){
+                b[orderRow[orderIndex]] = decidedAt[orderIndex] < depth ? 0 : 1;
+            }
+        }
+        for(int m = 0; m < methodRow.length; m++){
+            if(methodRow[m] >= 0){
+                b[methodRow[m]] = limits[m];
+            }
+        }
+        for(int cardSlot = 0; cardSlot < combinedRow.length; cardSlot++){
+            if(combinedRow[cardSlot] >= 0){
+                b[combinedRow[cardSlot]] = limits[problem.pointsIndex] + limits[problem.cardMethodIndices[cardSlot]];
+            }
+        }
+        return b;
+    }
+
+    private static void add(double[] line, int row, long amount) {
+        if(row >= 0){
+            line[row] += amount;
+        }
+    }
+
+    // per search worker: one tableau per depth, so that a node starts from its parent's basis
+    final class Workspace {
+        private final DenseSimplex[] tableaux = new DenseSimplex[nodeDepth];
+        private int solvedDepth = -1;
+
+        private DenseSimplex tableau(int depth) {
+            if(tableaux[depth] == null){
+                tableaux[depth] = root.emptyCopy();
+            }
+            return tableaux[depth];
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.engine;
+
+/*
+ * Single-threaded incumbent. Leaves arrive in depth-first order, so a tie on both discount and points
+ * never replaces the incumbent and subtrees that can at best tie are pruned.
+ */
+final class LocalIncumbent implements Incumbent {
+    // PaymentOptimizer starts its incumbent at a discount of -1.00
+    static final long NO_PLAN_DISCOUNT_CENTS = -100;
+
+    private long bestDiscountCents = NO_PLAN_DISCOUNT_CENTS;
+    private long bestPointsCents = Long.MAX_VALUE;
+    private int[] bestTrail;
+    private long improvements;
+    private long firstImprovementNanos;
+    private long lastImprovementNanos;
+
+    @Override
+    public boolean cannotBeat(long optimisticDiscountCents, long optimisticPointsCents) {
+        if(optimisticDiscountCents != bestDiscountCents){
+            return optimisticDiscountCents < bestDiscountCents;
+        }
+        return optimisticPointsCents <= bestPointsCents;
+    }
+
+    @Override
+    public void offer(long discountCents, long pointsCents, int[] trail) {
+        if(discountCents > bestDiscountCents
+                || (discountCents == bestDiscountCents && pointsCents > bestPointsCents)){
+            bestDiscountCents = discountCents;
+            bestPointsCents = pointsCents;
+            bestTrail = trail.clone();
+            lastImprovementNanos = System.nanoTime();
+            if(improvements++ == 0){
+                firstImprovementNanos = lastImprovementNanos;
+            }
+        }
+    }
+
+    @Override
+    public int[] bestTrail() {
+        return bestTrail;
+    }
+
+    @Override
+    public long bestDiscountCents() {
+        return bestDiscountCents;
+    }
+
+    @Override
+    public long bestPointsCents() {
+        return bestPointsCents;
+    }
+
+    @Override
+    public long improvements() {
+        return improvements;
+    }
+
+    @Override
+    public long firstImprovementNanos() {
+        return firstImprovementNanos;
+    }
+
+    @Override
+    public long lastImprovementNanos() {
+        return lastImprovementNanos;
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.engine;
+
+import org.example.domain.SearchStatistics;
+
+/*
+ * Exact search that solves every state (order index, remaining limits) once and caches the best suffix
+ * it can still add. Children are compared in depth-first order and only a strictly better suffix replaces
+ * the current one, so the reconstructed plan is the one the plain search returns.
+ */
+final class MemoizedSearch {
+    private static final int LEAF_DECISION = Integer.MIN_VALUE;
+
+    private final CentsProblem problem;
+    private final TranspositionTable table;
+    private final long[] remainingLimits;
+    private final long[][] keys;
+    private long nodesVisited;
+    private long feasibleBranches;
+    private long bestDiscountCents;
+
+    // result of the last solveState call
+    private boolean resultFeasible;
+    private long resultDiscount;
+    private long resultPoints;
+    private int resultDecision;
+
+    MemoizedSearch(CentsProblem problem, int tableEntries) {
+        this.problem = problem;
+        this.table = new TranspositionTable(tableEntries, problem.methodCount());
+        this.remainingLimits = problem.initialLimitsCents.clone();
+        this.keys = new long[problem.orderCount() + 1][problem.methodCount()];
+    }
+
+    int[] search() {
+        solveState(0);
+        if(!resultFeasible || resultDiscount <= LocalIncumbent.NO_PLAN_DISCOUNT_CENTS){
+            return null;
+        }
+        bestDiscountCents = resultDiscount;
+
+        int[] trail = new int[problem.orderCount()];
+        for(int orderIndex = 0; orderIndex < trail.length; orderIndex++){
+            solveState(orderIndex);
+            trail[orderIndex] = resultDecision;
+            problem.applyDecision(remainingLimits, orderIndex, resultDecision);
+        }
+        return trail;
+    }
+
+    long bestDiscountCents() {
+        return bestDiscountCents;
+    }
+
+    SearchStatistics statistics() {
+        return new SearchStatistics(nodesVisited, 0, feasibleBranches, 0, table.lookups(), table.hits(), table.evictions(),
+                table.size(), table.memoryBytes());
+    }
+
+    private void solveState(int orderIndex) {
+        nodesVisited++;
+        if(orderIndex == problem.orderCount()){
+            setResult(true, 0, 0, LEAF_DECISION);
+            return;
+        }
+
+        long[] key = keys[orderIndex];
+        problem.canonicalLimits(orderIndex, remainingLimits, key);
+        int slot = table.find(orderIndex, key);
+        if(slot != TranspositionTable.NOT_FOUND){
+            int decision = table.decision(slot);
+            setResult(decision != LEAF_DECISION, table.discount(slot), table.points(slot), decision);
+            return;
+        }
+
+        boolean feasible = false;
+        long bestDiscount = 0;
+        long bestPoints = 0;
+        int bestDecision = LEAF_DECISION;
+
+        if(problem.orderValueCents[orderIndex] <= 0){
+            solveState(orderIndex + 1);
+            feasible = resultFeasible;
+            bestDiscount = resultDiscount;
+            bestPoints = resultPoints;
+            bestDecision = CentsProblem.ZERO_VALUE_DECISION;
+        } else {
+            CentsOption[] options = problem.options[orderIndex];
+            for(int optionIndex = 0; optionIndex < options.length; optionIndex++){
+                CentsOption option = options[optionIndex];
+                for(int cardSlot = problem.firstCardSlot(option); cardSlot < problem.endCardSlot(option); cardSlot++){
+                    int decision = problem.encodeDecision(optionIndex, cardSlot);
+                    long pointsCharged = problem.charge(remainingLimits, orderIndex, option, cardSlot);
+                    if(pointsCharged == CentsProblem.INFEASIBLE){
+                        continue;
+                    }
+                    feasibleBranches++;
+                    solveState(orderIndex + 1);
+                    problem.refund(remainingLimits, orderIndex, decision, pointsCharged);
+                    if(!resultFeasible){
+                        continue;
+                    }
+                    long discount = option.discountCents + resultDiscount;
+                    long points = pointsCharged + resultPoints;
+                    if(!feasible || discount > bestDiscount || (discount == bestDiscount && points > bestPoints)){
+                        feasible = true;
+                        bestDiscount = discount;
+                        bestPoints = points;
+                        bestDecision = decision;
+                    }
+                }
+            }
+        }
+
+        // infeasible states are cached too, marked by the leaf decision
+        table.store(orderIndex, key, bestDiscount, bestPoints, feasible ? bestDecision : LEAF_DECISION);
+        setResult(feasible, bestDiscount, bestPoints, bestDecision);
+    }
+
+    private void setResult(boolean feasible, long discount, long points, int decision) {
+        resultFeasible = feasible;
+        resultDiscount = discount;
+        resultPoints = points;
+        resultDecision = decision;
+    }
+}
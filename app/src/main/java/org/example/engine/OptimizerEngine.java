@@ -0,0 +1,74 @@
+package org.example.engine;
+
+import org.example.domain.AnytimeResult;
+import org.example.domain.AppliedPayment;
+import org.example.domain.CancellationToken;
+import org.example.domain.OptimizerSettings;
+import org.example.domain.Order;
+import org.example.domain.PaymentOptimizer;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Entry point for embedding the optimizer in a long-running service. The engine only holds immutable settings;
+ * every solve builds its own search state, so one engine and one PreparedPaymentMethods can be shared by any
+ * number of threads. Concurrency is meant to come from solving many baskets at once, so keep parallelism at 1
+ * unless single baskets are large; above 1, all solves share one fork/join pool of that many threads, whose idle
+ * workers exit on their own. With a ResultCache, a basket solved before, by this engine or by another
+ * worker sharing the cache's directory, is answered from the cache.
+ */
+public final class OptimizerEngine {
+    private final OptimizerSettings settings;
+    private final ResultCache resultCache;
+
+    public OptimizerEngine(OptimizerSettings settings) {
+        this(settings, null);
+    }
+
+    public OptimizerEngine(OptimizerSettings settings, ResultCache resultCache) {
+        if(settings.getParallelism() < 1){
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + settings.getParallelism());
+        }
+        this.settings = settings.getParallelism() > 1 && settings.getForkJoinPool() == null
+                ? settings.toBuilder().forkJoinPool(new ForkJoinPool(settings.getParallelism())).build()
+                : settings;
+        this.resultCache = resultCache;
+    }
+
+    public OptimizerSettings settings() {
+        return settings;
+    }
+
+    public List<AppliedPayment> findOptimalPaymentPlan(PreparedPaymentMethods paymentMethods, List<Order> basket) {
+        return solve(paymentMethods, basket, settings).plan();
+    }
+
+    public AnytimeResult solve(PreparedPaymentMethods paymentMethods, List<Order> basket) {
+        return solve(paymentMethods, basket, settings);
+    }
+
+    // the token stops only this solve, on top of the engine's own time budget
+    public AnytimeResult solve(PreparedPaymentMethods paymentMethods, List<Order> basket, CancellationToken cancellationToken) {
+        return solve(paymentMethods, basket, settings.toBuilder().cancellationToken(cancellationToken).build());
+    }
+
+    private AnytimeResult solve(PreparedPaymentMethods paymentMethods, List<Order> basket, OptimizerSettings settings) {
+        if(resultCache == null){
+            return search(paymentMethods, basket, settings);
+        }
+        String key = ResultCache.key(paymentMethods, basket);
+        AnytimeResult cached = resultCache.get(key, paymentMethods);
+        if(cached != null){
+            return cached;
+        }
+        AnytimeResult result = search(paymentMethods, basket, settings);
+        resultCache.put(key, result);
+        return result;
+    }
+
+    private static AnytimeResult search(PreparedPaymentMethods paymentMethods, List<Order> basket, OptimizerSettings settings) {
+        return new PaymentOptimizer(List.copyOf(basket), paymentMethods.discountCalculator(), paymentMethods.methodIndex(), settings)
+                .findPaymentPlanWithinBudget();
+    }
+}
@@ -0,0 +1,318 @@
+package org.example.engine;
+
+import org.example.domain.CalculatedPaymentOption;
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.domain.PaymentStrategyType;
+import org.example.logic.PaymentOptionTable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/*
+ * Shrinks the search between DiscountCalculator and the search engines without changing the plan they return.
+ * The search returns the first plan in depth-first order among those with the best (discount, points), so a
+ * branch may only be dropped when every plan through it has an equally good plan that the search reaches first.
+ *
+ * Statically, per order: an option charging no more to any method and exactly the same points as another one,
+ * with at least its discount, removes that other option if it comes first or gives strictly more discount; only
+ * the first partial-points option is kept, since the search tries every card for it anyway.
+ *
+ * Dynamically, the searches skip branches that mirror an earlier sibling: two cards with the same remaining limit
+ * and the same options on every later order can be swapped in any plan, so only the first of them is tried; and
+ * of two identical adjacent orders paid with fixed amounts, the second may not take an earlier option than the
+ * first, because swapping their decisions gives the same plan sooner.
+ */
+public final class OptionReduction {
+    static final int[] NONE = new int[0];
+
+    private final PaymentOptionTable table;
+    private final long branchesBefore;
+    private final long branchesAfter;
+    private final boolean[] sameAsPrevious;
+    // [orderIndex][cardSlot]: cards with the same class id have the same options on every order after orderIndex
+    private final int[][] cardClassAfter;
+    // [orderIndex][optionIndex]: earlier options that charge the same amount to another card of the same class
+    private final int[][][] mirroredBy;
+    private final int[][] optionCardSlot;
+
+    private OptionReduction(PaymentOptionTable table,
+                            long branchesBefore,
+                            long branchesAfter,
+                            boolean[] sameAsPrevious,
+                            int[][] cardClassAfter,
+                            int[][][] mirroredBy,
+                            int[][] optionCardSlot) {
+        this.table = table;
+        this.branchesBefore = branchesBefore;
+        this.branchesAfter = branchesAfter;
+        this.sameAsPrevious = sameAsPrevious;
+        this.cardClassAfter = cardClassAfter;
+        this.mirroredBy = mirroredBy;
+        this.optionCardSlot = optionCardSlot;
+    }
+
+    public static OptionReduction reduce(PaymentOptionTable table, PaymentMethodIndex methodIndex) {
+        int orderCount = table.size();
+        PaymentMethod pointsMethod = methodIndex.pointsMethod();
+        List<List<CalculatedPaymentOption>> reducedOptions = new ArrayList<>(orderCount);
+        boolean negativeAmounts = false;
+        for(int i = 0; i < orderCount; i++){
+            List<CalculatedPaymentOption> options = table.options(i);
+            reducedOptions.add(undominated(options, pointsMethod));
+            for(CalculatedPaymentOption option : options){
+                negativeAmounts |= option.finalPrice().signum() < 0
+                        || option.spent().values().stream().anyMatch(amount -> amount.signum() < 0);
+            }
+        }
+        PaymentOptionTable reduced = table.withOptions(reducedOptions);
+
+        int cardCount = methodIndex.cardCount();
+        int[][] optionCardSlot = new int[orderCount][];
+        for(int i = 0; i < orderCount; i++){
+            List<CalculatedPaymentOption> options = reduced.options(i);
+            optionCardSlot[i] = new int[options.size()];
+            for(int k = 0; k < options.size(); k++){
+                optionCardSlot[i][k] = singleCardSlot(options.get(k), methodIndex);
+            }
+        }
+        int[][] cardClassAfter = cardClasses(reduced, methodIndex, optionCardSlot);
+
+        int[][][] mirroredBy = new int[orderCount][][];
+        boolean[] sameAsPrevious = new boolean[orderCount];
+        for(int i = 0; i < orderCount; i++){
+            mirroredBy[i] = mirrors(reduced.options(i), optionCardSlot[i], cardClassAfter[i]);
+            // swapping two fixed decisions keeps every intermediate limit in range only while nothing is refunded
+            sameAsPrevious[i] = i > 0 && !negativeAmounts && identical(reduced.order(i - 1), reduced.order(i));
+        }
+        return new OptionReduction(reduced, branches(table, cardCount), branches(reduced, cardCount),
+                sameAsPrevious, cardClassAfter, mirroredBy, optionCardSlot);
+    }
+
+    public PaymentOptionTable table() {
+        return table;
+    }
+
+    // candidate branches over all orders: one per fixed option, one per card for a partial-points option
+    public long branchesBefore() {
+        return branchesBefore;
+    }
+
+    public long branchesAfter() {
+        return branchesAfter;
+    }
+
+    // mean candidate branches per order, before and after the static reduction
+    public double branchingFactorBefore() {
+        return table.size() == 0 ? 0 : (double) branchesBefore / table.size();
+    }
+
+    public double branchingFactorAfter() {
+        return table.size() == 0 ? 0 : (double) branchesAfter / table.size();
+    }
+
+    public boolean sameAsPrevious(int orderIndex) {
+        return sameAsPrevious[orderIndex];
+    }
+
+    public int cardClassAfter(int orderIndex, int cardSlot) {
+        return cardClassAfter[orderIndex][cardSlot];
+    }
+
+    // earlier options of the same order that mirror this one once their cards' remaining limits are equal
+    public int[] mirroredBy(int orderIndex, int optionIndex) {
+        return mirroredBy[orderIndex][optionIndex];
+    }
+
+    // card slot of an option charging exactly one card, -1 otherwise
+    public int optionCardSlot(int orderIndex, int optionIndex) {
+        return optionCardSlot[orderIndex][optionIndex];
+    }
+
+    private static List<CalculatedPaymentOption> undominated(List<CalculatedPaymentOption> options, PaymentMethod pointsMethod) {
+        List<CalculatedPaymentOption> kept = new ArrayList<>(options.size());
+        boolean partialKept = false;
+        for(int a = 0; a < options.size(); a++){
+            CalculatedPaymentOption option = options.get(a);
+            if(isPartialPoints(option)){
+                if(!partialKept){
+                    kept.add(option);
+                    partialKept = true;
+                }
+                continue;
+            }
+            if(option.spent().isEmpty()){
+                continue;
+            }
+            boolean dominated = false;
+            for(int b = 0; b < options.size() && !dominated; b++){
+                CalculatedPaymentOption other = options.get(b);
+                if(b == a || isPartialPoints(other) || other.spent().isEmpty()){
+                    continue;
+                }
+                int discountComparison = other.discountAmount().compareTo(option.discountAmount());
+                dominated = discountComparison >= 0
+                        && (b < a || discountComparison > 0)
+                        && chargesNoMore(other, option, pointsMethod);
+            }
+            if(!dominated){
+                kept.add(option);
+            }
+        }
+        return kept;
+    }
+
+    // every method is charged at most as much by candidate, and points exactly as much
+    private static boolean chargesNoMore(CalculatedPaymentOption candidate, CalculatedPaymentOption option, PaymentMethod pointsMethod) {
+        Map<String, BigDecimal> candidateCharges = chargesById(candidate);
+        Map<String, BigDecimal> optionCharges = chargesById(option);
+        TreeSet<String> methodIds = new TreeSet<>(candidateCharges.keySet());
+        methodIds.addAll(optionCharges.keySet());
+        for(String methodId : methodIds){
+            BigDecimal candidateCharge = candidateCharges.getOrDefault(methodId, BigDecimal.ZERO);
+            BigDecimal optionCharge = optionCharges.getOrDefault(methodId, BigDecimal.ZERO);
+            int comparison = candidateCharge.compareTo(optionCharge);
+            boolean points = pointsMethod != null && pointsMethod.getId().equals(methodId);
+            if(points ? comparison != 0 : comparison > 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, BigDecimal> chargesById(CalculatedPaymentOption option) {
+        Map<String, BigDecimal> charges = new HashMap<>();
+        option.spent().forEach((method, amount) -> charges.merge(method.getId(), amount, BigDecimal::add));
+        return charges;
+    }
+
+    private static int singleCardSlot(CalculatedPaymentOption option, PaymentMethodIndex methodIndex) {
+        if(isPartialPoints(option) || option.spent().size() != 1){
+            return -1;
+        }
+        int methodIndexOfCard = methodIndex.indexOf(option.spent().keySet().iterator().next().getId());
+        for(int slot = 0; slot < methodIndex.cardCount(); slot++){
+            if(methodIndex.cardIndex(slot) == methodIndexOfCard){
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Class ids per order, built backwards: two cards share a class after order i when they shared one after
+     * order i + 1 and order i + 1 offers them the same fixed options (strategy, discount and amount).
+     * A card charged together with another method by some option gets a class of its own.
+     */
+    private static int[][] cardClasses(PaymentOptionTable table, PaymentMethodIndex methodIndex, int[][] optionCardSlot) {
+        int orderCount = table.size();
+        int cardCount = methodIndex.cardCount();
+        int[][] classes = new int[orderCount][cardCount];
+        int[] next = new int[cardCount];
+        for(int i = orderCount - 1; i >= 0; i--){
+            classes[i] = next.clone();
+            if(i == 0){
+                break;
+            }
+            next = new int[cardCount];
+            String[] signatures = signatures(table.options(i), optionCardSlot[i], methodIndex);
+            Map<String, Integer> ids = new HashMap<>();
+            for(int slot = 0; slot < cardCount; slot++){
+                String key = classes[i][slot] + "#" + signatures[slot];
+                next[slot] = ids.computeIfAbsent(key, ignored -> ids.size());
+            }
+        }
+        return classes;
+    }
+
+    private static String[] signatures(List<CalculatedPaymentOption> options, int[] optionCardSlot, PaymentMethodIndex methodIndex) {
+        int cardCount = methodIndex.cardCount();
+        List<List<String>> entries = new ArrayList<>(cardCount);
+        for(int slot = 0; slot < cardCount; slot++){
+            entries.add(new ArrayList<>());
+        }
+        for(int k = 0; k < options.size(); k++){
+            CalculatedPaymentOption option = options.get(k);
+            if(isPartialPoints(option)){
+                continue;
+            }
+            if(optionCardSlot[k] >= 0){
+                entries.get(optionCardSlot[k]).add(option.paymentStrategyType() + "|"
+                        + option.discountAmount().stripTrailingZeros().toPlainString() + "|"
+                        + option.spent().values().iterator().next().stripTrailingZeros().toPlainString());
+                continue;
+            }
+            for(PaymentMethod method : option.spent().keySet()){
+                for(int slot = 0; slot < cardCount; slot++){
+                    if(methodIndex.card(slot).getId().equals(method.getId())){
+                        entries.get(slot).add("shared|" + slot);
+                    }
+                }
+            }
+        }
+        String[] signatures = new String[cardCount];
+        for(int slot = 0; slot < cardCount; slot++){
+            List<String> cardEntries = entries.get(slot);
+            cardEntries.sort(null);
+            signatures[slot] = String.join(",", cardEntries);
+        }
+        return signatures;
+    }
+
+    private static int[][] mirrors(List<CalculatedPaymentOption> options, int[] optionCardSlot, int[] cardClass) {
+        int[][] mirrors = new int[options.size()][];
+        for(int k = 0; k < options.size(); k++){
+            mirrors[k] = NONE;
+            if(optionCardSlot[k] < 0){
+                continue;
+            }
+            CalculatedPaymentOption option = options.get(k);
+            int[] earlier = new int[k];
+            int count = 0;
+            for(int j = 0; j < k; j++){
+                CalculatedPaymentOption other = options.get(j);
+                if(optionCardSlot[j] >= 0
+                        && optionCardSlot[j] != optionCardSlot[k]
+                        && cardClass[optionCardSlot[j]] == cardClass[optionCardSlot[k]]
+                        && other.paymentStrategyType() == option.paymentStrategyType()
+                        && other.discountAmount().compareTo(option.discountAmount()) == 0
+                        && other.spent().values().iterator().next().compareTo(option.spent().values().iterator().next()) == 0){
+                    earlier[count++] = j;
+                }
+            }
+            if(count > 0){
+                mirrors[k] = Arrays.copyOf(earlier, count);
+            }
+        }
+        return mirrors;
+    }
+
+    private static boolean identical(Order previous, Order order) {
+        return previous.value().signum() > 0
+                && previous.value().equals(order.value())
+                && previous.applicablePromotions().equals(order.applicablePromotions());
+    }
+
+    private static long branches(PaymentOptionTable table, int cardCount) {
+        long branches = 0;
+        for(int i = 0; i < table.size(); i++){
+            if(table.order(i).value().signum() <= 0){
+                branches++;
+                continue;
+            }
+            for(CalculatedPaymentOption option : table.options(i)){
+                branches += isPartialPoints(option) ? cardCount : 1;
+            }
+        }
+        return branches;
+    }
+
+    private static boolean isPartialPoints(CalculatedPaymentOption option) {
+        return option.paymentStrategyType() == PaymentStrategyType.PARTIAL_POINTS_10_PERCENT_GLOBAL_DISCOUNT;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.engine;
+
+import org.example.domain.PaymentMethod;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Dense int ids for one set of payment methods, so remaining limits can live in a flat array.
+ */
+public final class PaymentMethodIndex {
+    public static final int UNKNOWN = -1;
+
+    private final List<PaymentMethod> methods;
+    private final Map<String, Integer> indexById;
+    private final int pointsIndex;
+    private final int[] cardIndices;
+    private final List<PaymentMethod> cards;
+
+    private PaymentMethodIndex(List<PaymentMethod> methods, PaymentMethod pointsMethod, List<PaymentMethod> cards) {
+        this.methods = methods;
+        this.indexById = new HashMap<>();
+        for(int i = 0; i < methods.size(); i++){
+            indexById.put(methods.get(i).getId(), i);
+        }
+        this.pointsIndex = pointsMethod == null ? UNKNOWN : indexOf(pointsMethod.getId());
+        this.cards = cards;
+        this.cardIndices = cards.stream().mapToInt(card -> indexOf(card.getId())).toArray();
+    }
+
+    public static PaymentMethodIndex of(List<PaymentMethod> methods, PaymentMethod pointsMethod, List<PaymentMethod> cards) {
+        return new PaymentMethodIndex(List.copyOf(methods), pointsMethod, List.copyOf(cards));
+    }
+
+    /*
+     * The index PaymentOptimizer uses for a customer's methods keyed by ID: PUNKTY is the points method,
+     * every other method is a card.
+     */
+    public static PaymentMethodIndex forClient(Map<String, PaymentMethod> paymentMethods) {
+        Map<String, PaymentMethod> methods = Map.copyOf(paymentMethods);
+        List<PaymentMethod> cards = methods.values().stream()
+                .filter(paymentMethod -> paymentMethod != null && !paymentMethod.isPoints())
+                .toList();
+        return of(List.copyOf(methods.values()), methods.get("PUNKTY"), cards);
+    }
+
+    public int size() {
+        return methods.size();
+    }
+
+    public PaymentMethod method(int index) {
+        return methods.get(index);
+    }
+
+    public int indexOf(String methodId) {
+        return indexById.getOrDefault(methodId, UNKNOWN);
+    }
+
+    public int pointsIndex() {
+        return pointsIndex;
+    }
+
+    public PaymentMethod pointsMethod() {
+        return pointsIndex == UNKNOWN ? null : methods.get(pointsIndex);
+    }
+
+    public int cardCount() {
+        return cardIndices.length;
+    }
+
+    public int cardIndex(int cardSlot) {
+        return cardIndices[cardSlot];
+    }
+
+    public PaymentMethod card(int cardSlot) {
+        return cards.get(cardSlot);
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.engine;
+
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.logic.DiscountCalculator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * A customer's payment methods with everything a solve derives from them built once: the method index and the
+ * discount calculator. Immutable, so one instance can serve any number of concurrent solves. Orders must
+ * reference these PaymentMethod instances; order() resolves promotion IDs the way OrdersLoader does.
+ */
+public final class PreparedPaymentMethods {
+    private final Map<String, PaymentMethod> paymentMethods;
+    private final PaymentMethodIndex methodIndex;
+    private final DiscountCalculator discountCalculator;
+
+    private PreparedPaymentMethods(Map<String, PaymentMethod> paymentMethods) {
+        this.paymentMethods = Collections.unmodifiableMap(new LinkedHashMap<>(paymentMethods));
+        this.methodIndex = PaymentMethodIndex.forClient(paymentMethods);
+        this.discountCalculator = new DiscountCalculator(methodIndex.pointsMethod(), cards(this.paymentMethods));
+    }
+
+    public static PreparedPaymentMethods of(Map<String, PaymentMethod> paymentMethods) {
+        return new PreparedPaymentMethods(paymentMethods);
+    }
+
+    public Map<String, PaymentMethod> paymentMethods() {
+        return paymentMethods;
+    }
+
+    public PaymentMethod method(String id) {
+        return paymentMethods.get(id);
+    }
+
+    // unknown and blank promotion IDs are skipped
+    public Order order(String id, BigDecimal value, List<String> promotionIds) {
+        List<PaymentMethod> promotions = new ArrayList<>();
+        for(String promotionId : promotionIds){
+            if(promotionId == null || promotionId.isBlank()){
+                continue;
+            }
+            PaymentMethod promotion = paymentMethods.get(promotionId);
+            if(promotion != null){
+                promotions.add(promotion);
+            }
+        }
+        return new Order(id, value, promotions);
+    }
+
+    PaymentMethodIndex methodIndex() {
+        return methodIndex;
+    }
+
+    DiscountCalculator discountCalculator() {
+        return discountCalculator;
+    }
+
+    // in the customer's order, as App passes them
+    static List<PaymentMethod> cards(Map<String, PaymentMethod> paymentMethods) {
+        return paymentMethods.values().stream()
+                .filter(paymentMethod -> paymentMethod != null && !paymentMethod.isPoints())
+                .toList();
+    }
+}
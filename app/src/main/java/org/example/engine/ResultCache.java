@@ -0,0 +1,237 @@
+package org.example.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.domain.AnytimeResult;
+import org.example.domain.AppliedPayment;
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.domain.PaymentStrategyType;
+import org.example.io.AtomicFiles;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/*
+ * Complete results keyed by a SHA-256 of the normalized problem: payment methods with their discount and limit
+ * in the customer's order, then the orders with their value and resolved promotions in basket order. Neither
+ * order is sorted away, since both decide which of several equally good plans is returned. Solver settings are
+ * not part of the key: every complete search returns the same plan.
+ *
+ * An in-memory LRU tier sits in front of an optional directory of one JSON file per key. Files are written to
+ * a temporary file and moved into place, so concurrent workers and processes sharing the directory only ever
+ * read whole entries; once the directory grows past its size limit the least recently used files go first.
+ */
+public final class ResultCache {
+    private static final String FORMAT_VERSION = "1";
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // other processes may share the directory, so its real size is looked up again every so many writes
+    private static final int WRITES_BETWEEN_SIZE_CHECKS = 64;
+
+    private final Map<String, CachedResult> memory;
+    private final Path directory;
+    private final long maxDirectoryBytes;
+    private final AtomicLong directoryBytes = new AtomicLong();
+    private final AtomicInteger writesSinceSizeCheck = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private ResultCache(int memoryEntries, Path directory, long maxDirectoryBytes) {
+        if(memoryEntries < 1){
+            throw new IllegalArgumentException("Result cache needs at least one entry: " + memoryEntries);
+        }
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+        this.directory = directory;
+        this.maxDirectoryBytes = maxDirectoryBytes;
+    }
+
+    public static ResultCache inMemory(int memoryEntries) {
+        return new ResultCache(memoryEntries, null, 0);
+    }
+
+    public static ResultCache withDirectory(int memoryEntries, Path directory, long maxDirectoryBytes) throws IOException {
+        if(maxDirectoryBytes < 1){
+            throw new IllegalArgumentException("Result cache directory needs room for at least one byte: " + maxDirectoryBytes);
+        }
+        Files.createDirectories(directory);
+        ResultCache cache = new ResultCache(memoryEntries, directory, maxDirectoryBytes);
+        cache.evictIfFull();
+        return cache;
+    }
+
+    public static String key(PreparedPaymentMethods paymentMethods, List<Order> basket) {
+        StringBuilder canonical = new StringBuilder("v").append(FORMAT_VERSION).append('\n');
+        for(PaymentMethod method : paymentMethods.paymentMethods().values()){
+            canonical.append("M ");
+            appendField(canonical, method.getId());
+            appendField(canonical, method.getDiscountPercentage().stripTrailingZeros().toPlainString());
+            appendField(canonical, method.getMethodLimit().toPlainString());
+            canonical.append('\n');
+        }
+        for(Order order : basket){
+            canonical.append("O ");
+            appendField(canonical, order.id());
+            appendField(canonical, order.value().toPlainString());
+            for(PaymentMethod promotion : order.applicablePromotions()){
+                appendField(canonical, promotion.getId());
+            }
+            canonical.append('\n');
+        }
+        try{
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // null on a miss; the plan is rebuilt on the given payment method instances
+    public AnytimeResult get(String key, PreparedPaymentMethods paymentMethods) {
+        CachedResult cached;
+        synchronized(memory){
+            cached = memory.get(key);
+        }
+        if(cached == null && directory != null){
+            cached = readEntry(key);
+            if(cached != null){
+                synchronized(memory){
+                    memory.put(key, cached);
+                }
+            }
+        }
+        if(cached == null){
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.toResult(paymentMethods);
+    }
+
+    // incomplete results depend on how far the search got and are not kept
+    public void put(String key, AnytimeResult result) {
+        if(!result.complete()){
+            return;
+        }
+        CachedResult cached = CachedResult.of(result);
+        synchronized(memory){
+            memory.put(key, cached);
+        }
+        if(directory != null){
+            writeEntry(key, cached);
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    private CachedResult readEntry(String key) {
+        Path entry = directory.resolve(key + ENTRY_SUFFIX);
+        try{
+            CachedResult cached = MAPPER.readValue(entry.toFile(), CachedResult.class);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return cached;
+        } catch (IOException e) {
+            // missing, evicted by another worker in the meantime, or unreadable: all misses
+            return null;
+        }
+    }
+
+    // a full or read-only disk only costs later solves their cache hit, so write errors are not passed on
+    private void writeEntry(String key, CachedResult cached) {
+        try{
+            long bytes = AtomicFiles.write(directory.resolve(key + ENTRY_SUFFIX), temporary -> MAPPER.writeValue(temporary.toFile(), cached));
+            if(directoryBytes.addAndGet(bytes) > maxDirectoryBytes
+                    || writesSinceSizeCheck.incrementAndGet() >= WRITES_BETWEEN_SIZE_CHECKS){
+                evictIfFull();
+            }
+        } catch (IOException e) {
+            // keep serving from memory
+        }
+    }
+
+    // deletes the least recently used entries until the directory fits its limit again
+    private synchronized void evictIfFull() throws IOException {
+        writesSinceSizeCheck.set(0);
+        List<Path> entries;
+        try(Stream<Path> files = Files.list(directory)){
+            entries = files.filter(file -> file.getFileName().toString().endsWith(ENTRY_SUFFIX)).toList();
+        }
+        List<EntryFile> entryFiles = new ArrayList<>(entries.size());
+        long totalBytes = 0;
+        for(Path entry : entries){
+            try{
+                EntryFile entryFile = new EntryFile(entry, Files.size(entry), Files.getLastModifiedTime(entry));
+                entryFiles.add(entryFile);
+                totalBytes += entryFile.bytes();
+            } catch (NoSuchFileException e) {
+                // evicted by another worker
+            }
+        }
+        entryFiles.sort(Comparator.comparing(EntryFile::lastUsed));
+        for(int i = 0; i < entryFiles.size() && totalBytes > maxDirectoryBytes; i++){
+            Files.deleteIfExists(entryFiles.get(i).path());
+            totalBytes -= entryFiles.get(i).bytes();
+        }
+        directoryBytes.set(totalBytes);
+    }
+
+    private static void appendField(StringBuilder canonical, String field) {
+        canonical.append(field.length()).append(':').append(field).append(' ');
+    }
+
+    private record EntryFile(Path path, long bytes, FileTime lastUsed) {}
+
+    // amounts as strings so that their scale survives the round trip
+    record CachedResult(String discount, List<CachedPayment> payments) {
+        static CachedResult of(AnytimeResult result) {
+            List<CachedPayment> payments = new ArrayList<>(result.plan().size());
+            for(AppliedPayment payment : result.plan()){
+                Map<String, String> spent = new LinkedHashMap<>();
+                payment.actualAmountSpent().forEach((method, amount) -> spent.put(method.getId(), amount.toPlainString()));
+                payments.add(new CachedPayment(payment.orderId(), payment.finalPricePaid().toPlainString(), payment.strategyType(), spent));
+            }
+            return new CachedResult(result.discount().toPlainString(), payments);
+        }
+
+        AnytimeResult toResult(PreparedPaymentMethods paymentMethods) {
+            List<AppliedPayment> plan = new ArrayList<>(payments.size());
+            for(CachedPayment payment : payments){
+                Map<PaymentMethod, BigDecimal> spent = new HashMap<>();
+                payment.spent().forEach((methodId, amount) -> spent.put(paymentMethods.method(methodId), new BigDecimal(amount)));
+                plan.add(new AppliedPayment(payment.orderId(), new BigDecimal(payment.finalPricePaid()), payment.strategyType(), spent));
+            }
+            BigDecimal discountValue = new BigDecimal(discount);
+            return new AnytimeResult(plan, true, discountValue, discountValue);
+        }
+    }
+
+    record CachedPayment(String orderId, String finalPricePaid, PaymentStrategyType strategyType, Map<String, String> spent) {}
+}
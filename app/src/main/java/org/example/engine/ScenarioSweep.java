@@ -0,0 +1,267 @@
+package org.example.engine;
+
+import org.example.domain.AnytimeResult;
+import org.example.domain.AppliedPayment;
+import org.example.domain.CalculatedPaymentOption;
+import org.example.domain.OptimizerSettings;
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.domain.PaymentOptimizer;
+import org.example.logic.DiscountCalculator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/*
+ * What-if runs over one basket: every scenario changes the limits or discounts of some payment methods and is
+ * solved like a full run on those methods. The basket is parsed and its options calculated once; a scenario
+ * rebinds them to its own PaymentMethod instances and only calculates again the options of orders whose prices
+ * depend on a changed discount. Limits never change options.
+ *
+ * Scenarios are split into one contiguous run per thread. Within a run every scenario starts from the previous
+ * scenario's plan, a neighbour in the grid that usually differs in one value, see
+ * PaymentOptimizer.findPaymentPlanWithinBudget; the plans returned are the ones separate runs return.
+ */
+public final class ScenarioSweep {
+    private final OptimizerSettings settings;
+    private final PreparedPaymentMethods base;
+    private final List<Order> basket;
+    private final List<List<CalculatedPaymentOption>> baseOptions;
+
+    public ScenarioSweep(OptimizerSettings settings, PreparedPaymentMethods base, List<Order> basket) {
+        // like OptimizerEngine, every scenario's parallel search runs on one pool
+        this.settings = settings.getParallelism() > 1 && settings.getForkJoinPool() == null
+                ? settings.toBuilder().forkJoinPool(new ForkJoinPool(settings.getParallelism())).build()
+                : settings;
+        this.base = base;
+        this.basket = List.copyOf(basket);
+        this.baseOptions = this.basket.stream()
+                .map(order -> List.copyOf(base.discountCalculator().calculateOptionsForOrder(order)))
+                .toList();
+    }
+
+    /*
+     * Every combination of the axes, the last axis varying fastest. An axis is "<method>.limit=<values>" or
+     * "<method>.discount=<values>", axes are separated by ';' and values by ','; "from..to/step" stands for
+     * from, from + step, ... up to and including to. E.g. "PUNKTY.limit=50..500/50;mZysk.discount=5,10".
+     */
+    public static List<Scenario> grid(String specification) {
+        List<List<Variation>> axes = new ArrayList<>();
+        for(String axis : specification.split(";")){
+            if(!axis.isBlank()){
+                axes.add(parseAxis(axis.trim()));
+            }
+        }
+        if(axes.isEmpty()){
+            throw new IllegalArgumentException("Sweep has no axes: " + specification);
+        }
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new Scenario(List.of()));
+        for(List<Variation> axis : axes){
+            List<Scenario> extended = new ArrayList<>(scenarios.size() * axis.size());
+            for(Scenario scenario : scenarios){
+                for(Variation variation : axis){
+                    List<Variation> variations = new ArrayList<>(scenario.variations());
+                    variations.add(variation);
+                    extended.add(new Scenario(List.copyOf(variations)));
+                }
+            }
+            scenarios = extended;
+        }
+        return scenarios;
+    }
+
+    // results in the order of the scenarios; threads is the most scenarios solved at once
+    public List<ScenarioResult> solve(List<Scenario> scenarios, int threads) throws InterruptedException {
+        if(threads < 1){
+            throw new IllegalArgumentException("Sweep needs at least one thread: " + threads);
+        }
+        for(Scenario scenario : scenarios){
+            for(Variation variation : scenario.variations()){
+                if(base.method(variation.methodId()) == null){
+                    throw new IllegalArgumentException("Unknown payment method " + variation.methodId());
+                }
+            }
+        }
+        int runs = Math.min(threads, scenarios.size());
+        if(runs <= 1){
+            return solveRun(scenarios);
+        }
+        List<Callable<List<ScenarioResult>>> tasks = new ArrayList<>(runs);
+        for(int run = 0; run < runs; run++){
+            List<Scenario> slice = scenarios.subList(run * scenarios.size() / runs, (run + 1) * scenarios.size() / runs);
+            tasks.add(() -> solveRun(slice));
+        }
+        List<ScenarioResult> results = new ArrayList<>(scenarios.size());
+        try(ExecutorService executor = Executors.newFixedThreadPool(runs)){
+            for(Future<List<ScenarioResult>> run : executor.invokeAll(tasks)){
+                results.addAll(run.get());
+            }
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException runtimeException){
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    private List<ScenarioResult> solveRun(List<Scenario> scenarios) {
+        List<ScenarioResult> results = new ArrayList<>(scenarios.size());
+        List<AppliedPayment> previousPlan = List.of();
+        for(Scenario scenario : scenarios){
+            long startNanos = System.nanoTime();
+            ScenarioOptions options = new ScenarioOptions(methods(scenario));
+            AnytimeResult result = new PaymentOptimizer(options.orders, options, options.paymentMethods.methodIndex(), settings)
+                    .findPaymentPlanWithinBudget(previousPlan);
+            if(!result.plan().isEmpty()){
+                previousPlan = result.plan();
+            }
+            results.add(new ScenarioResult(scenario, result, System.nanoTime() - startNanos));
+        }
+        return results;
+    }
+
+    // the base methods in their order, those the scenario varies replaced by new instances
+    private Map<String, PaymentMethod> methods(Scenario scenario) {
+        Map<String, PaymentMethod> methods = new LinkedHashMap<>(base.paymentMethods());
+        for(Variation variation : scenario.variations()){
+            PaymentMethod method = methods.get(variation.methodId());
+            methods.put(method.getId(), variation.parameter() == Parameter.LIMIT
+                    ? new PaymentMethod(method.getId(), method.getDiscountPercentage(), variation.value())
+                    : new PaymentMethod(method.getId(), variation.value(), method.getMethodLimit()));
+        }
+        return methods;
+    }
+
+    private static List<Variation> parseAxis(String axis) {
+        int separator = axis.indexOf('=');
+        int dot = separator < 0 ? -1 : axis.lastIndexOf('.', separator);
+        if(dot <= 0){
+            throw new IllegalArgumentException("Sweep axis must look like <method>.limit=<values>: " + axis);
+        }
+        String methodId = axis.substring(0, dot);
+        Parameter parameter;
+        try{
+            parameter = Parameter.valueOf(axis.substring(dot + 1, separator).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Sweep axis must vary limit or discount: " + axis, e);
+        }
+        List<Variation> variations = new ArrayList<>();
+        try{
+            for(String value : axis.substring(separator + 1).split(",")){
+                int range = value.indexOf("..");
+                if(range < 0){
+                    variations.add(new Variation(methodId, parameter, new BigDecimal(value.trim())));
+                    continue;
+                }
+                int step = value.indexOf('/', range);
+                if(step < 0){
+                    throw new IllegalArgumentException("Sweep range needs a step: " + value);
+                }
+                BigDecimal from = new BigDecimal(value.substring(0, range).trim());
+                BigDecimal to = new BigDecimal(value.substring(range + 2, step).trim());
+                BigDecimal increment = new BigDecimal(value.substring(step + 1).trim());
+                if(increment.signum() <= 0){
+                    throw new IllegalArgumentException("Sweep step must be positive: " + value);
+                }
+                for(BigDecimal current = from; current.compareTo(to) <= 0; current = current.add(increment)){
+                    variations.add(new Variation(methodId, parameter, current));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value in sweep axis: " + axis, e);
+        }
+        if(variations.isEmpty()){
+            throw new IllegalArgumentException("Sweep axis has no values: " + axis);
+        }
+        return variations;
+    }
+
+    public enum Parameter {
+        LIMIT,
+        DISCOUNT
+    }
+
+    public record Variation(String methodId, Parameter parameter, BigDecimal value) {
+        // column heading, e.g. PUNKTY.limit
+        public String name() {
+            return methodId + "." + parameter.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // later variations of the same method and parameter win
+    public record Scenario(List<Variation> variations) {}
+
+    public record ScenarioResult(Scenario scenario, AnytimeResult result, long solveNanos) {}
+
+    /*
+     * The payment methods and basket of one scenario, with the base options rebound to them. Options are
+     * calculated again only where a changed discount sets their price: the points discount for every order,
+     * a card's discount for the orders it promotes.
+     */
+    private final class ScenarioOptions extends DiscountCalculator {
+        private final PreparedPaymentMethods paymentMethods;
+        private final List<Order> orders;
+        private final Map<Order, Integer> baseIndex = new IdentityHashMap<>();
+        private final Map<PaymentMethod, PaymentMethod> rebound = new IdentityHashMap<>();
+        private final Map<String, Boolean> discountChanged = new HashMap<>();
+
+        ScenarioOptions(Map<String, PaymentMethod> methods) {
+            super(methods.get("PUNKTY"), PreparedPaymentMethods.cards(methods));
+            this.paymentMethods = PreparedPaymentMethods.of(methods);
+            for(PaymentMethod method : base.paymentMethods().values()){
+                PaymentMethod changed = methods.get(method.getId());
+                rebound.put(method, changed);
+                discountChanged.put(method.getId(), changed.getDiscountPercentage().compareTo(method.getDiscountPercentage()) != 0);
+            }
+            List<Order> scenarioOrders = new ArrayList<>(basket.size());
+            for(int orderIndex = 0; orderIndex < basket.size(); orderIndex++){
+                Order order = basket.get(orderIndex);
+                Order scenarioOrder = new Order(order.id(), order.value(), order.applicablePromotions().stream().map(rebound::get).toList());
+                scenarioOrders.add(scenarioOrder);
+                baseIndex.put(scenarioOrder, orderIndex);
+            }
+            this.orders = List.copyOf(scenarioOrders);
+        }
+
+        @Override
+        public List<CalculatedPaymentOption> calculateOptionsForOrder(Order order) {
+            Integer orderIndex = baseIndex.get(order);
+            if(orderIndex == null || repriced(order)){
+                return super.calculateOptionsForOrder(order);
+            }
+            List<CalculatedPaymentOption> options = new ArrayList<>(baseOptions.get(orderIndex).size());
+            for(CalculatedPaymentOption option : baseOptions.get(orderIndex)){
+                Map<PaymentMethod, BigDecimal> spent = new HashMap<>();
+                option.spent().forEach((method, amount) -> spent.put(rebound.get(method), amount));
+                options.add(new CalculatedPaymentOption(order, option.finalPrice(), option.discountAmount(), option.paymentStrategyType(), spent));
+            }
+            return options;
+        }
+
+        private boolean repriced(Order order) {
+            if(discountChanged.getOrDefault("PUNKTY", false)){
+                return true;
+            }
+            for(PaymentMethod promotion : order.applicablePromotions()){
+                if(discountChanged.get(promotion.getId())){
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
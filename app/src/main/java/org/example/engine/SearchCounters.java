@@ -0,0 +1,21 @@
+package org.example.engine;
+
+import org.example.domain.SearchStatistics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+final class SearchCounters {
+    private final LongAdder nodesVisited = new LongAdder();
+    private final LongAdder nodesPruned = new LongAdder();
+    private final LongAdder feasibleBranches = new LongAdder();
+
+    void add(long visited, long pruned, long feasible) {
+        nodesVisited.add(visited);
+        nodesPruned.add(pruned);
+        feasibleBranches.add(feasible);
+    }
+
+    SearchStatistics snapshot(long incumbentImprovements) {
+        return new SearchStatistics(nodesVisited.sum(), nodesPruned.sum(), feasibleBranches.sum(), incumbentImprovements);
+    }
+}
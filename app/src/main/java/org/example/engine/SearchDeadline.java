@@ -0,0 +1,70 @@
+package org.example.engine;
+
+import org.example.domain.CancellationToken;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/*
+ * Stop condition of an anytime search: a wall-clock budget, a cancellation token or an interrupt of the
+ * thread that started the search. Workers poll it every few hundred nodes; once it fires every node still
+ * entered is abandoned and leaves its optimistic discount behind, which bounds what the search missed.
+ */
+final class SearchDeadline {
+    static final SearchDeadline NONE = new SearchDeadline(false, 0, null, null);
+    private static final long POLL_MASK = 511;
+
+    private final boolean hasBudget;
+    private final long deadlineNanos;
+    private final CancellationToken cancellationToken;
+    private final Thread searchThread;
+    private final LongAccumulator abandonedBound = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    private volatile boolean stopped;
+
+    private SearchDeadline(boolean hasBudget, long deadlineNanos, CancellationToken cancellationToken, Thread searchThread) {
+        this.hasBudget = hasBudget;
+        this.deadlineNanos = deadlineNanos;
+        this.cancellationToken = cancellationToken;
+        this.searchThread = searchThread;
+    }
+
+    static SearchDeadline start(Duration budget, CancellationToken cancellationToken) {
+        if(budget == null && cancellationToken == null){
+            return NONE;
+        }
+        long deadline = budget == null ? 0 : System.nanoTime() + budget.toNanos();
+        return new SearchDeadline(budget != null, deadline, cancellationToken, Thread.currentThread());
+    }
+
+    boolean isActive() {
+        return this != NONE;
+    }
+
+    // polled on the first node of every worker and then every POLL_MASK + 1 nodes
+    boolean shouldStop(long nodesVisited) {
+        if(stopped){
+            return true;
+        }
+        if(this == NONE || (nodesVisited & POLL_MASK) != 1){
+            return false;
+        }
+        if((hasBudget && System.nanoTime() - deadlineNanos >= 0)
+                || (cancellationToken != null && cancellationToken.isCancelled())
+                || searchThread.isInterrupted()){
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    void abandon(long optimisticDiscountCents) {
+        abandonedBound.accumulate(optimisticDiscountCents);
+    }
+
+    boolean stopped() {
+        return stopped;
+    }
+
+    long abandonedBound() {
+        return abandonedBound.get();
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.engine;
+
+import java.util.concurrent.RecursiveAction;
+
+final class SearchTask extends RecursiveAction {
+    private final CentsProblem problem;
+    private final boolean pruning;
+    private final Incumbent incumbent;
+    private final long[] remainingLimits;
+    private final int[] trail;
+    private final int splitDepth;
+    private final SearchCounters counters;
+    private final SearchDeadline deadline;
+    private final LinearRelaxation relaxation;
+    private final int depth;
+    private final long accumulatedDiscount;
+    private final long pointsSpent;
+
+    SearchTask(CentsProblem problem,
+               boolean pruning,
+               Incumbent incumbent,
+               long[] remainingLimits,
+               int[] trail,
+               int splitDepth,
+               SearchCounters counters,
+               SearchDeadline deadline,
+               LinearRelaxation relaxation,
+               int depth,
+               long accumulatedDiscount,
+               long pointsSpent) {
+        this.problem = problem;
+        this.pruning = pruning;
+        this.incumbent = incumbent;
+        this.remainingLimits = remainingLimits;
+        this.trail = trail;
+        this.splitDepth = splitDepth;
+        this.counters = counters;
+        this.deadline = deadline;
+        this.relaxation = relaxation;
+        this.depth = depth;
+        this.accumulatedDiscount = accumulatedDiscount;
+        this.pointsSpent = pointsSpent;
+    }
+
+    @Override
+    protected void compute() {
+        new SearchWorker(problem, pruning, incumbent, remainingLimits, trail, splitDepth, counters, deadline, relaxation)
+                .run(depth, accumulatedDiscount, pointsSpent);
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+ * Depth-first search over one CentsProblem. Remaining limits are charged in place and refunded on backtrack;
+ * the current path is an encoded decision per order, whichever depth of the problem's search sequence decided it.
+ * Depths above splitDepth are not descended into directly but handed out as fork/join subtasks carrying a
+ * snapshot of the limits and the trail.
+ * Once the deadline fires, nodes are abandoned on entry. Branches the problem's symmetry rules rule out are
+ * never entered. Nodes above the relaxation's depth that survive the per-order bound are also bounded by the
+ * LP relaxation of their remaining orders.
+ */
+final class SearchWorker {
+    private final CentsProblem problem;
+    private final boolean pruning;
+    private final Incumbent incumbent;
+    private final long[] remainingLimits;
+    private final int[] trail;
+    private final int splitDepth;
+    private final SearchCounters counters;
+    private final SearchDeadline deadline;
+    private final LinearRelaxation relaxation;
+    private final LinearRelaxation.Workspace relaxationWorkspace;
+
+    private List<SearchTask> forkedChildren;
+    private long nodesVisited;
+    private long nodesPruned;
+    private long feasibleBranches;
+
+    SearchWorker(CentsProblem problem,
+                 boolean pruning,
+                 Incumbent incumbent,
+                 long[] remainingLimits,
+                 int[] trail,
+                 int splitDepth,
+                 SearchCounters counters,
+                 SearchDeadline deadline,
+                 LinearRelaxation relaxation) {
+        this.problem = problem;
+        this.pruning = pruning;
+        this.incumbent = incumbent;
+        this.remainingLimits = remainingLimits;
+        this.trail = trail;
+        this.splitDepth = splitDepth;
+        this.counters = counters;
+        this.deadline = deadline;
+        this.relaxation = relaxation;
+        this.relaxationWorkspace = relaxation == null ? null : relaxation.newWorkspace();
+    }
+
+    void run(int depth, long accumulatedDiscount, long pointsSpent) {
+        solveRecursively(depth, accumulatedDiscount, pointsSpent);
+        counters.add(nodesVisited, nodesPruned, feasibleBranches);
+    }
+
+    private void solveRecursively(int depth, long accumulatedDiscount, long pointsSpent) {
+        nodesVisited++;
+        if(depth == problem.orderCount()){
+            incumbent.offer(accumulatedDiscount, pointsSpent, trail);
+            return;
+        }
+
+        if(pruning && cannotBeatIncumbent(depth, accumulatedDiscount, pointsSpent)){
+            nodesPruned++;
+            return;
+        }
+        if(relaxation != null && depth < relaxation.nodeDepth() && relaxationCannotBeatIncumbent(depth, accumulatedDiscount, pointsSpent)){
+            nodesPruned++;
+            return;
+        }
+
+        if(deadline.shouldStop(nodesVisited)){
+            deadline.abandon(accumulatedDiscount + problem.maxRemainingDiscountCents[depth]);
+            return;
+        }
+
+        if(depth < splitDepth){
+            forkedChildren = new ArrayList<>();
+            branch(depth, accumulatedDiscount, pointsSpent);
+            List<SearchTask> children = forkedChildren;
+            forkedChildren = null;
+            ForkJoinTask.invokeAll(children);
+            return;
+        }
+        branch(depth, accumulatedDiscount, pointsSpent);
+    }
+
+    private void branch(int depth, long accumulatedDiscount, long pointsSpent) {
+        int orderIndex = problem.searchSequence[depth];
+        if(problem.orderValueCents[orderIndex] <= 0){
+            trail[orderIndex] = CentsProblem.ZERO_VALUE_DECISION;
+            descend(depth + 1, accumulatedDiscount, pointsSpent);
+            return;
+        }
+
+        CentsOption[] options = problem.options[orderIndex];
+        for(int optionIndex : problem.optionSequence[orderIndex]){
+            CentsOption option = options[optionIndex];
+            if(option.isPartialPoints()){
+                branchOnPartialPoints(depth, orderIndex, optionIndex, option, accumulatedDiscount, pointsSpent);
+            } else if(!problem.skipsFixedOption(remainingLimits, trail, orderIndex, optionIndex)){
+                branchOnFixedAmounts(depth, orderIndex, optionIndex, option, accumulatedDiscount, pointsSpent);
+            }
+        }
+    }
+
+    private void descend(int nextDepth, long accumulatedDiscount, long pointsSpent) {
+        if(forkedChildren != null){
+            forkedChildren.add(new SearchTask(problem, pruning, incumbent, remainingLimits.clone(), trail.clone(),
+                    splitDepth, counters, deadline, relaxation, nextDepth, accumulatedDiscount, pointsSpent));
+            return;
+        }
+        solveRecursively(nextDepth, accumulatedDiscount, pointsSpent);
+    }
+
+    private void branchOnFixedAmounts(int depth,
+                                      int orderIndex,
+                                      int optionIndex,
+                                      CentsOption option,
+                                      long accumulatedDiscount,
+                                      long pointsSpent) {
+        int[] methodIndices = option.methodIndices;
+        if(methodIndices.length == 0){
+            return;
+        }
+        long[] amounts = option.amountsCents;
+        for(int i = 0; i < methodIndices.length; i++){
+            if(remainingLimits[methodIndices[i]] < amounts[i]){
+                return;
+            }
+        }
+
+        for(int i = 0; i < methodIndices.length; i++){
+            remainingLimits[methodIndices[i]] -= amounts[i];
+        }
+        trail[orderIndex] = problem.encodeDecision(optionIndex, CentsProblem.NO_CARD);
+        feasibleBranches++;
+        descend(depth + 1,
+                accumulatedDiscount + option.discountCents,
+                pointsSpent + option.tieBreakPointsCents);
+        for(int i = 0; i < methodIndices.length; i++){
+            remainingLimits[methodIndices[i]] += amounts[i];
+        }
+    }
+
+    private void branchOnPartialPoints(int depth,
+                                       int orderIndex,
+                                       int optionIndex,
+                                       CentsOption option,
+                                       long accumulatedDiscount,
+                                       long pointsSpent) {
+        int pointsIndex = problem.pointsIndex;
+        long pointsAvailable = remainingLimits[pointsIndex];
+        // at least 10% of the order value, compared exactly: points * 10 >= value
+        if(pointsAvailable * 10 < problem.orderValueCents[orderIndex]){
+            return;
+        }
+        long pointsToSpend = Math.min(pointsAvailable, option.maxPointsCents);
+        long cardAmount = option.finalPriceCents - pointsToSpend;
+        if(cardAmount <= 0){
+            return;
+        }
+
+        int[] cardIndices = problem.cardMethodIndices;
+        for(int cardSlot = 0; cardSlot < cardIndices.length; cardSlot++){
+            int cardIndex = cardIndices[cardSlot];
+            if(remainingLimits[cardIndex] < cardAmount || problem.skipsCard(remainingLimits, orderIndex, cardSlot)){
+                continue;
+            }
+            remainingLimits[pointsIndex] -= pointsToSpend;
+            remainingLimits[cardIndex] -= cardAmount;
+            trail[orderIndex] = problem.encodeDecision(optionIndex, cardSlot);
+            feasibleBranches++;
+            descend(depth + 1,
+                    accumulatedDiscount + option.discountCents,
+                    pointsSpent + pointsToSpend);
+            remainingLimits[pointsIndex] += pointsToSpend;
+            remainingLimits[cardIndex] += cardAmount;
+        }
+    }
+
+    private boolean cannotBeatIncumbent(int depth, long accumulatedDiscount, long pointsSpent) {
+        return incumbent.cannotBeat(accumulatedDiscount + problem.maxRemainingDiscountCents[depth], optimisticPoints(depth, pointsSpent));
+    }
+
+    private boolean relaxationCannotBeatIncumbent(int depth, long accumulatedDiscount, long pointsSpent) {
+        long remainingDiscount = relaxation.remainingBoundCents(relaxationWorkspace, depth, remainingLimits);
+        if(remainingDiscount >= problem.maxRemainingDiscountCents[depth]){
+            return false;
+        }
+        return incumbent.cannotBeat(accumulatedDiscount + remainingDiscount, optimisticPoints(depth, pointsSpent));
+    }
+
+    private long optimisticPoints(int depth, long pointsSpent) {
+        long pointsLeft = problem.pointsIndex < 0 ? 0 : remainingLimits[problem.pointsIndex];
+        return pointsSpent + Math.min(pointsLeft, problem.maxRemainingPointsCents[depth]);
+    }
+}
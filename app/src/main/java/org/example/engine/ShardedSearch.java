@@ -0,0 +1,267 @@
+package org.example.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.domain.AnytimeResult;
+import org.example.domain.AppliedPayment;
+import org.example.domain.OptimizerSettings;
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.io.AtomicFiles;
+import org.example.logic.PaymentOptionTable;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Branch and bound spread over processes that share a directory. partition walks the search tree down to a depth
+ * in depth-first order and writes every node there as a shard: its decisions so far, the limits left and what
+ * they earned. Any number of workers on the same basket then claim shards one at a time, by creating the shard's
+ * claim file, search them like a SearchTask and write the shard's best plan next to it; they share the best
+ * discount and points found so far through the bound file, see FileBoundIncumbent. merge picks the best plan over
+ * all shard results with the tie-breaks of SharedIncumbent, which is the plan PaymentOptimizer returns.
+ *
+ * The basket is searched whole, in file order and with the option reduction, but without the slack
+ * decomposition; full ties between cards go to the card listed first. Every file is tied to the basket by its
+ * ResultCache key. A worker that dies leaves its claim file behind; deleting it lets another worker solve the
+ * shard again.
+ */
+public final class ShardedSearch {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String MANIFEST_FILE = "shards.json";
+    private static final String BOUND_FILE = "bound";
+
+    private final Path directory;
+    private final CentsProblem problem;
+    private final String problemKey;
+
+    public ShardedSearch(Path directory, PreparedPaymentMethods paymentMethods, List<Order> basket) {
+        // the shared index follows Map.copyOf, whose order differs between JVMs; shards index methods the same everywhere
+        Map<String, PaymentMethod> methods = paymentMethods.paymentMethods();
+        PaymentMethodIndex methodIndex = PaymentMethodIndex.of(List.copyOf(methods.values()), methods.get("PUNKTY"),
+                PreparedPaymentMethods.cards(methods));
+        PaymentOptionTable optionTable = PaymentOptionTable.build(basket, paymentMethods.discountCalculator());
+        OptionReduction reduction = OptionReduction.reduce(optionTable, methodIndex);
+        this.problem = CentsProblem.from(reduction, methodIndex)
+                .orElseThrow(() -> new IllegalArgumentException("Amounts of the basket are too large to shard"));
+        this.directory = directory;
+        this.problemKey = ResultCache.key(paymentMethods, basket);
+    }
+
+    /*
+     * Writes the shards of all nodes at the given depth, or at the leaves of shallower baskets, that the greedy
+     * plan does not already beat, and seeds the bound file with that plan. Returns the number of shards.
+     */
+    public int partition(int depth) throws IOException {
+        if(depth < 0){
+            throw new IllegalArgumentException("Shard depth must not be negative: " + depth);
+        }
+        Files.createDirectories(directory);
+        if(Files.exists(directory.resolve(MANIFEST_FILE))){
+            throw new IllegalArgumentException("Directory already holds shards: " + directory);
+        }
+        int frontierDepth = Math.min(depth, problem.orderCount());
+        GreedySeed seed = GreedySeed.build(problem);
+        List<Shard> shards = new ArrayList<>();
+        enumerate(0, frontierDepth, problem.initialLimitsCents.clone(), new int[problem.orderCount()], 0, 0, seed, shards);
+
+        if(seed != null){
+            FileBoundIncumbent.publish(directory.resolve(BOUND_FILE), seed.discountCents, seed.pointsCents);
+        }
+        for(int index = 0; index < shards.size(); index++){
+            writeAtomically(shardFile(index), shards.get(index));
+        }
+        writeAtomically(directory.resolve(MANIFEST_FILE), new Manifest(problemKey, frontierDepth, shards.size()));
+        return shards.size();
+    }
+
+    /*
+     * Solves unclaimed shards until none are left or the settings' time budget or cancellation token stops this
+     * worker; the shard it was searching then is released again. Returns the number of shards it solved.
+     */
+    public int solve(OptimizerSettings settings) throws IOException {
+        Manifest manifest = readManifest();
+        SearchDeadline deadline = SearchDeadline.start(settings.getTimeBudget(), settings.getCancellationToken());
+        LinearRelaxation relaxation = settings.getRelaxationDepth() > 0
+                ? LinearRelaxation.of(problem, Math.min(settings.getRelaxationDepth(), problem.orderCount()))
+                : null;
+        int solved = 0;
+        for(int index = 0; index < manifest.shards(); index++){
+            if(Files.exists(resultFile(index))){
+                continue;
+            }
+            Path claim = claimFile(index);
+            try{
+                Files.createFile(claim);
+            } catch (FileAlreadyExistsException e) {
+                continue;
+            }
+            ShardResult result = search(MAPPER.readValue(shardFile(index).toFile(), Shard.class), deadline, relaxation);
+            if(result == null){
+                Files.deleteIfExists(claim);
+                break;
+            }
+            writeAtomically(resultFile(index), result);
+            solved++;
+        }
+        return solved;
+    }
+
+    /*
+     * The best plan over the solved shards. While some are not solved yet the result is incomplete, bounded by
+     * the most discount any unsolved shard could still add up to.
+     */
+    public AnytimeResult merge() throws IOException {
+        Manifest manifest = readManifest();
+        ShardResult best = null;
+        boolean complete = true;
+        long unsolvedBound = Long.MIN_VALUE;
+        for(int index = 0; index < manifest.shards(); index++){
+            if(!Files.exists(resultFile(index))){
+                complete = false;
+                unsolvedBound = Math.max(unsolvedBound, MAPPER.readValue(shardFile(index).toFile(), Shard.class).boundCents());
+                continue;
+            }
+            ShardResult result = MAPPER.readValue(resultFile(index).toFile(), ShardResult.class);
+            if(result.trail() != null && (best == null || result.isBetterThan(best))){
+                best = result;
+            }
+        }
+        long discount = best == null ? 0 : best.discountCents();
+        List<AppliedPayment> plan = best == null ? new ArrayList<>() : problem.materialize(best.trail());
+        long upperBound = complete ? discount : Math.max(discount, unsolvedBound);
+        return new AnytimeResult(plan, complete, Cents.toBigDecimal(discount), Cents.toBigDecimal(upperBound));
+    }
+
+    // the branches of SearchWorker, without an incumbent to prune with beyond the greedy plan
+    private void enumerate(int depth,
+                           int frontierDepth,
+                           long[] limits,
+                           int[] trail,
+                           long accumulatedDiscount,
+                           long pointsSpent,
+                           GreedySeed seed,
+                           List<Shard> shards) {
+        long boundCents = accumulatedDiscount + problem.maxRemainingDiscountCents[depth];
+        if(seed != null && beatenBy(seed, boundCents, optimisticPoints(depth, limits, pointsSpent))){
+            return;
+        }
+        if(depth == frontierDepth){
+            int[] decisions = new int[depth];
+            for(int d = 0; d < depth; d++){
+                decisions[d] = trail[problem.searchSequence[d]];
+            }
+            shards.add(new Shard(depth, decisions, limits.clone(), accumulatedDiscount, pointsSpent, boundCents));
+            return;
+        }
+
+        int orderIndex = problem.searchSequence[depth];
+        if(problem.orderValueCents[orderIndex] <= 0){
+            trail[orderIndex] = CentsProblem.ZERO_VALUE_DECISION;
+            enumerate(depth + 1, frontierDepth, limits, trail, accumulatedDiscount, pointsSpent, seed, shards);
+            return;
+        }
+        CentsOption[] options = problem.options[orderIndex];
+        for(int optionIndex : problem.optionSequence[orderIndex]){
+            CentsOption option = options[optionIndex];
+            if(!option.isPartialPoints() && problem.skipsFixedOption(limits, trail, orderIndex, optionIndex)){
+                continue;
+            }
+            for(int cardSlot = problem.firstCardSlot(option); cardSlot < problem.endCardSlot(option); cardSlot++){
+                if(cardSlot != CentsProblem.NO_CARD && problem.skipsCard(limits, orderIndex, cardSlot)){
+                    continue;
+                }
+                long pointsCharged = problem.charge(limits, orderIndex, option, cardSlot);
+                if(pointsCharged == CentsProblem.INFEASIBLE){
+                    continue;
+                }
+                int decision = problem.encodeDecision(optionIndex, cardSlot);
+                trail[orderIndex] = decision;
+                enumerate(depth + 1, frontierDepth, limits, trail,
+                        accumulatedDiscount + option.discountCents, pointsSpent + pointsCharged, seed, shards);
+                problem.refund(limits, orderIndex, decision, pointsCharged);
+            }
+        }
+    }
+
+    // null when the deadline stopped the search before it finished the shard
+    private ShardResult search(Shard shard, SearchDeadline deadline, LinearRelaxation relaxation) {
+        int[] trail = new int[problem.orderCount()];
+        for(int d = 0; d < shard.depth(); d++){
+            trail[problem.searchSequence[d]] = shard.decisions()[d];
+        }
+        FileBoundIncumbent incumbent = new FileBoundIncumbent(directory.resolve(BOUND_FILE));
+        SearchCounters counters = new SearchCounters();
+        new SearchWorker(problem, true, incumbent, shard.limitsCents().clone(), trail, 0, counters, deadline, relaxation)
+                .run(shard.depth(), shard.discountCents(), shard.pointsCents());
+        if(deadline.stopped()){
+            return null;
+        }
+        return new ShardResult(incumbent.bestTrail(), incumbent.bestDiscountCents(), incumbent.bestPointsCents(),
+                counters.snapshot(incumbent.improvements()).nodesVisited());
+    }
+
+    private long optimisticPoints(int depth, long[] limits, long pointsSpent) {
+        long pointsLeft = problem.pointsIndex < 0 ? 0 : limits[problem.pointsIndex];
+        return pointsSpent + Math.min(pointsLeft, problem.maxRemainingPointsCents[depth]);
+    }
+
+    // like SharedIncumbent, a node that can still tie with the greedy plan is kept
+    private static boolean beatenBy(GreedySeed seed, long optimisticDiscountCents, long optimisticPointsCents) {
+        if(optimisticDiscountCents != seed.discountCents){
+            return optimisticDiscountCents < seed.discountCents;
+        }
+        return optimisticPointsCents < seed.pointsCents;
+    }
+
+    private Manifest readManifest() throws IOException {
+        Path manifestFile = directory.resolve(MANIFEST_FILE);
+        if(!Files.exists(manifestFile)){
+            throw new IllegalArgumentException("Directory holds no shards: " + directory);
+        }
+        Manifest manifest = MAPPER.readValue(manifestFile.toFile(), Manifest.class);
+        if(!manifest.problemKey().equals(problemKey)){
+            throw new IllegalArgumentException("Shards in " + directory + " belong to another basket");
+        }
+        return manifest;
+    }
+
+    private void writeAtomically(Path target, Object value) throws IOException {
+        AtomicFiles.write(target, temporary -> MAPPER.writeValue(temporary.toFile(), value));
+    }
+
+    private Path shardFile(int index) {
+        return directory.resolve(String.format("shard-%06d.json", index));
+    }
+
+    private Path claimFile(int index) {
+        return directory.resolve(String.format("shard-%06d.claim", index));
+    }
+
+    private Path resultFile(int index) {
+        return directory.resolve(String.format("shard-%06d.result.json", index));
+    }
+
+    record Manifest(String problemKey, int depth, int shards) {}
+
+    // decisions by depth of the search sequence; boundCents is the most discount the shard can reach
+    record Shard(int depth, int[] decisions, long[] limitsCents, long discountCents, long pointsCents, long boundCents) {}
+
+    // trail is null when nothing in the shard could tie with the bound
+    record ShardResult(int[] trail, long discountCents, long pointsCents, long nodesVisited) {
+        boolean isBetterThan(ShardResult other) {
+            if(discountCents != other.discountCents){
+                return discountCents > other.discountCents;
+            }
+            if(pointsCents != other.pointsCents){
+                return pointsCents > other.pointsCents;
+            }
+            return Arrays.compare(trail, other.trail) < 0;
+        }
+    }
+}
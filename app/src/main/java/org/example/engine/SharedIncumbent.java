@@ -0,0 +1,91 @@
+package org.example.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Lock-free incumbent shared by all workers of a parallel search. Leaves no longer arrive in depth-first
+ * order, so a full tie is broken by the lexicographically smaller trail, which is the plan the sequential
+ * search would have kept. For the same reason a subtree that can at best tie is still explored.
+ */
+final class SharedIncumbent implements Incumbent {
+    private final AtomicReference<Best> best =
+            new AtomicReference<>(new Best(LocalIncumbent.NO_PLAN_DISCOUNT_CENTS, Long.MAX_VALUE, null));
+    private final LongAdder improvements = new LongAdder();
+    private final AtomicLong firstImprovementNanos = new AtomicLong();
+    private final AtomicLong lastImprovementNanos = new AtomicLong();
+
+    @Override
+    public boolean cannotBeat(long optimisticDiscountCents, long optimisticPointsCents) {
+        Best current = best.get();
+        if(optimisticDiscountCents != current.discountCents()){
+            return optimisticDiscountCents < current.discountCents();
+        }
+        return optimisticPointsCents < current.pointsCents();
+    }
+
+    @Override
+    public void offer(long discountCents, long pointsCents, int[] trail) {
+        Best candidate = null;
+        while(true){
+            Best current = best.get();
+            if(!isBetter(discountCents, pointsCents, trail, current)){
+                return;
+            }
+            if(candidate == null){
+                candidate = new Best(discountCents, pointsCents, trail.clone());
+            }
+            if(best.compareAndSet(current, candidate)){
+                long now = System.nanoTime();
+                improvements.increment();
+                firstImprovementNanos.compareAndSet(0, now);
+                lastImprovementNanos.accumulateAndGet(now, Math::max);
+                return;
+            }
+        }
+    }
+
+    private static boolean isBetter(long discountCents, long pointsCents, int[] trail, Best current) {
+        if(discountCents != current.discountCents()){
+            return discountCents > current.discountCents();
+        }
+        if(pointsCents != current.pointsCents()){
+            return pointsCents > current.pointsCents();
+        }
+        return current.trail() != null && Arrays.compare(trail, current.trail()) < 0;
+    }
+
+    @Override
+    public int[] bestTrail() {
+        return best.get().trail();
+    }
+
+    @Override
+    public long bestDiscountCents() {
+        return best.get().discountCents();
+    }
+
+    @Override
+    public long bestPointsCents() {
+        return best.get().pointsCents();
+    }
+
+    @Override
+    public long improvements() {
+        return improvements.sum();
+    }
+
+    @Override
+    public long firstImprovementNanos() {
+        return firstImprovementNanos.get();
+    }
+
+    @Override
+    public long lastImprovementNanos() {
+        return lastImprovementNanos.get();
+    }
+
+    private record Best(long discountCents, long pointsCents, int[] trail) {}
+}
@@ -0,0 +1,154 @@
+package org.example.engine;
+
+import org.example.domain.CalculatedPaymentOption;
+import org.example.domain.PaymentMethod;
+import org.example.domain.PaymentStrategyType;
+import org.example.logic.PaymentOptionTable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Finds the orders whose best payment does not depend on any other order. A method is slack when its limit covers
+ * the most every order could charge to it at once; no branch charging only slack methods is ever refused.
+ *
+ * With every method slack, each order takes its own best option, so every order is independent. With only the
+ * points method contended, an order is still independent when some option without points gives strictly more
+ * discount than every option with points: no optimal plan spends points on it. The remaining orders only compete
+ * for points and are searched together. Any other contention, an unknown method or a negative amount leaves the
+ * whole basket to the search.
+ */
+public final class SlackDecomposition {
+    private static final BigDecimal MIN_CARD_AMOUNT = new BigDecimal("0.01");
+    private static final BigDecimal MIN_POINTS_SHARE = new BigDecimal("0.10");
+
+    private final int[] independentOrders;
+    private final int[] contendedOrders;
+
+    private SlackDecomposition(int[] independentOrders, int[] contendedOrders) {
+        this.independentOrders = independentOrders;
+        this.contendedOrders = contendedOrders;
+    }
+
+    public static SlackDecomposition of(PaymentOptionTable table, PaymentMethodIndex methodIndex) {
+        int orderCount = table.size();
+        BigDecimal[] demand = new BigDecimal[methodIndex.size()];
+        BigDecimal[] orderDemand = new BigDecimal[methodIndex.size()];
+        Arrays.fill(demand, BigDecimal.ZERO);
+        for(int i = 0; i < orderCount; i++){
+            Arrays.fill(orderDemand, BigDecimal.ZERO);
+            if(table.order(i).value().signum() <= 0){
+                continue;
+            }
+            for(CalculatedPaymentOption option : table.options(i)){
+                if(!addDemand(option, table.order(i).value(), methodIndex, orderDemand)){
+                    return whole(orderCount);
+                }
+            }
+            for(int m = 0; m < demand.length; m++){
+                demand[m] = demand[m].add(orderDemand[m]);
+            }
+        }
+
+        int pointsIndex = methodIndex.pointsIndex();
+        boolean pointsContended = false;
+        for(int m = 0; m < demand.length; m++){
+            BigDecimal limit = methodIndex.method(m).getMethodLimit();
+            if(limit.signum() < 0){
+                return whole(orderCount);
+            }
+            if(limit.compareTo(demand[m]) < 0){
+                if(m != pointsIndex){
+                    return whole(orderCount);
+                }
+                pointsContended = true;
+            }
+        }
+
+        List<Integer> independent = new ArrayList<>();
+        List<Integer> contended = new ArrayList<>();
+        for(int i = 0; i < orderCount; i++){
+            if(!pointsContended || table.order(i).value().signum() <= 0 || avoidsPoints(table.options(i), methodIndex.pointsMethod())){
+                independent.add(i);
+            } else {
+                contended.add(i);
+            }
+        }
+        return new SlackDecomposition(toArray(independent), toArray(contended));
+    }
+
+    // solved alone with the full limits, each of these orders gets the payment it has in the optimal plan
+    public int[] independentOrders() {
+        return independentOrders;
+    }
+
+    // searched together with the full limits
+    public int[] contendedOrders() {
+        return contendedOrders;
+    }
+
+    public boolean isDecomposed() {
+        return independentOrders.length > 0 && independentOrders.length + contendedOrders.length > 1;
+    }
+
+    /*
+     * Most the option can charge per method, as the search realizes it: fixed options charge their amounts;
+     * partial points take at most the price less a cent, but never less than 10% of the order value, and leave
+     * at most the price to a card. False for charges the decomposition cannot reason about.
+     */
+    private static boolean addDemand(CalculatedPaymentOption option, BigDecimal orderValue, PaymentMethodIndex methodIndex, BigDecimal[] orderDemand) {
+        if(option.paymentStrategyType() == PaymentStrategyType.PARTIAL_POINTS_10_PERCENT_GLOBAL_DISCOUNT){
+            if(methodIndex.pointsIndex() == PaymentMethodIndex.UNKNOWN || option.finalPrice().signum() < 0){
+                return false;
+            }
+            BigDecimal points = option.finalPrice().subtract(MIN_CARD_AMOUNT).max(orderValue.multiply(MIN_POINTS_SHARE)).max(BigDecimal.ZERO);
+            raise(orderDemand, methodIndex.pointsIndex(), points);
+            for(int slot = 0; slot < methodIndex.cardCount(); slot++){
+                raise(orderDemand, methodIndex.cardIndex(slot), option.finalPrice());
+            }
+            return true;
+        }
+        for(Map.Entry<PaymentMethod, BigDecimal> entry : option.spent().entrySet()){
+            int index = methodIndex.indexOf(entry.getKey().getId());
+            if(index == PaymentMethodIndex.UNKNOWN || entry.getValue().signum() < 0){
+                return false;
+            }
+            raise(orderDemand, index, entry.getValue());
+        }
+        return true;
+    }
+
+    private static void raise(BigDecimal[] orderDemand, int index, BigDecimal amount) {
+        orderDemand[index] = orderDemand[index].max(amount);
+    }
+
+    private static boolean avoidsPoints(List<CalculatedPaymentOption> options, PaymentMethod pointsMethod) {
+        BigDecimal bestWithoutPoints = null;
+        BigDecimal bestWithPoints = null;
+        for(CalculatedPaymentOption option : options){
+            boolean usesPoints = option.paymentStrategyType() == PaymentStrategyType.PARTIAL_POINTS_10_PERCENT_GLOBAL_DISCOUNT
+                    || option.spent().containsKey(pointsMethod);
+            if(usesPoints){
+                bestWithPoints = bestWithPoints == null ? option.discountAmount() : bestWithPoints.max(option.discountAmount());
+            } else if(!option.spent().isEmpty()){
+                bestWithoutPoints = bestWithoutPoints == null ? option.discountAmount() : bestWithoutPoints.max(option.discountAmount());
+            }
+        }
+        return bestWithPoints == null || (bestWithoutPoints != null && bestWithoutPoints.compareTo(bestWithPoints) > 0);
+    }
+
+    private static SlackDecomposition whole(int orderCount) {
+        int[] all = new int[orderCount];
+        for(int i = 0; i < orderCount; i++){
+            all[i] = i;
+        }
+        return new SlackDecomposition(new int[0], all);
+    }
+
+    private static int[] toArray(List<Integer> orders) {
+        return orders.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
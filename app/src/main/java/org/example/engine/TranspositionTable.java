@@ -0,0 +1,138 @@
+package org.example.engine;
+
+import java.util.Arrays;
+
+/*
+ * Fixed-capacity cache of solved search states, laid out in parallel primitive arrays.
+ * A state is an order index plus the canonical remaining limits; each slot keeps the full key so a lookup
+ * never returns another state's result. Slots are grouped in buckets of four: a store into a full bucket
+ * evicts the entry with the highest order index, the one whose subtree is cheapest to solve again.
+ */
+final class TranspositionTable {
+    static final int NOT_FOUND = -1;
+    private static final int BUCKET_SIZE = 4;
+    private static final long EMPTY = 0;
+
+    private final int keyWidth;
+    private final int bucketMask;
+    private final long[] hashes;
+    private final int[] orderIndices;
+    private final long[] keyLimits;
+    private final long[] discounts;
+    private final long[] points;
+    private final int[] decisions;
+
+    private long lookups;
+    private long hits;
+    private long evictions;
+    private int size;
+
+    TranspositionTable(int requestedEntries, int keyWidth) {
+        int buckets = Integer.highestOneBit(Math.max(requestedEntries / BUCKET_SIZE, 1));
+        int capacity = buckets * BUCKET_SIZE;
+        this.keyWidth = keyWidth;
+        this.bucketMask = buckets - 1;
+        this.hashes = new long[capacity];
+        this.orderIndices = new int[capacity];
+        this.keyLimits = new long[capacity * keyWidth];
+        this.discounts = new long[capacity];
+        this.points = new long[capacity];
+        this.decisions = new int[capacity];
+    }
+
+    int find(int orderIndex, long[] key) {
+        lookups++;
+        long hash = hash(orderIndex, key);
+        int first = bucketStart(hash);
+        for(int slot = first; slot < first + BUCKET_SIZE; slot++){
+            if(hashes[slot] == hash && matches(slot, orderIndex, key)){
+                hits++;
+                return slot;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    void store(int orderIndex, long[] key, long discount, long pointsSpent, int decision) {
+        long hash = hash(orderIndex, key);
+        int first = bucketStart(hash);
+        int target = NOT_FOUND;
+        int shallowest = first;
+        for(int slot = first; slot < first + BUCKET_SIZE; slot++){
+            if(hashes[slot] == EMPTY || (hashes[slot] == hash && matches(slot, orderIndex, key))){
+                target = slot;
+                break;
+            }
+            if(orderIndices[slot] > orderIndices[shallowest]){
+                shallowest = slot;
+            }
+        }
+        if(target == NOT_FOUND){
+            target = shallowest;
+            evictions++;
+        } else if(hashes[target] == EMPTY){
+            size++;
+        }
+
+        hashes[target] = hash;
+        orderIndices[target] = orderIndex;
+        System.arraycopy(key, 0, keyLimits, target * keyWidth, keyWidth);
+        discounts[target] = discount;
+        points[target] = pointsSpent;
+        decisions[target] = decision;
+    }
+
+    long discount(int slot) {
+        return discounts[slot];
+    }
+
+    long points(int slot) {
+        return points[slot];
+    }
+
+    int decision(int slot) {
+        return decisions[slot];
+    }
+
+    long lookups() {
+        return lookups;
+    }
+
+    long hits() {
+        return hits;
+    }
+
+    long evictions() {
+        return evictions;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long memoryBytes() {
+        return (long) hashes.length * (Long.BYTES * 3 + Integer.BYTES * 2) + (long) keyLimits.length * Long.BYTES;
+    }
+
+    private boolean matches(int slot, int orderIndex, long[] key) {
+        if(orderIndices[slot] != orderIndex){
+            return false;
+        }
+        int offset = slot * keyWidth;
+        return Arrays.equals(keyLimits, offset, offset + keyWidth, key, 0, keyWidth);
+    }
+
+    private int bucketStart(long hash) {
+        return ((int) (hash ^ (hash >>> 32)) & bucketMask) * BUCKET_SIZE;
+    }
+
+    private static long hash(int orderIndex, long[] key) {
+        long hash = 0x9E3779B97F4A7C15L * (orderIndex + 1);
+        for(long limit : key){
+            hash = Long.rotateLeft(hash ^ limit, 27) * 0xBF58476D1CE4E5B9L;
+        }
+        hash ^= hash >>> 31;
+        // 0 marks an empty slot
+        return hash == EMPTY ? 1 : hash;
+    }
+}
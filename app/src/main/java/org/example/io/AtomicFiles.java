@@ -0,0 +1,38 @@
+package org.example.io;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/*
+ * Replaces files that other threads or processes may read at any time: the contents go to a temporary file next
+ * to the target, which is then moved over it, so readers see the old file or the new one but never a part.
+ * Where the file system cannot move atomically the move is a plain replace.
+ */
+public final class AtomicFiles {
+    private AtomicFiles() {}
+
+    // returns the size of the file written; the temporary file is gone afterwards, whether or not writing failed
+    public static long write(Path target, IOConsumer<Path> contents) throws IOException {
+        Path temporary = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try{
+            contents.accept(temporary);
+            long bytes = Files.size(temporary);
+            try{
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return bytes;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @FunctionalInterface
+    public interface IOConsumer<T> {
+        void accept(T value) throws IOException;
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.loader;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * Reads a top-level JSON array one object at a time, so only the element being parsed is held in memory.
+ * Parse errors surface from the stream as UncheckedIOException; closing the stream closes the parser.
+ */
+abstract class JsonArraySpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+    private final JsonParser parser;
+
+    JsonArraySpliterator(JsonParser parser) throws IOException {
+        super(Long.MAX_VALUE, ORDERED | NONNULL);
+        this.parser = parser;
+        JsonToken first = parser.nextToken();
+        if(first != JsonToken.START_ARRAY){
+            throw new JsonParseException(parser, first == null
+                    ? "No content to map due to end-of-input"
+                    : "Expected a JSON array but found " + first);
+        }
+    }
+
+    // called with the parser on START_OBJECT, must leave it on the matching END_OBJECT
+    abstract T readElement(JsonParser parser) throws IOException;
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        try{
+            JsonToken token = parser.nextToken();
+            if(token == JsonToken.END_ARRAY){
+                return false;
+            }
+            if(token != JsonToken.START_OBJECT){
+                throw new JsonParseException(parser, "Expected a JSON object but found " + token);
+            }
+            action.accept(readElement(parser));
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Stream<T> stream() {
+        return StreamSupport.stream(this, false).onClose(() -> {
+            try{
+                parser.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // scalar field as text, numbers keep their literal form; null stays null
+    static String readText(JsonParser parser, Class<?> targetType, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        if(token == JsonToken.VALUE_NULL){
+            return null;
+        }
+        if(!token.isScalarValue()){
+            throw new JsonParseException(parser, "Expected a text value for " + targetType.getSimpleName() + "." + field + " but found " + token);
+        }
+        return parser.getText();
+    }
+
+    // the fields are fixed, so a typo in the input is reported rather than skipped
+    static JsonParseException unknownField(JsonParser parser, Class<?> targetType, String field) {
+        return new JsonParseException(parser, "Unrecognized field \"" + field + "\" for " + targetType.getSimpleName());
+    }
+}
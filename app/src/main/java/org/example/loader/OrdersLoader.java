@@ -1,23 +1,28 @@
 package org.example.loader;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.example.domain.Order;
 import org.example.domain.PaymentMethod;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class OrdersLoader {
-    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
 
     public OrdersLoader() {
-        objectMapper = new ObjectMapper();
+        jsonFactory = new JsonFactory();
     }
 
     public List<Order> loadOrders(String filePath, Map<String, PaymentMethod> availablePaymentMethods) throws IOException {
@@ -26,10 +31,82 @@ public class OrdersLoader {
             throw new IOException("File not found or it's not a file: " + filePath);
         }
 
-        List<RawOrder> rawOrders = objectMapper.readValue(file, new TypeReference<>() {});
-        return rawOrders.stream()
-                .map(rawOrder -> transformToOrder(rawOrder, availablePaymentMethods))
-                .collect(Collectors.toList());
+        try(Stream<Order> orders = streamOrders(filePath, availablePaymentMethods)){
+            return orders.collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /*
+     * Parses orders lazily, one at a time, with the same validation as loadOrders. The stream holds the file open
+     * until it is closed; I/O and syntax errors met while consuming it are thrown as UncheckedIOException.
+     */
+    public Stream<Order> streamOrders(String filePath, Map<String, PaymentMethod> availablePaymentMethods) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists() || !file.isFile()) {
+            throw new IOException("File not found or it's not a file: " + filePath);
+        }
+
+        JsonParser parser = jsonFactory.createParser(file);
+        try{
+            return new JsonArraySpliterator<Order>(parser) {
+                @Override
+                Order readElement(JsonParser elementParser) throws IOException {
+                    return transformToOrder(readRawOrder(elementParser), availablePaymentMethods);
+                }
+            }.stream();
+        } catch (IOException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    /*
+     * Reads an orders array from a parser the caller owns, e.g. one field of a larger document; the parser must be
+     * positioned just before the array and is left on its END_ARRAY.
+     */
+    public List<Order> readOrders(JsonParser parser, Map<String, PaymentMethod> availablePaymentMethods) throws IOException {
+        JsonArraySpliterator<Order> orders = new JsonArraySpliterator<>(parser) {
+            @Override
+            Order readElement(JsonParser elementParser) throws IOException {
+                return transformToOrder(readRawOrder(elementParser), availablePaymentMethods);
+            }
+        };
+        try{
+            return StreamSupport.stream(orders, false).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static RawOrder readRawOrder(JsonParser parser) throws IOException {
+        RawOrder rawOrder = new RawOrder();
+        while(parser.nextToken() == JsonToken.FIELD_NAME){
+            String field = parser.currentName();
+            parser.nextToken();
+            switch(field){
+                case "id" -> rawOrder.id = JsonArraySpliterator.readText(parser, RawOrder.class, field);
+                case "value" -> rawOrder.value = JsonArraySpliterator.readText(parser, RawOrder.class, field);
+                case "promotions" -> rawOrder.promotions = readPromotions(parser);
+                default -> throw JsonArraySpliterator.unknownField(parser, RawOrder.class, field);
+            }
+        }
+        return rawOrder;
+    }
+
+    private static List<String> readPromotions(JsonParser parser) throws IOException {
+        if(parser.currentToken() == JsonToken.VALUE_NULL){
+            return null;
+        }
+        if(parser.currentToken() != JsonToken.START_ARRAY){
+            throw new JsonParseException(parser, "Expected an array for RawOrder.promotions but found " + parser.currentToken());
+        }
+        List<String> promotions = new ArrayList<>();
+        while(parser.nextToken() != JsonToken.END_ARRAY){
+            promotions.add(JsonArraySpliterator.readText(parser, RawOrder.class, "promotions"));
+        }
+        return promotions;
     }
 
     private Order transformToOrder(RawOrder rawOrder, Map<String, PaymentMethod> availablePaymentMethods) {
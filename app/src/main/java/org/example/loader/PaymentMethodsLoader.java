@@ -1,21 +1,24 @@
 package org.example.loader;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.example.domain.PaymentMethod;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class PaymentMethodsLoader {
-    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
 
     public PaymentMethodsLoader() {
-        objectMapper = new ObjectMapper();
+        jsonFactory = new JsonFactory();
     }
 
     public Map<String, PaymentMethod> loadPaymentMethods(String filePath) throws IOException {
@@ -25,15 +28,77 @@ public class PaymentMethodsLoader {
             throw new IOException("File not found or it's not a file: " + filePath);
         }
 
-        List<RawPaymentMethod> rawPaymentMethods = objectMapper.readValue(file, new TypeReference<>() {});
+        try(Stream<PaymentMethod> paymentMethods = streamPaymentMethods(filePath)){
+            return collectById(paymentMethods);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /*
+     * Reads a payment methods array from a parser the caller owns, e.g. one field of a larger document; the parser
+     * must be positioned just before the array and is left on its END_ARRAY.
+     */
+    public Map<String, PaymentMethod> readPaymentMethods(JsonParser parser) throws IOException {
+        JsonArraySpliterator<PaymentMethod> paymentMethods = new JsonArraySpliterator<>(parser) {
+            @Override
+            PaymentMethod readElement(JsonParser elementParser) throws IOException {
+                return transformToPaymentMethod(readRawPaymentMethod(elementParser));
+            }
+        };
+        try{
+            return collectById(StreamSupport.stream(paymentMethods, false));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /*
+     * Parses payment methods lazily, one at a time, with the same validation as loadPaymentMethods except the
+     * duplicate ID check, which needs the whole file. The stream holds the file open until it is closed.
+     */
+    public Stream<PaymentMethod> streamPaymentMethods(String filePath) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists() || !file.isFile()) {
+            throw new IOException("File not found or it's not a file: " + filePath);
+        }
 
-        return rawPaymentMethods.stream()
-                .map(this::transformToPaymentMethod)
+        JsonParser parser = jsonFactory.createParser(file);
+        try{
+            return new JsonArraySpliterator<PaymentMethod>(parser) {
+                @Override
+                PaymentMethod readElement(JsonParser elementParser) throws IOException {
+                    return transformToPaymentMethod(readRawPaymentMethod(elementParser));
+                }
+            }.stream();
+        } catch (IOException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    private static Map<String, PaymentMethod> collectById(Stream<PaymentMethod> paymentMethods) {
+        return paymentMethods
                 .collect(Collectors.toMap(PaymentMethod::getId, paymentMethod -> paymentMethod, (PM1, PM2) -> {
                     throw new IllegalArgumentException("Duplicate PaymentMethod ID: " + PM1.getId());
                 }));
     }
 
+    private static RawPaymentMethod readRawPaymentMethod(JsonParser parser) throws IOException {
+        RawPaymentMethod rawPaymentMethod = new RawPaymentMethod();
+        while(parser.nextToken() == JsonToken.FIELD_NAME){
+            String field = parser.currentName();
+            parser.nextToken();
+            switch(field){
+                case "id" -> rawPaymentMethod.id = JsonArraySpliterator.readText(parser, RawPaymentMethod.class, field);
+                case "discount" -> rawPaymentMethod.discount = JsonArraySpliterator.readText(parser, RawPaymentMethod.class, field);
+                case "limit" -> rawPaymentMethod.limit = JsonArraySpliterator.readText(parser, RawPaymentMethod.class, field);
+                default -> throw JsonArraySpliterator.unknownField(parser, RawPaymentMethod.class, field);
+            }
+        }
+        return rawPaymentMethod;
+    }
+
     private PaymentMethod transformToPaymentMethod(RawPaymentMethod rawPaymentMethod) {
         BigDecimal discount;
         try{
@@ -0,0 +1,37 @@
+package org.example.loader;
+
+/*
+ * Layout of a binary snapshot, big-endian, fixed-size records so an order is located by its index:
+ *
+ *   header   magic, version, methodCount, orderCount, promotionWords, stringCount, 4 section offsets
+ *   methods  per method: id string, discount scale, discount unscaled value, limit in cents
+ *   orders   per order: id string, value in cents, promotions as a bitset over method indices
+ *   strings  stringCount + 1 offsets into the UTF-8 data that follows them
+ */
+final class SnapshotFormat {
+    static final int MAGIC = 0x53444F53; // "SDOS"
+    static final short VERSION = 1;
+
+    static final int METHOD_COUNT_OFFSET = 8;
+    static final int ORDER_COUNT_OFFSET = 12;
+    static final int PROMOTION_WORDS_OFFSET = 16;
+    static final int STRING_COUNT_OFFSET = 20;
+    static final int METHODS_SECTION_OFFSET = 24;
+    static final int ORDERS_SECTION_OFFSET = 32;
+    static final int STRING_OFFSETS_SECTION_OFFSET = 40;
+    static final int STRING_DATA_SECTION_OFFSET = 48;
+    static final int HEADER_BYTES = 56;
+
+    static final int METHOD_RECORD_BYTES = 24;
+    static final int ORDER_RECORD_FIXED_BYTES = 16;
+
+    private SnapshotFormat() {}
+
+    static int promotionWords(int methodCount) {
+        return (methodCount + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    static int orderRecordBytes(int promotionWords) {
+        return ORDER_RECORD_FIXED_BYTES + promotionWords * Long.BYTES;
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.loader;
+
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/*
+ * Memory-maps a snapshot written by SnapshotWriter. Payment methods are decoded up front; orders stay in the
+ * mapping and are decoded from their fixed-size record whenever the list returned by orders() is read.
+ */
+public class SnapshotLoader {
+
+    public static boolean isSnapshot(Path path) throws IOException {
+        if(!Files.isRegularFile(path) || Files.size(path) < SnapshotFormat.HEADER_BYTES){
+            return false;
+        }
+        try(InputStream input = Files.newInputStream(path)){
+            byte[] magic = input.readNBytes(Integer.BYTES);
+            return ByteBuffer.wrap(magic).getInt() == SnapshotFormat.MAGIC;
+        }
+    }
+
+    public Snapshot load(Path path) throws IOException {
+        if(!Files.isRegularFile(path)){
+            throw new IOException("File not found or it's not a file: " + path);
+        }
+        MappedByteBuffer buffer;
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new IOException("Snapshot larger than 2 GB: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if(buffer.capacity() < SnapshotFormat.HEADER_BYTES || buffer.getInt(0) != SnapshotFormat.MAGIC){
+            throw new IOException("Not a snapshot file: " + path);
+        }
+        if(buffer.getShort(Integer.BYTES) != SnapshotFormat.VERSION){
+            throw new IOException("Unsupported snapshot version " + buffer.getShort(Integer.BYTES) + ": " + path);
+        }
+        return new Snapshot(buffer);
+    }
+
+    public static final class Snapshot {
+        private final ByteBuffer buffer;
+        private final int orderCount;
+        private final int promotionWords;
+        private final int ordersOffset;
+        private final int orderRecordBytes;
+        private final int stringOffsetsOffset;
+        private final int stringDataOffset;
+        private final List<PaymentMethod> methods;
+        private final Map<String, PaymentMethod> paymentMethods;
+        private final List<Order> orders;
+
+        private Snapshot(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            int methodCount = buffer.getInt(SnapshotFormat.METHOD_COUNT_OFFSET);
+            this.orderCount = buffer.getInt(SnapshotFormat.ORDER_COUNT_OFFSET);
+            this.promotionWords = buffer.getInt(SnapshotFormat.PROMOTION_WORDS_OFFSET);
+            int stringCount = buffer.getInt(SnapshotFormat.STRING_COUNT_OFFSET);
+            int methodsOffset = section(SnapshotFormat.METHODS_SECTION_OFFSET);
+            this.ordersOffset = section(SnapshotFormat.ORDERS_SECTION_OFFSET);
+            this.orderRecordBytes = SnapshotFormat.orderRecordBytes(promotionWords);
+            this.stringOffsetsOffset = section(SnapshotFormat.STRING_OFFSETS_SECTION_OFFSET);
+            this.stringDataOffset = section(SnapshotFormat.STRING_DATA_SECTION_OFFSET);
+            if(promotionWords != SnapshotFormat.promotionWords(methodCount)
+                    || (long) ordersOffset + (long) orderCount * orderRecordBytes > stringOffsetsOffset
+                    || (long) stringDataOffset + buffer.getInt(stringOffsetsOffset + stringCount * Integer.BYTES) > buffer.capacity()){
+                throw new IOException("Corrupt snapshot: sections do not fit the file");
+            }
+
+            this.methods = new ArrayList<>(methodCount);
+            this.paymentMethods = new LinkedHashMap<>();
+            for(int i = 0; i < methodCount; i++){
+                int record = methodsOffset + i * SnapshotFormat.METHOD_RECORD_BYTES;
+                String id = string(buffer.getInt(record));
+                BigDecimal discount = BigDecimal.valueOf(buffer.getLong(record + 8), buffer.getInt(record + 4));
+                PaymentMethod method = new PaymentMethod(id, discount, BigDecimal.valueOf(buffer.getLong(record + 16), 2));
+                methods.add(method);
+                paymentMethods.put(id, method);
+            }
+            this.orders = new OrderView();
+        }
+
+        public Map<String, PaymentMethod> paymentMethods() {
+            return paymentMethods;
+        }
+
+        // a read-only view; every get decodes a fresh Order from the mapping
+        public List<Order> orders() {
+            return orders;
+        }
+
+        private int section(int headerOffset) throws IOException {
+            long offset = buffer.getLong(headerOffset);
+            if(offset < SnapshotFormat.HEADER_BYTES || offset > buffer.capacity()){
+                throw new IOException("Corrupt snapshot: section offset " + offset + " outside the file");
+            }
+            return (int) offset;
+        }
+
+        private String string(int index) {
+            int start = buffer.getInt(stringOffsetsOffset + index * Integer.BYTES);
+            int end = buffer.getInt(stringOffsetsOffset + (index + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            buffer.get(stringDataOffset + start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private Order decodeOrder(int index) {
+            int record = ordersOffset + index * orderRecordBytes;
+            List<PaymentMethod> promotions = new ArrayList<>();
+            for(int word = 0; word < promotionWords; word++){
+                long bits = buffer.getLong(record + SnapshotFormat.ORDER_RECORD_FIXED_BYTES + word * Long.BYTES);
+                while(bits != 0){
+                    promotions.add(methods.get(word * Long.SIZE + Long.numberOfTrailingZeros(bits)));
+                    bits &= bits - 1;
+                }
+            }
+            return new Order(string(buffer.getInt(record)), BigDecimal.valueOf(buffer.getLong(record + 8), 2), promotions);
+        }
+
+        private final class OrderView extends AbstractList<Order> implements RandomAccess {
+            @Override
+            public Order get(int index) {
+                if(index < 0 || index >= orderCount){
+                    throw new IndexOutOfBoundsException("Order index " + index + " out of " + orderCount);
+                }
+                return decodeOrder(index);
+            }
+
+            @Override
+            public int size() {
+                return orderCount;
+            }
+        }
+    }
+}
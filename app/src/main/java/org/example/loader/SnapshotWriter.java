@@ -0,0 +1,134 @@
+package org.example.loader;
+
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.io.AtomicFiles;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/*
+ * Converts loaded orders and payment methods into a snapshot, see SnapshotFormat. Orders are written as they
+ * come, so a streamed orders file is never held in memory; only the ID strings are kept until the end.
+ * Promotions are stored as a set, so they load back in payment method order and without duplicates.
+ * The snapshot is completed, header included, in a temporary file that then replaces target, so a write that
+ * fails or is cut short leaves any earlier snapshot at target as it was.
+ */
+public class SnapshotWriter {
+
+    public void write(Path target, Map<String, PaymentMethod> paymentMethods, Iterator<Order> orders) throws IOException {
+        AtomicFiles.write(target, temporary -> writeSnapshot(temporary, paymentMethods, orders));
+    }
+
+    private static void writeSnapshot(Path file, Map<String, PaymentMethod> paymentMethods, Iterator<Order> orders) throws IOException {
+        List<PaymentMethod> methods = new ArrayList<>(paymentMethods.values());
+        Map<String, Integer> methodIndices = new HashMap<>();
+        for(int i = 0; i < methods.size(); i++){
+            methodIndices.put(methods.get(i).getId(), i);
+        }
+        int promotionWords = SnapshotFormat.promotionWords(methods.size());
+        List<byte[]> strings = new ArrayList<>();
+
+        long methodsOffset = SnapshotFormat.HEADER_BYTES;
+        long ordersOffset = methodsOffset + (long) methods.size() * SnapshotFormat.METHOD_RECORD_BYTES;
+        int orderCount = 0;
+        long stringOffsetsOffset;
+        long stringDataOffset;
+
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))){
+            output.write(new byte[SnapshotFormat.HEADER_BYTES]);
+            for(PaymentMethod method : methods){
+                BigDecimal discount = method.getDiscountPercentage();
+                output.writeInt(addString(strings, method.getId()));
+                output.writeInt(discount.scale());
+                output.writeLong(exactLong(discount.unscaledValue()::longValueExact, method.getId()));
+                output.writeLong(exactLong(method.getMethodLimit().movePointRight(2)::longValueExact, method.getId()));
+            }
+
+            long[] promotions = new long[promotionWords];
+            while(orders.hasNext()){
+                Order order = orders.next();
+                output.writeInt(addString(strings, order.id()));
+                output.writeInt(0);
+                output.writeLong(exactLong(order.value().movePointRight(2)::longValueExact, order.id()));
+                Arrays.fill(promotions, 0);
+                for(PaymentMethod promotion : order.applicablePromotions()){
+                    Integer index = methodIndices.get(promotion.getId());
+                    if(index == null){
+                        throw new IllegalArgumentException("Order " + order.id() + " references unknown PaymentMethod ID: " + promotion.getId());
+                    }
+                    promotions[index / Long.SIZE] |= 1L << (index % Long.SIZE);
+                }
+                for(long word : promotions){
+                    output.writeLong(word);
+                }
+                orderCount++;
+            }
+
+            stringOffsetsOffset = ordersOffset + (long) orderCount * SnapshotFormat.orderRecordBytes(promotionWords);
+            stringDataOffset = stringOffsetsOffset + (long) (strings.size() + 1) * Integer.BYTES;
+            int offset = 0;
+            output.writeInt(offset);
+            for(byte[] string : strings){
+                offset = Math.addExact(offset, string.length);
+                output.writeInt(offset);
+            }
+            for(byte[] string : strings){
+                output.write(string);
+            }
+        }
+
+        writeHeader(file, methods.size(), orderCount, promotionWords, strings.size(),
+                methodsOffset, ordersOffset, stringOffsetsOffset, stringDataOffset);
+    }
+
+    private static void writeHeader(Path target,
+                                    int methodCount,
+                                    int orderCount,
+                                    int promotionWords,
+                                    int stringCount,
+                                    long methodsOffset,
+                                    long ordersOffset,
+                                    long stringOffsetsOffset,
+                                    long stringDataOffset) throws IOException {
+        try(RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")){
+            file.writeInt(SnapshotFormat.MAGIC);
+            file.writeShort(SnapshotFormat.VERSION);
+            file.writeShort(0);
+            file.writeInt(methodCount);
+            file.writeInt(orderCount);
+            file.writeInt(promotionWords);
+            file.writeInt(stringCount);
+            file.writeLong(methodsOffset);
+            file.writeLong(ordersOffset);
+            file.writeLong(stringOffsetsOffset);
+            file.writeLong(stringDataOffset);
+        }
+    }
+
+    private static int addString(List<byte[]> strings, String value) {
+        strings.add(value.getBytes(StandardCharsets.UTF_8));
+        return strings.size() - 1;
+    }
+
+    private static long exactLong(LongSupplier conversion, String id) {
+        try{
+            return conversion.getAsLong();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount does not fit in a snapshot for ID: " + id, e);
+        }
+    }
+}
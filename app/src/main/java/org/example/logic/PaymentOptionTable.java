@@ -0,0 +1,67 @@
+package org.example.logic;
+
+import org.example.domain.CalculatedPaymentOption;
+import org.example.domain.Order;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public final class PaymentOptionTable {
+    private static final int PARALLEL_BUILD_THRESHOLD = 64;
+
+    private final List<Order> orders;
+    private final List<List<CalculatedPaymentOption>> optionsByOrder;
+
+    private PaymentOptionTable(List<Order> orders, List<List<CalculatedPaymentOption>> optionsByOrder) {
+        this.orders = orders;
+        this.optionsByOrder = optionsByOrder;
+    }
+
+    public static PaymentOptionTable build(List<Order> orders, DiscountCalculator discountCalculator) {
+        List<Order> orderSnapshot = List.copyOf(orders);
+        IntStream indices = IntStream.range(0, orderSnapshot.size());
+        if(orderSnapshot.size() >= PARALLEL_BUILD_THRESHOLD){
+            indices = indices.parallel();
+        }
+        List<List<CalculatedPaymentOption>> optionsByOrder = indices
+                .mapToObj(i -> optionsFor(orderSnapshot.get(i), discountCalculator))
+                .toList();
+        return new PaymentOptionTable(orderSnapshot, optionsByOrder);
+    }
+
+    private static List<CalculatedPaymentOption> optionsFor(Order order, DiscountCalculator discountCalculator) {
+        if(order.value().compareTo(BigDecimal.ZERO) <= 0){
+            return List.of();
+        }
+        return List.copyOf(discountCalculator.calculateOptionsForOrder(order));
+    }
+
+    // same orders, options replaced, e.g. by a reduction that drops branches the search never needs
+    public PaymentOptionTable withOptions(List<List<CalculatedPaymentOption>> optionsByOrder) {
+        if(optionsByOrder.size() != orders.size()){
+            throw new IllegalArgumentException("Expected options for " + orders.size() + " orders, got " + optionsByOrder.size());
+        }
+        return new PaymentOptionTable(orders, optionsByOrder.stream().map(List::copyOf).toList());
+    }
+
+    public int size() {
+        return orders.size();
+    }
+
+    public Order order(int orderIndex) {
+        return orders.get(orderIndex);
+    }
+
+    public List<CalculatedPaymentOption> options(int orderIndex) {
+        return optionsByOrder.get(orderIndex);
+    }
+
+    public long optionCount() {
+        long count = 0;
+        for(List<CalculatedPaymentOption> options : optionsByOrder){
+            count += options.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.metrics;
+
+public enum Phase {
+    LOAD,
+    OPTION_GENERATION,
+    SEARCH,
+    AGGREGATION
+}
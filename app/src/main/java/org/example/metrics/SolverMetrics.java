@@ -0,0 +1,231 @@
+package org.example.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.domain.SearchStatistics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Process-wide solver counters and phase timers, safe to update from any thread. Search counters are taken
+ * from SearchStatistics once per solve, so the search itself pays nothing extra. DISABLED ignores every
+ * update after a single field read; it is the default of OptimizerSettings.
+ */
+public final class SolverMetrics implements SolverMetricsMXBean {
+    public static final SolverMetrics DISABLED = new SolverMetrics(false);
+    public static final String OBJECT_NAME = "org.example:type=SolverMetrics";
+
+    private final boolean enabled;
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder nodesVisited = new LongAdder();
+    private final LongAdder nodesPruned = new LongAdder();
+    private final LongAdder optionsGenerated = new LongAdder();
+    private final LongAdder feasibleBranches = new LongAdder();
+    private final LongAdder incumbentImprovements = new LongAdder();
+    private final LongAdder ordersLoaded = new LongAdder();
+    private final LongAdder paymentMethodsLoaded = new LongAdder();
+    private final AtomicLong lastTimeToFirstSolutionNanos = new AtomicLong(-1);
+    // double bits of the mean candidate branches per order of the last reduced solve
+    private final AtomicLong lastBranchingFactorBefore = new AtomicLong();
+    private final AtomicLong lastBranchingFactorAfter = new AtomicLong();
+    private final Map<Phase, PhaseTimer> phases = new EnumMap<>(Phase.class);
+
+    private SolverMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for(Phase phase : Phase.values()){
+            phases.put(phase, new PhaseTimer());
+        }
+    }
+
+    public static SolverMetrics create() {
+        return new SolverMetrics(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // pass the result to stop(); 0 when disabled, so no clock is read
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void stop(Phase phase, long startNanos) {
+        if(enabled){
+            phases.get(phase).record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void recordSearch(SearchStatistics statistics, long timeToFirstSolutionNanos) {
+        if(!enabled){
+            return;
+        }
+        solves.increment();
+        nodesVisited.add(statistics.nodesVisited());
+        nodesPruned.add(statistics.nodesPruned());
+        feasibleBranches.add(statistics.feasibleBranches());
+        incumbentImprovements.add(statistics.incumbentImprovements());
+        lastTimeToFirstSolutionNanos.set(timeToFirstSolutionNanos);
+    }
+
+    public void recordOptionsGenerated(long options) {
+        if(enabled){
+            optionsGenerated.add(options);
+        }
+    }
+
+    public void recordReduction(double branchingFactorBefore, double branchingFactorAfter) {
+        if(enabled){
+            lastBranchingFactorBefore.set(Double.doubleToLongBits(branchingFactorBefore));
+            lastBranchingFactorAfter.set(Double.doubleToLongBits(branchingFactorAfter));
+        }
+    }
+
+    public void recordLoaded(long orders, long paymentMethods) {
+        if(enabled){
+            ordersLoaded.add(orders);
+            paymentMethodsLoaded.add(paymentMethods);
+        }
+    }
+
+    public void registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if(server.isRegistered(name)){
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+    }
+
+    // counters first, then count, total and max nanoseconds per phase; key order is stable for JSON output
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("solves", getSolves());
+        snapshot.put("nodesVisited", getNodesVisited());
+        snapshot.put("nodesPruned", getNodesPruned());
+        snapshot.put("optionsGenerated", getOptionsGenerated());
+        snapshot.put("feasibleBranches", getFeasibleBranches());
+        snapshot.put("incumbentImprovements", getIncumbentImprovements());
+        snapshot.put("lastTimeToFirstSolutionNanos", getLastTimeToFirstSolutionNanos());
+        snapshot.put("lastBranchingFactorBefore", getLastBranchingFactorBefore());
+        snapshot.put("lastBranchingFactorAfter", getLastBranchingFactorAfter());
+        snapshot.put("ordersLoaded", getOrdersLoaded());
+        snapshot.put("paymentMethodsLoaded", getPaymentMethodsLoaded());
+        Map<String, Object> phaseTimings = new LinkedHashMap<>();
+        for(Map.Entry<Phase, PhaseTimer> entry : phases.entrySet()){
+            PhaseTimer timer = entry.getValue();
+            Map<String, Long> timing = new LinkedHashMap<>();
+            timing.put("count", timer.count.sum());
+            timing.put("totalNanos", timer.totalNanos.sum());
+            timing.put("maxNanos", timer.maxNanos.get());
+            phaseTimings.put(entry.getKey().name(), timing);
+        }
+        snapshot.put("phases", phaseTimings);
+        return snapshot;
+    }
+
+    public String toJson() {
+        try{
+            return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(snapshot());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long getSolves() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getNodesVisited() {
+        return nodesVisited.sum();
+    }
+
+    @Override
+    public long getNodesPruned() {
+        return nodesPruned.sum();
+    }
+
+    @Override
+    public long getOptionsGenerated() {
+        return optionsGenerated.sum();
+    }
+
+    @Override
+    public long getFeasibleBranches() {
+        return feasibleBranches.sum();
+    }
+
+    @Override
+    public long getIncumbentImprovements() {
+        return incumbentImprovements.sum();
+    }
+
+    @Override
+    public long getLastTimeToFirstSolutionNanos() {
+        return lastTimeToFirstSolutionNanos.get();
+    }
+
+    @Override
+    public double getLastBranchingFactorBefore() {
+        return Double.longBitsToDouble(lastBranchingFactorBefore.get());
+    }
+
+    @Override
+    public double getLastBranchingFactorAfter() {
+        return Double.longBitsToDouble(lastBranchingFactorAfter.get());
+    }
+
+    @Override
+    public long getOrdersLoaded() {
+        return ordersLoaded.sum();
+    }
+
+    @Override
+    public long getPaymentMethodsLoaded() {
+        return paymentMethodsLoaded.sum();
+    }
+
+    @Override
+    public long getLoadNanos() {
+        return phases.get(Phase.LOAD).totalNanos.sum();
+    }
+
+    @Override
+    public long getOptionGenerationNanos() {
+        return phases.get(Phase.OPTION_GENERATION).totalNanos.sum();
+    }
+
+    @Override
+    public long getSearchNanos() {
+        return phases.get(Phase.SEARCH).totalNanos.sum();
+    }
+
+    @Override
+    public long getAggregationNanos() {
+        return phases.get(Phase.AGGREGATION).totalNanos.sum();
+    }
+
+    private static final class PhaseTimer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.metrics;
+
+public interface SolverMetricsMXBean {
+    long getSolves();
+
+    long getNodesVisited();
+
+    long getNodesPruned();
+
+    long getOptionsGenerated();
+
+    long getFeasibleBranches();
+
+    long getIncumbentImprovements();
+
+    long getLastTimeToFirstSolutionNanos();
+
+    double getLastBranchingFactorBefore();
+
+    double getLastBranchingFactorAfter();
+
+    long getOrdersLoaded();
+
+    long getPaymentMethodsLoaded();
+
+    long getLoadNanos();
+
+    long getOptionGenerationNanos();
+
+    long getSearchNanos();
+
+    long getAggregationNanos();
+}
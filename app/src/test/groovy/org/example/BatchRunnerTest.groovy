@@ -0,0 +1,150 @@
+package org.example
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.example.domain.OptimizerSettings
+import org.example.engine.OptimizerEngine
+import org.example.metrics.SolverMetrics
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+
+class BatchRunnerTest extends Specification {
+    private static final String ORDERS = """
+        [
+            {"id": "ORDER1", "value": "100.00", "promotions": ["mZysk"]},
+            {"id": "ORDER2", "value": "200.00", "promotions": ["BosBankrut"]},
+            {"id": "ORDER3", "value": "150.00", "promotions": ["mZysk", "BosBankrut"]},
+            {"id": "ORDER4", "value": "50.00"}
+        ]
+        """
+    private static final String PAYMENT_METHODS = """
+        [
+            {"id": "PUNKTY", "discount": "15", "limit": "100.00"},
+            {"id": "mZysk", "discount": "10", "limit": "180.00"},
+            {"id": "BosBankrut", "discount": "5", "limit": "200.00"}
+        ]
+        """
+
+    @TempDir
+    Path tempDir
+
+    private BatchRunner runner(int concurrency = 4) {
+        new BatchRunner(new OptimizerEngine(OptimizerSettings.builder().build()), concurrency, SolverMetrics.DISABLED)
+    }
+
+    private List<Map> run(List<BatchRunner.Job> jobs, int expectedFailures) {
+        def out = new ByteArrayOutputStream()
+        def failures = runner().run(jobs, new PrintStream(out, true, StandardCharsets.UTF_8))
+        assert failures == expectedFailures
+        def mapper = new ObjectMapper()
+        return out.toString(StandardCharsets.UTF_8).readLines().collect { mapper.readValue(it, Map) }
+    }
+
+    private void customer(String name, String orders = ORDERS, String paymentMethods = PAYMENT_METHODS) {
+        Files.writeString(tempDir.resolve(name + BatchRunner.ORDERS_SUFFIX), orders)
+        if(paymentMethods != null){
+            Files.writeString(tempDir.resolve(name + BatchRunner.PAYMENT_METHODS_SUFFIX), paymentMethods)
+        }
+    }
+
+    def "should solve every customer of a directory and write one line each"() {
+        given:
+        (0..<50).each { customer("c" + it) }
+
+        when:
+        def lines = run(BatchRunner.jobs(tempDir), 0)
+
+        then:
+        lines.size() == 50
+        lines*.customer as Set == (0..<50).collect { "c" + it } as Set
+        lines.every { it.status == "ok" && it.complete }
+        lines.every { it.payments == ["BosBankrut": "190.00", "PUNKTY": "100.00", "mZysk": "165.00"] }
+    }
+
+    def "should report broken customers and keep going"() {
+        given:
+        customer("good")
+        customer("badJson", "[{\"id\": ")
+        customer("noMethods", ORDERS, null)
+        customer("zero", "[{\"id\": \"ORDER1\", \"value\": \"0.00\"}]")
+
+        when:
+        def lines = run(BatchRunner.jobs(tempDir), 2).collectEntries { [(it.customer): it] }
+
+        then:
+        lines.size() == 4
+        lines.good.status == "ok"
+        lines.zero.status == "ok"
+        lines.zero.payments == [:]
+        lines.badJson.status == "error"
+        lines.noMethods.status == "error"
+        lines.noMethods.error.startsWith("I/O error")
+    }
+
+    def "should write an error line for a customer whose solve throws an Error or whose line cannot be written"() {
+        given:
+        def jobs = ["good", "overflow", "unwritable"].collect { new BatchRunner.Job(it, tempDir.resolve(it), tempDir.resolve(it)) }
+        def solver = { BatchRunner.Job job ->
+            switch(job.customer()){
+                case "overflow": throw new StackOverflowError("too deep")
+                case "unwritable": return [customer: job.customer(), status: "ok", payments: new Object()]
+                default: return [customer: job.customer(), status: "ok", complete: true, payments: [:]]
+            }
+        }
+        def out = new ByteArrayOutputStream()
+
+        when:
+        def failures = runner().run(jobs, new PrintStream(out, true, StandardCharsets.UTF_8), solver)
+        def lines = out.toString(StandardCharsets.UTF_8).readLines().collect { new ObjectMapper().readValue(it, Map) }.collectEntries { [(it.customer): it] }
+
+        then:
+        failures == 2
+        lines.size() == 3
+        lines.good.status == "ok"
+        lines.overflow.status == "error"
+        lines.overflow.error == "StackOverflowError: too deep"
+        lines.unwritable.status == "error"
+    }
+
+    def "should resolve manifest paths against the manifest directory"() {
+        given:
+        customer("a")
+        Files.writeString(tempDir.resolve("manifest.txt"), """
+            # customer orders methods
+            alice a.orders.json a.paymentmethods.json
+
+            bob   a.orders.json a.paymentmethods.json
+            """)
+
+        when:
+        def jobs = BatchRunner.jobs(tempDir.resolve("manifest.txt"))
+
+        then:
+        jobs*.customer() == ["alice", "bob"]
+        jobs[0].orders() == tempDir.resolve("a.orders.json").toAbsolutePath()
+        run(jobs, 0)*.status == ["ok", "ok"]
+    }
+
+    def "should reject malformed manifest lines"() {
+        given:
+        Files.writeString(tempDir.resolve("manifest.txt"), "alice a.orders.json\n")
+
+        when:
+        BatchRunner.jobs(tempDir.resolve("manifest.txt"))
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message.contains("line 1")
+    }
+
+    def "should reject concurrency below one"() {
+        when:
+        runner(0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
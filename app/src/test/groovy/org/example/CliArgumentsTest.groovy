@@ -0,0 +1,42 @@
+package org.example
+
+import spock.lang.Specification
+
+class CliArgumentsTest extends Specification {
+
+    def "should separate positional arguments from --name=value options"() {
+        when:
+        def arguments = CliArguments.parse(["orders.json", "--parallelism=8", "methods.json", "--cache"] as String[])
+
+        then:
+        arguments.positional() == ["orders.json", "methods.json"]
+        arguments.intOption("parallelism", 1) == 8
+        arguments.has("cache")
+        arguments.get("cache") == ""
+        arguments.intOption("concurrency", 3) == 3
+    }
+
+    def "should reject a non-numeric integer option"() {
+        when:
+        CliArguments.parse(["--parallelism=many"] as String[]).intOption("parallelism", 1)
+
+        then:
+        def exception = thrown(IllegalArgumentException)
+        exception.message == "Invalid value for --parallelism: many"
+    }
+
+    def "should reject an option the CLI does not know"() {
+        when:
+        CliArguments.parse(["orders.json", "methods.json", argument] as String[])
+
+        then:
+        def exception = thrown(IllegalArgumentException)
+        exception.message == "Unknown option --" + name
+
+        where:
+        argument             | name
+        "--paralelism=8"     | "paralelism"
+        "--verbose"          | "verbose"
+        "--=5"               | ""
+    }
+}
@@ -0,0 +1,69 @@
+package org.example
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.example.domain.OptimizerSettings
+import org.example.engine.OptimizerEngine
+import org.example.metrics.SolverMetrics
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class NdjsonServerTest extends Specification {
+    private static final String METHODS = '[{"id": "PUNKTY", "discount": "15", "limit": "100.00"}, ' +
+            '{"id": "mZysk", "discount": "10", "limit": "180.00"}, {"id": "BosBankrut", "discount": "5", "limit": "200.00"}]'
+    private static final String ORDERS = '[{"id": "ORDER1", "value": "100.00", "promotions": ["mZysk"]}, ' +
+            '{"id": "ORDER2", "value": "200.00", "promotions": ["BosBankrut"]}, ' +
+            '{"id": "ORDER3", "value": "150.00", "promotions": ["mZysk", "BosBankrut"]}, {"id": "ORDER4", "value": "50.00"}]'
+
+    private static List<Map> serve(List<String> requests, int concurrency = 4) {
+        def server = new NdjsonServer(new OptimizerEngine(OptimizerSettings.builder().build()), concurrency, SolverMetrics.DISABLED)
+        def input = new ByteArrayInputStream(requests.join("\n").getBytes(StandardCharsets.UTF_8))
+        def output = new ByteArrayOutputStream()
+        server.serve(input, output)
+        def mapper = new ObjectMapper()
+        return output.toString(StandardCharsets.UTF_8).readLines().collect { mapper.readValue(it, Map) }
+    }
+
+    private static String request(String id, String methods = METHODS, String orders = ORDERS) {
+        return '{"id": "' + id + '", "paymentMethods": ' + methods + ', "orders": ' + orders + '}'
+    }
+
+    def "should answer every request in request order"() {
+        given:
+        def requests = (0..<200).collect { request("r" + it) }
+
+        when:
+        def responses = serve(requests)
+
+        then:
+        responses*.id == (0..<200).collect { "r" + it }
+        responses.every { it.status == "ok" && it.payments == ["BosBankrut": "190.00", "PUNKTY": "100.00", "mZysk": "165.00"] }
+    }
+
+    def "should answer broken requests with an error line and keep serving"() {
+        when:
+        def responses = serve([
+                request("first"),
+                '{"id": "truncated", ',
+                '{"id": "extra", "paymentMethods": [], "orders": [], "customer": "x"}',
+                '{"id": "missing", "orders": []}',
+                request("badValue", METHODS, '[{"id": "ORDER1", "value": "abc"}]'),
+                "",
+                request("last")
+        ], 1)
+
+        then:
+        responses*.status == ["ok", "error", "error", "error", "error", "ok"]
+        responses[2].error.contains("customer")
+        responses[4].id == "badValue"
+        responses[5].id == "last"
+    }
+
+    def "should reject concurrency below one"() {
+        when:
+        new NdjsonServer(new OptimizerEngine(OptimizerSettings.builder().build()), 0, SolverMetrics.DISABLED)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.domain
+
+import spock.lang.Specification
+
+class AnytimeResultTest extends Specification {
+
+    def "optimality gap should be the share of the upper bound the plan may be missing"() {
+        expect:
+        new AnytimeResult([], complete, new BigDecimal(discount), new BigDecimal(upperBound)).optimalityGap() == new BigDecimal(gap)
+
+        where:
+        discount | upperBound | complete || gap
+        "90.00"  | "100.00"   | false    || "0.1000"
+        "0.00"   | "30.00"    | false    || "1.0000"
+        "20.00"  | "30.00"    | false    || "0.3334"
+        "45.50"  | "45.50"    | true     || "0"
+        "0.00"   | "0.00"     | false    || "0"
+    }
+}
@@ -48,4 +48,23 @@ class CalculatedPaymentOptionTest extends Specification {
         option.paymentStrategyType() == strategy
         option.spent().isEmpty()
     }
+
+    def "options should be equal exactly when all their components are, so distinct() drops only true duplicates"() {
+        given:
+        def strategy = PaymentStrategyType.FULL_CARD_WITH_PROMOTION
+        def option = new CalculatedPaymentOption(sampleOrder, new BigDecimal("90.00"), null, strategy, [(sampleCard): new BigDecimal("90.00")])
+        def same = new CalculatedPaymentOption(new Order("ORDER_SAMPLE", new BigDecimal("100.00"), [sampleCard]),
+                new BigDecimal("90.00"), null, strategy, [(sampleCard): new BigDecimal("90.00")])
+
+        expect:
+        option == same
+        option.hashCode() == same.hashCode()
+        [option, same].stream().distinct().count() == 1
+        option != new CalculatedPaymentOption(sampleOrder, new BigDecimal("95.00"), null, strategy, [(sampleCard): new BigDecimal("95.00")])
+        option != new CalculatedPaymentOption(sampleOrder, new BigDecimal("90.00"), null, PaymentStrategyType.FULL_PAYMENT_NO_PROMOTION,
+                [(sampleCard): new BigDecimal("90.00")])
+        option != new CalculatedPaymentOption(sampleOrder, new BigDecimal("90.00"), null, strategy, [:])
+        option != new CalculatedPaymentOption(new Order("OTHER", new BigDecimal("100.00"), [sampleCard]), new BigDecimal("90.00"), null,
+                strategy, [(sampleCard): new BigDecimal("90.00")])
+    }
 }
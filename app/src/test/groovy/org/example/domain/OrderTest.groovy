@@ -53,4 +53,19 @@ class OrderTest extends Specification {
         def exception = thrown(IllegalArgumentException)
         exception.message == String.format("Order value cannot have more than 2 decimal places: %s", invalidValue)
     }
+
+    def "orders should be equal exactly when id, value and promotions are"() {
+        given:
+        PaymentMethod card = new PaymentMethod("CARD", BigDecimal.TEN, BigDecimal.TEN)
+        Order order = new Order("ORD1", new BigDecimal("10.0"), [card])
+
+        expect:
+        order == new Order("ORD1", new BigDecimal("10.00"), [card])
+        order.hashCode() == new Order("ORD1", new BigDecimal("10.00"), [card]).hashCode()
+        order != new Order("ORD2", new BigDecimal("10.00"), [card])
+        order != new Order("ORD1", new BigDecimal("10.01"), [card])
+        order != new Order("ORD1", new BigDecimal("10.00"), [])
+        order != new Order("ORD1", new BigDecimal("10.00"), [new PaymentMethod("CARD", BigDecimal.TEN, BigDecimal.TEN)])
+        order != null
+    }
 }
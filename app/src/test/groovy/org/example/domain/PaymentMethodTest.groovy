@@ -24,17 +24,11 @@ class PaymentMethodTest extends Specification {
         paymentMethod.getMethodLimit().scale() == 2
     }
 
-    def "should allow setting and getting currentLimit"() {
-        given:
-        PaymentMethod paymentMethod = new PaymentMethod("TEST_ID", BigDecimal.ZERO, new BigDecimal("100.00"))
-        BigDecimal newLimit = new BigDecimal("50.55")
-
-        when:
-        paymentMethod.setCurrentLimit(newLimit)
-
-        then:
-        paymentMethod.getCurrentLimit() == newLimit
-        paymentMethod.getCurrentLimit().scale() == 2
+    def "should not expose a current limit next to the method limit"() {
+        expect:
+        !PaymentMethod.metaClass.respondsTo(PaymentMethod, "getCurrentLimit")
+        !PaymentMethod.metaClass.respondsTo(PaymentMethod, "setCurrentLimit", BigDecimal)
+        !PaymentMethod.declaredFields*.name.contains("currentLimit")
     }
 
     def "should not initialize PaymentMethod with 3 decimal limit"() {
@@ -0,0 +1,114 @@
+package org.example.domain
+
+import org.example.logic.DiscountCalculator
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class PaymentOptimizerTest extends Specification {
+
+    private static Map<String, PaymentMethod> exampleMethods() {
+        [
+                "PUNKTY"    : new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("100.00")),
+                "mZysk"     : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("180.00")),
+                "BosBankrut": new PaymentMethod("BosBankrut", new BigDecimal("5"), new BigDecimal("200.00"))
+        ]
+    }
+
+    private static List<Order> exampleOrders(Map<String, PaymentMethod> methods) {
+        [
+                new Order("ORDER1", new BigDecimal("100.00"), [methods.mZysk]),
+                new Order("ORDER2", new BigDecimal("200.00"), [methods.BosBankrut]),
+                new Order("ORDER3", new BigDecimal("150.00"), [methods.mZysk, methods.BosBankrut]),
+                new Order("ORDER4", new BigDecimal("50.00"), [])
+        ]
+    }
+
+    private static PaymentOptimizer optimizerFor(List<Order> orders, Map<String, PaymentMethod> methods, SearchMode mode) {
+        def cards = methods.values().findAll { !it.isPoints() }
+        def calculator = new DiscountCalculator(methods.get("PUNKTY"), cards as List)
+        return new PaymentOptimizer(orders, calculator, methods, mode)
+    }
+
+    private static Map<String, BigDecimal> totalsByMethod(List<AppliedPayment> plan) {
+        Map<String, BigDecimal> totals = [:]
+        plan.each { payment ->
+            payment.actualAmountSpent().each { method, amount ->
+                totals.merge(method.getId(), amount, { a, b -> a.add(b) })
+            }
+        }
+        return totals
+    }
+
+    @Unroll
+    def "should find the documented example plan in #mode mode"() {
+        given:
+        def methods = exampleMethods()
+        def optimizer = optimizerFor(exampleOrders(methods), methods, mode)
+
+        when:
+        def plan = optimizer.findOptimalPaymentPlan()
+
+        then:
+        plan.size() == 4
+        def totals = totalsByMethod(plan)
+        totals.mZysk == new BigDecimal("165.00")
+        totals.BosBankrut == new BigDecimal("190.00")
+        totals.PUNKTY == new BigDecimal("100.00")
+
+        where:
+        mode << SearchMode.values()
+    }
+
+    def "branch and bound should return the same plan as the exhaustive search while visiting fewer nodes"() {
+        given:
+        def random = new Random(seed)
+        def methods = [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal(random.nextInt(20)), new BigDecimal(random.nextInt(300) + ".00")),
+                "CardA" : new PaymentMethod("CardA", new BigDecimal(random.nextInt(15)), new BigDecimal(random.nextInt(400) + ".00")),
+                "CardB" : new PaymentMethod("CardB", new BigDecimal(random.nextInt(15)), new BigDecimal(random.nextInt(400) + ".00"))
+        ]
+        def orders = (1..6).collect { index ->
+            def promotions = [methods.CardA, methods.CardB].findAll { random.nextBoolean() }
+            new Order("ORDER" + index, new BigDecimal(random.nextInt(20000)).movePointLeft(2), promotions)
+        }
+        def exhaustive = optimizerFor(orders, methods, SearchMode.EXHAUSTIVE)
+        def pruned = optimizerFor(orders, methods, SearchMode.BRANCH_AND_BOUND)
+
+        when:
+        def exhaustivePlan = exhaustive.findOptimalPaymentPlan()
+        def prunedPlan = pruned.findOptimalPaymentPlan()
+
+        then:
+        prunedPlan == exhaustivePlan
+        pruned.getLastSearchStatistics().nodesVisited() <= exhaustive.getLastSearchStatistics().nodesVisited()
+        exhaustive.getLastSearchStatistics().nodesPruned() == 0
+
+        where:
+        seed << (1..8)
+    }
+
+    def "branch and bound should report pruned subtrees on the example data"() {
+        given:
+        def methods = exampleMethods()
+        def optimizer = optimizerFor(exampleOrders(methods), methods, SearchMode.BRANCH_AND_BOUND)
+
+        when:
+        optimizer.findOptimalPaymentPlan()
+
+        then:
+        optimizer.getLastSearchStatistics().nodesPruned() > 0
+        optimizer.getLastSearchStatistics().nodesVisited() > 0
+    }
+
+    def "should return an empty plan when no payment method can cover an order"() {
+        given:
+        def methods = ["Visa": new PaymentMethod("Visa", BigDecimal.ZERO, new BigDecimal("10.00"))]
+        def orders = [new Order("BIG", new BigDecimal("50.00"), [])]
+
+        expect:
+        optimizerFor(orders, methods, mode).findOptimalPaymentPlan().isEmpty()
+
+        where:
+        mode << SearchMode.values()
+    }
+}
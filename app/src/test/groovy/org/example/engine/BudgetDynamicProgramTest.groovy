@@ -0,0 +1,164 @@
+package org.example.engine
+
+import org.example.domain.Arithmetic
+import org.example.domain.CancellationToken
+import org.example.domain.OptimizerSettings
+import org.example.domain.Order
+import org.example.domain.PaymentMethod
+import org.example.domain.PaymentOptimizer
+import org.example.domain.SearchMode
+import org.example.domain.SolverBackend
+import org.example.logic.DiscountCalculator
+import org.example.logic.PaymentOptionTable
+import spock.lang.Specification
+
+/*
+ * Differential suite: the dynamic program must return exactly the plan of the search, ties and scales included.
+ */
+class BudgetDynamicProgramTest extends Specification {
+    // points and the first card short, the other cards plentiful; amounts small enough to tabulate both budgets
+    private static final RandomBaskets BASKETS = new RandomBaskets(
+            pointsLimitCents: { Random random -> random.nextInt(1_500) },
+            cardLimitCents: { Random random, int card -> card == 0 ? random.nextInt(400) : 10_000_000 },
+            valueCents: { Random random -> random.nextInt(6) == 0 ? random.nextInt(30) : random.nextInt(1_500) })
+
+    private static CentsProblem problem(List<Order> orders, Map<String, PaymentMethod> methods) {
+        def cards = methods.values().findAll { !it.isPoints() } as List
+        def table = PaymentOptionTable.build(orders, new DiscountCalculator(methods.PUNKTY, cards))
+        return CentsProblem.from(table, PaymentMethodIndex.of(methods.values() as List, methods.PUNKTY, cards)).get()
+    }
+
+    private static PaymentOptimizer optimizer(List<Order> orders, Map<String, PaymentMethod> methods, OptimizerSettings settings) {
+        def calculator = new DiscountCalculator(methods.PUNKTY, methods.values().findAll { !it.isPoints() } as List)
+        return new PaymentOptimizer(orders, calculator, methods, settings)
+    }
+
+    private static Map<String, PaymentMethod> interchangeableMethods() {
+        [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("10"), new BigDecimal("150.00")),
+                "CARD0" : new PaymentMethod("CARD0", new BigDecimal("10"), new BigDecimal("500.00")),
+                "CARD1" : new PaymentMethod("CARD1", new BigDecimal("10"), new BigDecimal("500.00")),
+                "CARD2" : new PaymentMethod("CARD2", new BigDecimal("10"), new BigDecimal("500.00"))
+        ]
+    }
+
+    def "the dynamic program should return the search plan on random instances"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 1 + random.nextInt(8))
+        def problem = problem(orders, methods)
+        def settings = OptimizerSettings.builder().searchMode(SearchMode.BRANCH_AND_BOUND).dynamicProgrammingStates(1 << 23).build()
+
+        when:
+        def reference = new CentsSearchEngine(problem, settings).searchWithinBudget(List.of())
+        def result = new BudgetDynamicProgram(problem, settings).searchWithinBudget(List.of())
+
+        then:
+        BudgetDynamicProgram.fits(problem, settings)
+        result.complete()
+        result.plan() == reference.plan()
+        result.discount() == reference.discount()
+
+        where:
+        seed << (1..200)
+    }
+
+    def "the dynamic program backend should return the BigDecimal plan through the optimizer"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 1 + random.nextInt(6))
+        def dynamicProgramming = OptimizerSettings.builder()
+                .solverBackend(SolverBackend.DYNAMIC_PROGRAMMING).dynamicProgrammingStates(1 << 23).reduceOptions(reduce).decomposeSlack(reduce).build()
+
+        when:
+        def reference = optimizer(orders, methods, OptimizerSettings.builder()
+                .searchMode(SearchMode.BRANCH_AND_BOUND).arithmetic(Arithmetic.BIG_DECIMAL).build()).findOptimalPaymentPlan()
+        def plan = optimizer(orders, methods, dynamicProgramming).findOptimalPaymentPlan()
+
+        then:
+        plan == reference
+
+        where:
+        [seed, reduce] << [(1..100), [true, false]].combinations()
+    }
+
+    def "the dynamic program should break full ties like the search"() {
+        given: "identical cards and equal order values, so many plans tie on discount and points"
+        def methods = interchangeableMethods()
+        def orders = (1..6).collect { new Order("ORDER" + it, new BigDecimal(it % 2 == 0 ? "100.00" : "60.00"), [methods.CARD0, methods.CARD1, methods.CARD2]) }
+        def problem = problem(orders, methods)
+        def settings = OptimizerSettings.builder().build()
+
+        expect:
+        new BudgetDynamicProgram(problem, settings).searchWithinBudget(List.of()).plan() ==
+                new CentsSearchEngine(problem, SearchMode.EXHAUSTIVE).search()
+    }
+
+    def "only methods that can run short should span the table"() {
+        given: "cards that cover every order and 1.00 of points"
+        def methods = [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("1.00")),
+                "mZysk" : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("10000.00"))
+        ]
+        def orders = (1..3).collect { new Order("ORDER" + it, new BigDecimal("50.00"), [methods.mZysk]) }
+
+        expect: "101 budgets per order and one leaf"
+        BudgetDynamicProgram.tableStates(problem(orders, methods)) == 3 * 101 + 1
+    }
+
+    def "auto should tabulate large baskets on a small points budget and search small ones"() {
+        given:
+        def methods = [
+                "PUNKTY"    : new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("50.00")),
+                "mZysk"     : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("100000.00")),
+                "BosBankrut": new PaymentMethod("BosBankrut", new BigDecimal("5"), new BigDecimal("100000.00"))
+        ]
+        def orders = (1..orderCount).collect { new Order("ORDER" + it, new BigDecimal(40 + 7 * it), [methods.mZysk, methods.BosBankrut]) }
+        def auto = OptimizerSettings.builder().solverBackend(SolverBackend.AUTO).build()
+
+        expect:
+        CentsSolver.select(problem(orders, methods), auto).getClass() == expected
+
+        where:
+        orderCount | expected
+        3          | CentsSearchEngine
+        20         | BudgetDynamicProgram
+    }
+
+    def "the dynamic program backend should search when the table does not fit"() {
+        given:
+        def methods = interchangeableMethods()
+        def orders = (1..4).collect { new Order("ORDER" + it, new BigDecimal("100.00"), [methods.CARD0]) }
+        def problem = problem(orders, methods)
+        def small = OptimizerSettings.builder().solverBackend(SolverBackend.DYNAMIC_PROGRAMMING).dynamicProgrammingStates(10).build()
+
+        expect:
+        CentsSolver.select(problem, small) instanceof CentsSearchEngine
+        optimizer(orders, methods, small).findOptimalPaymentPlan() == optimizer(orders, methods, OptimizerSettings.defaults()).findOptimalPaymentPlan()
+    }
+
+    def "a cancelled dynamic program should return the greedy plan and bound the optimum"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 6)
+        def problem = problem(orders, methods)
+        def token = new CancellationToken()
+        token.cancel()
+
+        when:
+        def optimum = new CentsSearchEngine(problem, SearchMode.BRANCH_AND_BOUND).searchWithinBudget()
+        def result = new BudgetDynamicProgram(problem, OptimizerSettings.builder().cancellationToken(token).build()).searchWithinBudget(List.of())
+
+        then:
+        !result.complete()
+        result.discount() <= optimum.discount()
+        result.discountUpperBound() >= optimum.discount()
+        result.plan().isEmpty() || result.plan().size() == orders.size()
+
+        where:
+        seed << (1..20)
+    }
+}
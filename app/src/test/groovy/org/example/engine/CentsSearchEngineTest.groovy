@@ -0,0 +1,311 @@
+package org.example.engine
+
+import org.example.domain.Arithmetic
+import org.example.domain.CancellationToken
+import org.example.domain.OptimizerSettings
+import org.example.domain.OptionOrdering
+import org.example.domain.Order
+import org.example.domain.OrderOrdering
+import org.example.domain.PaymentMethod
+import org.example.domain.PaymentOptimizer
+import org.example.domain.SearchMode
+import org.example.logic.DiscountCalculator
+import org.example.logic.PaymentOptionTable
+import spock.lang.Specification
+
+import java.time.Duration
+
+/*
+ * Differential suite: the long-cents engine must return exactly the plan the BigDecimal path returns,
+ * including BigDecimal scales and the points tie-break.
+ */
+class CentsSearchEngineTest extends Specification {
+    private static final List<String> DISCOUNTS = ["0", "5", "7.5", "10", "12.25", "15", "33.33", "50", "99.99"]
+    private static final RandomBaskets BASKETS = new RandomBaskets(pointsDiscounts: DISCOUNTS, cardDiscounts: DISCOUNTS)
+
+    private static boolean representableInCents(List<Order> orders, Map<String, PaymentMethod> methods) {
+        def cards = methods.values().findAll { !it.isPoints() } as List
+        def table = PaymentOptionTable.build(orders, new DiscountCalculator(methods.PUNKTY, cards))
+        def methodIndex = PaymentMethodIndex.of(methods.values() as List, methods.PUNKTY, cards)
+        return CentsProblem.from(table, methodIndex).isPresent()
+    }
+
+    private static PaymentOptimizer optimizer(List<Order> orders, Map<String, PaymentMethod> methods,
+                                              SearchMode mode, Arithmetic arithmetic, int parallelism = 1) {
+        return optimizer(orders, methods, OptimizerSettings.builder()
+                .searchMode(mode).arithmetic(arithmetic).parallelism(parallelism).build())
+    }
+
+    private static PaymentOptimizer optimizer(List<Order> orders, Map<String, PaymentMethod> methods, OptimizerSettings settings) {
+        def calculator = new DiscountCalculator(methods.PUNKTY, methods.values().findAll { !it.isPoints() } as List)
+        return new PaymentOptimizer(orders, calculator, methods, settings)
+    }
+
+    private static Map<String, PaymentMethod> interchangeableMethods() {
+        [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("10"), new BigDecimal("150.00")),
+                "CARD0" : new PaymentMethod("CARD0", new BigDecimal("10"), new BigDecimal("500.00")),
+                "CARD1" : new PaymentMethod("CARD1", new BigDecimal("10"), new BigDecimal("500.00")),
+                "CARD2" : new PaymentMethod("CARD2", new BigDecimal("10"), new BigDecimal("500.00"))
+        ]
+    }
+
+    def "long-cents plans should be identical to BigDecimal plans on random instances"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 1 + random.nextInt(5))
+        def mode = orders.size() <= 3 ? SearchMode.EXHAUSTIVE : SearchMode.BRANCH_AND_BOUND
+
+        when:
+        def reference = optimizer(orders, methods, mode, Arithmetic.BIG_DECIMAL).findOptimalPaymentPlan()
+        def cents = optimizer(orders, methods, mode, Arithmetic.LONG_CENTS).findOptimalPaymentPlan()
+
+        then:
+        representableInCents(orders, methods)
+        cents == reference
+
+        where:
+        seed << (1..300)
+    }
+
+    def "long-cents search should visit the same nodes as the BigDecimal search"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 4)
+        def reference = optimizer(orders, methods, mode, Arithmetic.BIG_DECIMAL)
+        def cents = optimizer(orders, methods, mode, Arithmetic.LONG_CENTS)
+
+        when:
+        reference.findOptimalPaymentPlan()
+        cents.findOptimalPaymentPlan()
+
+        then:
+        cents.getLastSearchStatistics() == reference.getLastSearchStatistics()
+
+        where:
+        [seed, mode] << [(1..20), [SearchMode.EXHAUSTIVE, SearchMode.BRANCH_AND_BOUND]].combinations()
+    }
+
+    def "parallel search should return the sequential plan"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 5)
+
+        when:
+        def sequential = optimizer(orders, methods, mode, Arithmetic.LONG_CENTS).findOptimalPaymentPlan()
+        def parallel = optimizer(orders, methods, mode, Arithmetic.LONG_CENTS, parallelism).findOptimalPaymentPlan()
+
+        then:
+        parallel == sequential
+
+        where:
+        [seed, mode, parallelism] << [(1..15), SearchMode.values(), [2, 4, 8]].combinations()
+    }
+
+    def "parallel search should break full ties like the sequential search"() {
+        given: "identical cards and equal order values, so many plans tie on discount and points"
+        def methods = interchangeableMethods()
+        def orders = (1..5).collect { new Order("ORDER" + it, new BigDecimal("100.00"), [methods.CARD0, methods.CARD1, methods.CARD2]) }
+
+        when:
+        def sequential = optimizer(orders, methods, SearchMode.BRANCH_AND_BOUND, Arithmetic.LONG_CENTS).findOptimalPaymentPlan()
+        def parallel = (1..5).collect {
+            optimizer(orders, methods, SearchMode.BRANCH_AND_BOUND, Arithmetic.LONG_CENTS, 4).findOptimalPaymentPlan()
+        }
+
+        then:
+        parallel.every { it == sequential }
+    }
+
+    def "reordered searches should return the plan of the search in file order"() {
+        given: "points plentiful in every other basket, so that orders can move as well"
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        if(methods.PUNKTY != null && seed % 2 == 0){
+            methods.PUNKTY = new PaymentMethod("PUNKTY", methods.PUNKTY.discountPercentage, new BigDecimal("10000.00"))
+        }
+        def orders = BASKETS.orders(random, methods, 1 + random.nextInt(6))
+        def reference = optimizer(orders, methods, OptimizerSettings.builder().searchMode(mode).decomposeSlack(false).build())
+                .findOptimalPaymentPlan()
+
+        expect:
+        [OrderOrdering.values(), OptionOrdering.values(), [1, 4]].combinations().every { OrderOrdering orderOrdering, OptionOrdering optionOrdering, int parallelism ->
+            optimizer(orders, methods, OptimizerSettings.builder().searchMode(mode).decomposeSlack(false).parallelism(parallelism)
+                    .orderOrdering(orderOrdering).optionOrdering(optionOrdering).build()).findOptimalPaymentPlan() == reference
+        }
+
+        where:
+        [seed, mode] << [(1..100), [SearchMode.EXHAUSTIVE, SearchMode.BRANCH_AND_BOUND]].combinations()
+    }
+
+    def "reordered searches should break full ties like the search in file order"() {
+        given:
+        def methods = interchangeableMethods()
+        def orders = (1..5).collect { new Order("ORDER" + it, new BigDecimal(60 + 10 * it), [methods.CARD0, methods.CARD1, methods.CARD2]) }
+        def reference = optimizer(orders, methods, SearchMode.BRANCH_AND_BOUND, Arithmetic.LONG_CENTS).findOptimalPaymentPlan()
+
+        expect:
+        optimizer(orders, methods, OptimizerSettings.builder().searchMode(SearchMode.BRANCH_AND_BOUND)
+                .orderOrdering(orderOrdering).optionOrdering(optionOrdering).build()).findOptimalPaymentPlan() == reference
+
+        where:
+        [orderOrdering, optionOrdering] << [OrderOrdering.values(), OptionOrdering.values()].combinations()
+    }
+
+    def "should only move orders when every partial-points payment gets its full points share"() {
+        given:
+        def methods = [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal(pointsLimit)),
+                "mZysk" : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("1000.00"))
+        ]
+        def orders = [new Order("ORDER1", new BigDecimal("50.00"), []), new Order("ORDER2", new BigDecimal("150.00"), [methods.mZysk])]
+        def cards = [methods.mZysk]
+        def table = PaymentOptionTable.build(orders, new DiscountCalculator(methods.PUNKTY, cards))
+        def problem = CentsProblem.from(table, PaymentMethodIndex.of(methods.values() as List, methods.PUNKTY, cards)).get()
+
+        when:
+        def ordered = problem.ordered(OrderOrdering.HIGHEST_VALUE, OptionOrdering.HIGHEST_DISCOUNT)
+
+        then:
+        ordered.searchSequence == expectedSequence as int[]
+        ordered.isReordered()
+        !problem.isReordered()
+        ordered.optionSequence.every { it.length > 0 }
+        ordered.optionSequence[1].collect { ordered.options[1][it].discountCents } == ordered.options[1]*.discountCents.sort { -it }
+
+        where:
+        pointsLimit | expectedSequence
+        "10.00"     | [0, 1]
+        "500.00"    | [1, 0]
+    }
+
+    def "memoized search should return the branch-and-bound plan"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 1 + random.nextInt(7))
+        def memoized = OptimizerSettings.builder().searchMode(SearchMode.MEMOIZED).memoTableEntries(tableEntries).build()
+
+        when:
+        def reference = optimizer(orders, methods, SearchMode.BRANCH_AND_BOUND, Arithmetic.LONG_CENTS).findOptimalPaymentPlan()
+        def plan = optimizer(orders, methods, memoized).findOptimalPaymentPlan()
+
+        then:
+        plan == reference
+
+        where: "a tiny table forces evictions"
+        [seed, tableEntries] << [(1..150), [8, 1 << 12]].combinations()
+    }
+
+    def "memoized search should reuse states reached through different prefixes"() {
+        given: "identical orders on interchangeable cards reach the same remaining limits in many ways"
+        def methods = interchangeableMethods()
+        def orders = (1..8).collect { new Order("ORDER" + it, new BigDecimal("40.00"), [methods.CARD0, methods.CARD1, methods.CARD2]) }
+        def exhaustive = optimizer(orders, methods, SearchMode.EXHAUSTIVE, Arithmetic.LONG_CENTS)
+        def memoized = optimizer(orders, methods, SearchMode.MEMOIZED, Arithmetic.LONG_CENTS)
+
+        when:
+        def reference = exhaustive.findOptimalPaymentPlan()
+        def plan = memoized.findOptimalPaymentPlan()
+        def statistics = memoized.getLastSearchStatistics()
+
+        then:
+        plan == reference
+        statistics.memoHits() > 0
+        statistics.memoHitRate() > 0
+        statistics.memoEntries() > 0
+        statistics.memoMemoryBytes() > 0
+        statistics.nodesVisited() < exhaustive.getLastSearchStatistics().nodesVisited()
+    }
+
+    def "a search that finishes within its budget should return the unbudgeted plan"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 1 + random.nextInt(6))
+        def budgeted = OptimizerSettings.builder().searchMode(mode).timeBudget(Duration.ofMinutes(1)).build()
+
+        when:
+        def reference = optimizer(orders, methods, mode, Arithmetic.LONG_CENTS).findOptimalPaymentPlan()
+        def result = optimizer(orders, methods, budgeted).findPaymentPlanWithinBudget()
+
+        then:
+        result.complete()
+        result.plan() == reference
+        result.optimalityGap() == BigDecimal.ZERO
+
+        where:
+        [seed, mode] << [(1..60), [SearchMode.EXHAUSTIVE, SearchMode.BRANCH_AND_BOUND]].combinations()
+    }
+
+    def "a cancelled search should return the greedy plan and bound the optimum"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 6)
+        def token = new CancellationToken()
+        token.cancel()
+        def cancelled = OptimizerSettings.builder()
+                .searchMode(SearchMode.BRANCH_AND_BOUND).cancellationToken(token).parallelism(parallelism).build()
+
+        when:
+        def optimum = optimizer(orders, methods, SearchMode.BRANCH_AND_BOUND, Arithmetic.LONG_CENTS).findPaymentPlanWithinBudget()
+        def result = optimizer(orders, methods, cancelled).findPaymentPlanWithinBudget()
+
+        then:
+        !result.complete()
+        result.discount() <= optimum.discount()
+        result.discountUpperBound() >= optimum.discount()
+        result.optimalityGap() >= BigDecimal.ZERO
+        result.optimalityGap() <= BigDecimal.ONE
+        result.plan().isEmpty() || result.plan().size() == orders.size()
+
+        where:
+        [seed, parallelism] << [(1..40), [1, 4]].combinations()
+    }
+
+    def "an interrupt of the calling thread should stop the search"() {
+        given:
+        def methods = interchangeableMethods()
+        def orders = (1..6).collect { new Order("ORDER" + it, new BigDecimal("100.00"), [methods.CARD0, methods.CARD1]) }
+        def settings = OptimizerSettings.builder().timeBudget(Duration.ofHours(1)).build()
+
+        when:
+        Thread.currentThread().interrupt()
+        def result
+        try{
+            result = optimizer(orders, methods, settings).findPaymentPlanWithinBudget()
+        } finally {
+            Thread.interrupted()
+        }
+
+        then:
+        !result.complete()
+        result.plan().size() == orders.size()
+    }
+
+    def "should reject a parallelism below one"() {
+        when:
+        optimizer([], interchangeableMethods(), SearchMode.EXHAUSTIVE, Arithmetic.LONG_CENTS, 0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "should fall back to BigDecimal when amounts do not fit in long cents"() {
+        given:
+        def methods = [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("99999999999999999999.00")),
+                "Visa"  : new PaymentMethod("Visa", new BigDecimal("5"), new BigDecimal("100.00"))
+        ]
+        def orders = [new Order("O1", new BigDecimal("80.00"), [methods.Visa]), new Order("O2", new BigDecimal("20.00"), [])]
+
+        expect:
+        !representableInCents(orders, methods)
+        optimizer(orders, methods, SearchMode.BRANCH_AND_BOUND, Arithmetic.LONG_CENTS).findOptimalPaymentPlan() ==
+                optimizer(orders, methods, SearchMode.BRANCH_AND_BOUND, Arithmetic.BIG_DECIMAL).findOptimalPaymentPlan()
+    }
+}
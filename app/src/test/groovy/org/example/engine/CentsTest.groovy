@@ -0,0 +1,30 @@
+package org.example.engine
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CentsTest extends Specification {
+
+    @Unroll
+    def "should convert #amount to #cents cents and back"() {
+        expect:
+        Cents.toCents(new BigDecimal(amount)) == cents
+        Cents.toBigDecimal(cents) == new BigDecimal(amount).setScale(2)
+
+        where:
+        amount    | cents
+        "0"       | 0L
+        "0.01"    | 1L
+        "12.3"    | 1230L
+        "100.00"  | 10000L
+        "-4.05"   | -405L
+    }
+
+    def "should refuse amounts finer than a cent"() {
+        when:
+        Cents.toCents(new BigDecimal("10.005"))
+
+        then:
+        thrown(ArithmeticException)
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.engine
+
+import spock.lang.Specification
+
+class DenseSimplexTest extends Specification {
+    private static final double[][] A = [[1, 1], [1, 3], [1, 0]] as double[][]
+    private static final double[] C = [3, 2] as double[]
+
+    private static double dualObjective(DenseSimplex simplex, double[] b) {
+        double[] y = new double[b.length]
+        simplex.duals(y)
+        (0..<b.length).sum { b[it] * y[it] } as double
+    }
+
+    def "duals of the optimal tableau should price the right-hand side at the optimum"() {
+        given: "max 3x + 2y with x + y <= 4, x + 3y <= 6, x <= 3; optimum at x = 3, y = 1"
+        double[] b = [4, 6, 3] as double[]
+
+        expect:
+        Math.abs(dualObjective(DenseSimplex.solve(A, b, C), b) - 11) < 1e-9
+    }
+
+    def "re-solving for another right-hand side should match a fresh solve"() {
+        given:
+        def warm = DenseSimplex.solve(A, [4, 6, 3] as double[], C)
+        double[] b = rhs as double[]
+
+        when:
+        warm.resolve(b)
+
+        then:
+        Math.abs(dualObjective(warm, b) - optimum) < 1e-9
+        Math.abs(dualObjective(DenseSimplex.solve(A, b, C), b) - optimum) < 1e-9
+
+        where:
+        rhs       | optimum
+        [4, 6, 3] | 11
+        [2, 6, 3] | 6
+        [4, 3, 1] | 13 / 3
+        [0, 0, 0] | 0
+        [9, 9, 9] | 27
+    }
+
+    def "copies should re-solve independently of their source"() {
+        given:
+        def root = DenseSimplex.solve(A, [4, 6, 3] as double[], C)
+        def copy = root.emptyCopy()
+        root.copyInto(copy)
+
+        when:
+        copy.resolve([1, 1, 1] as double[])
+
+        then:
+        Math.abs(dualObjective(root, [4, 6, 3] as double[]) - 11) < 1e-9
+        Math.abs(dualObjective(copy, [1, 1, 1] as double[]) - 3) < 1e-9
+    }
+
+    def "should reject a negative right-hand side"() {
+        when:
+        DenseSimplex.solve(A, [4, -1, 3] as double[], C)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
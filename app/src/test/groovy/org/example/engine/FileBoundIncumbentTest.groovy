@@ -0,0 +1,69 @@
+package org.example.engine
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class FileBoundIncumbentTest extends Specification {
+
+    @TempDir
+    Path directory
+
+    def "a published bound should only prune what cannot tie with it"() {
+        given:
+        def boundFile = directory.resolve("bound")
+        FileBoundIncumbent.publish(boundFile, 500, 200)
+        def incumbent = new FileBoundIncumbent(boundFile)
+
+        expect:
+        incumbent.cannotBeat(499, 1_000)
+        incumbent.cannotBeat(500, 199)
+        !incumbent.cannotBeat(500, 200)
+        !incumbent.cannotBeat(501, 0)
+        incumbent.bestTrail() == null
+    }
+
+    def "a better plan should be published and a worse one should not"() {
+        given:
+        def boundFile = directory.resolve("bound")
+        def incumbent = new FileBoundIncumbent(boundFile)
+
+        when:
+        incumbent.offer(300, 50, [1, 2] as int[])
+        incumbent.offer(200, 90, [0, 0] as int[])
+
+        then:
+        Files.readString(boundFile).trim() == "300 50"
+        incumbent.bestTrail() == [1, 2] as int[]
+        incumbent.bestPointsCents() == 50
+    }
+
+    def "a plan below another worker's bound should be kept for the shard without lowering the bound"() {
+        given:
+        def boundFile = directory.resolve("bound")
+        def incumbent = new FileBoundIncumbent(boundFile)
+        FileBoundIncumbent.publish(boundFile, 900, 0)
+
+        when:
+        incumbent.offer(400, 10, [3] as int[])
+
+        then:
+        Files.readString(boundFile).trim() == "900 0"
+        incumbent.bestDiscountCents() == 400
+    }
+
+    def "a missing or garbled bound file should not bound anything"() {
+        given:
+        def boundFile = directory.resolve("bound")
+        Files.writeString(boundFile, content)
+
+        expect:
+        !new FileBoundIncumbent(boundFile).cannotBeat(0, 0)
+        !new FileBoundIncumbent(directory.resolve("missing")).cannotBeat(0, 0)
+
+        where:
+        content << ["", "12", "a b", "1 2 3"]
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.engine
+
+import org.example.domain.OptimizerSettings
+import org.example.domain.PaymentMethod
+import org.example.domain.PaymentOptimizer
+import org.example.domain.SearchMode
+import spock.lang.Specification
+
+class IncrementalOptimizerTest extends Specification {
+
+    private static final RandomBaskets BASKETS = new RandomBaskets(
+            pointsDiscounts: ["0", "5", "10", "15"],
+            minCards: 1,
+            cardDiscounts: ["0", "5", "10", "15", "20"],
+            cardLimitCents: { Random random, int card -> random.nextInt(60_000) },
+            valueCents: { Random random -> random.nextInt(8) == 0 ? 0 : random.nextInt(25_000) })
+
+    // one random edit of the basket or the limits
+    private static void edit(Random random, IncrementalOptimizer optimizer, int step) {
+        def orders = optimizer.orders()
+        def methods = optimizer.paymentMethods().paymentMethods()
+        switch(orders.isEmpty() ? 0 : random.nextInt(4)){
+            case 0:
+                optimizer.addOrder("ADDED" + step, BASKETS.value(random), BASKETS.promotions(random, methods)*.id)
+                break
+            case 1:
+                optimizer.removeOrder(orders[random.nextInt(orders.size())].id())
+                break
+            case 2:
+                optimizer.changeOrderValue(orders[random.nextInt(orders.size())].id(), BASKETS.value(random))
+                break
+            default:
+                def methodIds = methods.keySet() as List
+                optimizer.changeLimit(methodIds[random.nextInt(methodIds.size())], BigDecimal.valueOf(random.nextInt(60_000), 2))
+        }
+    }
+
+    def "every re-solve should return the plan of a full solve"() {
+        given:
+        def random = new Random(seed)
+        def prepared = PreparedPaymentMethods.of(BASKETS.methods(random))
+        def basket = BASKETS.orders(random, prepared.paymentMethods(), 1 + random.nextInt(5))
+        def settings = OptimizerSettings.builder().searchMode(mode).build()
+        def optimizer = new IncrementalOptimizer(settings, prepared, basket)
+        def engine = new OptimizerEngine(settings)
+
+        expect:
+        (1..8).every { step ->
+            def result = optimizer.solve()
+            def reference = engine.solve(optimizer.paymentMethods(), optimizer.orders())
+            edit(random, optimizer, step)
+            result.complete() && result.plan() == reference.plan() && result.discount() == reference.discount()
+        }
+
+        where:
+        [seed, mode] << [(1..60), [SearchMode.EXHAUSTIVE, SearchMode.BRANCH_AND_BOUND, SearchMode.MEMOIZED]].combinations()
+    }
+
+    def "adding one order should re-solve from the previous plan with fewer nodes than a full solve"() {
+        given: "limits that bind, so the search cannot be split into independent orders"
+        def random = new Random(3)
+        def prepared = PreparedPaymentMethods.of([
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("300.00")),
+                "CARD0" : new PaymentMethod("CARD0", new BigDecimal("10"), new BigDecimal("600.00")),
+                "CARD1" : new PaymentMethod("CARD1", new BigDecimal("5"), new BigDecimal("600.00")),
+                "CARD2" : new PaymentMethod("CARD2", new BigDecimal("20"), new BigDecimal("400.00"))
+        ])
+        def basket = (0..<9).collect {
+            prepared.order("ORDER" + it, BigDecimal.valueOf(5_000 + random.nextInt(20_000), 2), BASKETS.promotions(random, prepared.paymentMethods())*.id)
+        }
+        def settings = OptimizerSettings.builder().searchMode(SearchMode.BRANCH_AND_BOUND).build()
+        def optimizer = new IncrementalOptimizer(settings, prepared, basket)
+        optimizer.solve()
+
+        when:
+        optimizer.addOrder("ORDER9", new BigDecimal("80.00"), ["CARD1"])
+        def plan = optimizer.findOptimalPaymentPlan()
+        def full = new PaymentOptimizer(optimizer.orders(), prepared.discountCalculator(), prepared.methodIndex(), settings)
+        def reference = full.findOptimalPaymentPlan()
+
+        then:
+        plan == reference
+        optimizer.getLastSearchStatistics().nodesVisited() < full.getLastSearchStatistics().nodesVisited()
+    }
+
+    def "should keep the payment methods of a changed limit for the orders and the plan"() {
+        given:
+        def prepared = PreparedPaymentMethods.of([
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("100.00")),
+                "mZysk" : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("180.00"))
+        ])
+        def optimizer = new IncrementalOptimizer(OptimizerSettings.defaults(), prepared,
+                [prepared.order("ORDER1", new BigDecimal("200.00"), ["mZysk"])])
+        optimizer.solve()
+
+        when:
+        optimizer.changeLimit("mZysk", new BigDecimal("500.00"))
+        def plan = optimizer.findOptimalPaymentPlan()
+        def mZysk = optimizer.paymentMethods().method("mZysk")
+
+        then:
+        mZysk.methodLimit == new BigDecimal("500.00")
+        optimizer.orders()[0].applicablePromotions() == [mZysk]
+        plan[0].actualAmountSpent().containsKey(mZysk)
+    }
+
+    def "should reject edits of orders and methods that do not exist"() {
+        given:
+        def prepared = PreparedPaymentMethods.of(["mZysk": new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("180.00"))])
+        def optimizer = new IncrementalOptimizer(OptimizerSettings.defaults(), prepared,
+                [prepared.order("ORDER1", new BigDecimal("20.00"), [])])
+
+        when:
+        edit(optimizer)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        edit << [
+                { IncrementalOptimizer it -> it.addOrder("ORDER1", BigDecimal.ONE, []) },
+                { IncrementalOptimizer it -> it.removeOrder("ORDER2") },
+                { IncrementalOptimizer it -> it.changeOrderValue("ORDER2", BigDecimal.ONE) },
+                { IncrementalOptimizer it -> it.changeLimit("PUNKTY", BigDecimal.ONE) }
+        ]
+    }
+}
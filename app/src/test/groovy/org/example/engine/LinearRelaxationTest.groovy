@@ -0,0 +1,144 @@
+package org.example.engine
+
+import org.example.domain.CancellationToken
+import org.example.domain.OptimizerSettings
+import org.example.domain.OptionOrdering
+import org.example.domain.Order
+import org.example.domain.OrderOrdering
+import org.example.domain.PaymentMethod
+import org.example.domain.PaymentOptimizer
+import org.example.domain.SearchMode
+import org.example.logic.DiscountCalculator
+import org.example.logic.PaymentOptionTable
+import spock.lang.Specification
+
+class LinearRelaxationTest extends Specification {
+    private static final List<String> DISCOUNTS = ["0", "5", "7.5", "10", "12.25", "15", "33.33", "50"]
+    // limits well below the basket, so that they bind
+    private static final RandomBaskets BASKETS = new RandomBaskets(pointsDiscounts: DISCOUNTS, cardDiscounts: DISCOUNTS)
+
+    private static CentsProblem problem(List<Order> orders, Map<String, PaymentMethod> methods) {
+        def cards = methods.values().findAll { !it.isPoints() } as List
+        def table = PaymentOptionTable.build(orders, new DiscountCalculator(methods.PUNKTY, cards))
+        return CentsProblem.from(table, PaymentMethodIndex.of(methods.values() as List, methods.PUNKTY, cards)).get()
+    }
+
+    private static PaymentOptimizer optimizer(List<Order> orders, Map<String, PaymentMethod> methods, OptimizerSettings settings) {
+        def calculator = new DiscountCalculator(methods.PUNKTY, methods.values().findAll { !it.isPoints() } as List)
+        return new PaymentOptimizer(orders, calculator, methods, settings)
+    }
+
+    // points and Visa short, mZysk pays the rest
+    private static Map<String, PaymentMethod> tightMethods() {
+        [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("120.00")),
+                "mZysk" : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("100000.00")),
+                "Visa"  : new PaymentMethod("Visa", new BigDecimal("20"), new BigDecimal("200.00"))
+        ]
+    }
+
+    private static List<Order> tightOrders(Map<String, PaymentMethod> methods) {
+        (1..12).collect { new Order("ORDER" + it, new BigDecimal(90 + 13 * it), it % 3 == 0 ? [methods.mZysk] : [methods.Visa, methods.mZysk]) }
+    }
+
+    def "the root bound should lie between the optimum and the per-order bound"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 1 + random.nextInt(7))
+        def problem = problem(orders, methods)
+        def optimum = new CentsSearchEngine(problem, SearchMode.BRANCH_AND_BOUND).searchWithinBudget()
+
+        when:
+        def relaxation = LinearRelaxation.of(problem, 1)
+
+        then:
+        relaxation == null || Cents.toBigDecimal(relaxation.rootBoundCents()) >= optimum.discount()
+        relaxation == null || optimum.plan().isEmpty() || relaxation.rootBoundCents() <= problem.maxRemainingDiscountCents[0]
+
+        where:
+        seed << (1..300)
+    }
+
+    def "the relaxation should see that orders share their limits"() {
+        given:
+        def methods = tightMethods()
+        def problem = problem(tightOrders(methods), methods)
+        def optimum = new CentsSearchEngine(problem, SearchMode.BRANCH_AND_BOUND).searchWithinBudget()
+
+        when:
+        def relaxation = LinearRelaxation.of(problem, 1)
+
+        then:
+        relaxation.rootBoundCents() < problem.maxRemainingDiscountCents[0]
+        Cents.toBigDecimal(relaxation.rootBoundCents()) >= optimum.discount()
+    }
+
+    def "no relaxation should be built when no limit can run short"() {
+        given:
+        def methods = [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("10000.00")),
+                "mZysk" : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("10000.00"))
+        ]
+        def orders = (1..3).collect { new Order("ORDER" + it, new BigDecimal("50.00"), [methods.mZysk]) }
+
+        expect:
+        LinearRelaxation.of(problem(orders, methods), 4) == null
+    }
+
+    def "searches bounded by the relaxation should return the plan of the search without it"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 1 + random.nextInt(7))
+        def plain = OptimizerSettings.builder().searchMode(SearchMode.BRANCH_AND_BOUND).build()
+        def reference = optimizer(orders, methods, plain).findOptimalPaymentPlan()
+
+        expect:
+        [[1, 3, 100], [1, 4]].combinations().every { int depth, int parallelism ->
+            optimizer(orders, methods, plain.toBuilder().relaxationDepth(depth).parallelism(parallelism).build()).findOptimalPaymentPlan() == reference
+        }
+        optimizer(orders, methods, plain.toBuilder().relaxationDepth(100).decomposeSlack(false)
+                .orderOrdering(OrderOrdering.HIGHEST_VALUE).optionOrdering(OptionOrdering.HIGHEST_DISCOUNT).build()).findOptimalPaymentPlan() == reference
+
+        where:
+        seed << (1..200)
+    }
+
+    def "the relaxation should prune nodes the per-order bound keeps"() {
+        given:
+        def methods = tightMethods()
+        def orders = tightOrders(methods)
+        def plain = optimizer(orders, methods, OptimizerSettings.builder().searchMode(SearchMode.BRANCH_AND_BOUND).decomposeSlack(false).build())
+        def relaxed = optimizer(orders, methods, OptimizerSettings.builder().searchMode(SearchMode.BRANCH_AND_BOUND).decomposeSlack(false)
+                .relaxationDepth(100).build())
+
+        when:
+        def reference = plain.findOptimalPaymentPlan()
+        def plan = relaxed.findOptimalPaymentPlan()
+
+        then:
+        plan == reference
+        relaxed.getLastSearchStatistics().nodesVisited() < plain.getLastSearchStatistics().nodesVisited()
+    }
+
+    def "a stopped search should be bounded by the root relaxation"() {
+        given:
+        def methods = tightMethods()
+        def orders = tightOrders(methods)
+        def token = new CancellationToken()
+        token.cancel()
+        def settings = OptimizerSettings.builder().searchMode(SearchMode.BRANCH_AND_BOUND).decomposeSlack(false)
+                .relaxationDepth(4).cancellationToken(token).build()
+        def problem = problem(orders, methods)
+
+        when:
+        def optimum = optimizer(orders, methods, OptimizerSettings.builder().searchMode(SearchMode.BRANCH_AND_BOUND).build()).findPaymentPlanWithinBudget()
+        def result = optimizer(orders, methods, settings).findPaymentPlanWithinBudget()
+
+        then:
+        !result.complete()
+        result.discountUpperBound() >= optimum.discount()
+        result.discountUpperBound() <= Cents.toBigDecimal(LinearRelaxation.of(problem, 1).rootBoundCents())
+    }
+}
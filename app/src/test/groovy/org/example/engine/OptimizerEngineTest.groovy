@@ -0,0 +1,115 @@
+package org.example.engine
+
+import org.example.domain.Arithmetic
+import org.example.domain.OptimizerSettings
+import org.example.domain.PaymentMethod
+import org.example.domain.PaymentOptimizer
+import org.example.domain.SearchMode
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class OptimizerEngineTest extends Specification {
+    private static final OptimizerSettings SETTINGS = OptimizerSettings.builder()
+            .searchMode(SearchMode.BRANCH_AND_BOUND)
+            .arithmetic(Arithmetic.LONG_CENTS)
+            .build()
+
+    private static PreparedPaymentMethods prepared() {
+        PreparedPaymentMethods.of([
+                "PUNKTY"    : new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("100.00")),
+                "mZysk"     : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("180.00")),
+                "BosBankrut": new PaymentMethod("BosBankrut", new BigDecimal("5"), new BigDecimal("200.00"))
+        ])
+    }
+
+    private static final RandomBaskets BASKETS = new RandomBaskets(valueCents: { Random random -> random.nextInt(1, 15_000) }, promotionOdds: 2)
+
+    def "should return the plan PaymentOptimizer returns for the same methods"() {
+        given:
+        def methods = prepared()
+        def basket = [
+                methods.order("ORDER1", new BigDecimal("100.00"), ["mZysk"]),
+                methods.order("ORDER2", new BigDecimal("200.00"), ["BosBankrut"]),
+                methods.order("ORDER3", new BigDecimal("150.00"), ["mZysk", "BosBankrut"]),
+                methods.order("ORDER4", new BigDecimal("50.00"), [])
+        ]
+        def expected = new PaymentOptimizer(basket, methods.discountCalculator(), methods.paymentMethods(), SETTINGS)
+                .findOptimalPaymentPlan()
+
+        when:
+        def result = new OptimizerEngine(SETTINGS).solve(methods, basket)
+
+        then:
+        result.complete()
+        result.plan() == expected
+    }
+
+    def "should give every concurrent solve the plan a sequential solve gives"() {
+        given:
+        def engine = new OptimizerEngine(SETTINGS)
+        def methods = prepared()
+        def random = new Random(12)
+        def baskets = (0..<2_000).collect { BASKETS.orders(random, methods.paymentMethods(), random.nextInt(1, 7)) }
+        def expected = baskets.collect { engine.findOptimalPaymentPlan(methods, it) }
+
+        when:
+        def actual = Executors.newVirtualThreadPerTaskExecutor().withCloseable { executor ->
+            def futures = baskets.collect { basket -> executor.submit({ engine.findOptimalPaymentPlan(methods, basket) } as Callable) }
+            futures*.get()
+        }
+
+        then:
+        actual == expected
+    }
+
+    def "should run the parallel searches of all solves on one pool"() {
+        given:
+        def sequential = new OptimizerEngine(SETTINGS)
+        def engine = new OptimizerEngine(SETTINGS.toBuilder().parallelism(4).parallelSplitDepth(2).build())
+        def pool = engine.settings().forkJoinPool
+        def methods = prepared()
+        def random = new Random(21)
+        def baskets = (0..<200).collect { BASKETS.orders(random, methods.paymentMethods(), random.nextInt(3, 9)) }
+
+        when:
+        def actual = Executors.newVirtualThreadPerTaskExecutor().withCloseable { executor ->
+            def futures = baskets.collect { basket -> executor.submit({ engine.findOptimalPaymentPlan(methods, basket) } as Callable) }
+            futures*.get()
+        }
+
+        then:
+        pool.parallelism == 4
+        engine.settings().forkJoinPool.is(pool)
+        !pool.isShutdown()
+        actual == baskets.collect { sequential.findOptimalPaymentPlan(methods, it) }
+    }
+
+    def "should resolve promotion IDs and skip unknown or blank ones"() {
+        given:
+        def methods = prepared()
+
+        when:
+        def order = methods.order("ORDER1", new BigDecimal("10.00"), ["mZysk", "", "VISA", "BosBankrut"])
+
+        then:
+        order.applicablePromotions() == [methods.method("mZysk"), methods.method("BosBankrut")]
+    }
+
+    def "should not let callers change the prepared methods"() {
+        when:
+        prepared().paymentMethods().remove("PUNKTY")
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "should reject parallelism below one"() {
+        when:
+        new OptimizerEngine(OptimizerSettings.builder().parallelism(0).build())
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
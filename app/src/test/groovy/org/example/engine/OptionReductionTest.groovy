@@ -0,0 +1,149 @@
+package org.example.engine
+
+import org.example.domain.Arithmetic
+import org.example.domain.OptimizerSettings
+import org.example.domain.Order
+import org.example.domain.PaymentMethod
+import org.example.domain.PaymentOptimizer
+import org.example.domain.PaymentStrategyType
+import org.example.domain.SearchMode
+import org.example.logic.DiscountCalculator
+import org.example.logic.PaymentOptionTable
+import spock.lang.Specification
+
+/*
+ * Differential suite: with dominated options dropped and symmetric branches skipped, every search must still
+ * return exactly the plan of the unreduced exhaustive search, ties included.
+ */
+class OptionReductionTest extends Specification {
+
+    // few distinct discounts, limits and order values, so interchangeable cards and identical orders are common
+    private static final RandomBaskets BASKETS = new RandomBaskets(
+            pointsOdds: 4,
+            pointsDiscounts: ["10", "15"],
+            pointsLimitCents: { Random random -> [0, 4_000, 12_000][random.nextInt(3)] },
+            minCards: 1,
+            maxCards: 4,
+            cardDiscounts: ["0", "5", "10"],
+            cardLimitCents: { Random random, int card -> [10_000, 25_000][random.nextInt(2)] },
+            valueCents: { Random random -> [0, 5_000, 8_000, 10_000][random.nextInt(4)] },
+            maxCopies: 3)
+
+    private static PaymentOptimizer optimizer(List<Order> orders, Map<String, PaymentMethod> methods, OptimizerSettings settings) {
+        def calculator = new DiscountCalculator(methods.PUNKTY, methods.values().findAll { !it.isPoints() } as List)
+        return new PaymentOptimizer(orders, calculator, methods, settings)
+    }
+
+    def "reduced searches should return the unreduced exhaustive plan"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 2 + random.nextInt(5))
+        def reference = optimizer(orders, methods, OptimizerSettings.builder()
+                .searchMode(SearchMode.EXHAUSTIVE).arithmetic(Arithmetic.BIG_DECIMAL).reduceOptions(false).build())
+                .findOptimalPaymentPlan()
+
+        expect:
+        [SearchMode.values(), Arithmetic.values()].combinations().every { SearchMode mode, Arithmetic arithmetic ->
+            optimizer(orders, methods, OptimizerSettings.builder()
+                    .searchMode(mode).arithmetic(arithmetic).build()).findOptimalPaymentPlan() == reference
+        }
+        optimizer(orders, methods, OptimizerSettings.builder()
+                .searchMode(SearchMode.BRANCH_AND_BOUND).parallelism(4).build()).findOptimalPaymentPlan() == reference
+
+        where:
+        seed << (1..250)
+    }
+
+    def "reduced long-cents search should still visit the same nodes as the reduced BigDecimal search"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 5)
+        def reference = optimizer(orders, methods, OptimizerSettings.builder().searchMode(mode).arithmetic(Arithmetic.BIG_DECIMAL).build())
+        def cents = optimizer(orders, methods, OptimizerSettings.builder().searchMode(mode).arithmetic(Arithmetic.LONG_CENTS).build())
+
+        when:
+        reference.findOptimalPaymentPlan()
+        cents.findOptimalPaymentPlan()
+
+        then:
+        cents.getLastSearchStatistics() == reference.getLastSearchStatistics()
+
+        where:
+        [seed, mode] << [(1..20), [SearchMode.EXHAUSTIVE, SearchMode.BRANCH_AND_BOUND]].combinations()
+    }
+
+    def "should keep one partial-points option and drop full payment on a card that promotes the order"() {
+        given:
+        def points = new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("100.00"))
+        def mZysk = new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("180.00"))
+        def bos = new PaymentMethod("BosBankrut", new BigDecimal("5"), new BigDecimal("200.00"))
+        def calculator = new DiscountCalculator(points, [mZysk, bos])
+        def table = PaymentOptionTable.build([new Order("ORDER1", new BigDecimal("100.00"), [mZysk])], calculator)
+        def index = PaymentMethodIndex.of([points, mZysk, bos], points, [mZysk, bos])
+
+        when:
+        def reduction = OptionReduction.reduce(table, index)
+
+        then: "promotion, points, one partial, full payment on BosBankrut"
+        reduction.table().options(0)*.paymentStrategyType() == [PaymentStrategyType.FULL_CARD_WITH_PROMOTION,
+                                                                PaymentStrategyType.FULL_POINTS_OWN_DISCOUNT,
+                                                                PaymentStrategyType.PARTIAL_POINTS_10_PERCENT_GLOBAL_DISCOUNT,
+                                                                PaymentStrategyType.FULL_PAYMENT_NO_PROMOTION]
+        reduction.table().options(0)[3].spent().keySet() == [bos] as Set
+        reduction.branchesBefore() == 1 + 1 + 2 * 2 + 2
+        reduction.branchesAfter() == 1 + 1 + 2 + 1
+        reduction.branchingFactorAfter() < reduction.branchingFactorBefore()
+    }
+
+    def "should put cards in one class only while later orders treat them alike"() {
+        given:
+        def cards = (0..<3).collect { new PaymentMethod("CARD" + it, new BigDecimal("5"), new BigDecimal("100.00")) }
+        def calculator = new DiscountCalculator(null, cards)
+        def orders = [
+                new Order("ORDER0", new BigDecimal("10.00"), []),
+                new Order("ORDER1", new BigDecimal("10.00"), [cards[0], cards[1]]),
+                new Order("ORDER2", new BigDecimal("10.00"), [])
+        ]
+        def reduction = OptionReduction.reduce(PaymentOptionTable.build(orders, calculator), PaymentMethodIndex.of(cards, null, cards))
+
+        expect:
+        reduction.cardClassAfter(0, 0) == reduction.cardClassAfter(0, 1)
+        reduction.cardClassAfter(0, 0) != reduction.cardClassAfter(0, 2)
+        (0..<3).collect { reduction.cardClassAfter(1, it) }.unique().size() == 1
+        !reduction.sameAsPrevious(1)
+        reduction.mirroredBy(2, 2) == [0, 1] as int[]
+    }
+
+    def "should report identical adjacent orders"() {
+        given:
+        def card = new PaymentMethod("CARD0", new BigDecimal("5"), new BigDecimal("100.00"))
+        def orders = (0..<3).collect { new Order("ORDER" + it, new BigDecimal("10.00"), [card]) }
+        def reduction = OptionReduction.reduce(PaymentOptionTable.build(orders, new DiscountCalculator(null, [card])),
+                PaymentMethodIndex.of([card], null, [card]))
+
+        expect:
+        (0..<3).collect { reduction.sameAsPrevious(it) } == [false, true, true]
+    }
+
+    def "should cut the exhaustive tree on identical orders and interchangeable cards"() {
+        given:
+        def methods = [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("10"), new BigDecimal("150.00")),
+                "CARD0" : new PaymentMethod("CARD0", new BigDecimal("10"), new BigDecimal("500.00")),
+                "CARD1" : new PaymentMethod("CARD1", new BigDecimal("10"), new BigDecimal("500.00")),
+                "CARD2" : new PaymentMethod("CARD2", new BigDecimal("10"), new BigDecimal("500.00"))
+        ]
+        def orders = (1..5).collect { new Order("ORDER" + it, new BigDecimal("100.00"), []) }
+        def full = optimizer(orders, methods, OptimizerSettings.builder().reduceOptions(false).build())
+        def reduced = optimizer(orders, methods, OptimizerSettings.defaults())
+
+        when:
+        def plan = reduced.findOptimalPaymentPlan()
+
+        then:
+        plan == full.findOptimalPaymentPlan()
+        reduced.getLastSearchStatistics().nodesVisited() * 10 < full.getLastSearchStatistics().nodesVisited()
+    }
+}
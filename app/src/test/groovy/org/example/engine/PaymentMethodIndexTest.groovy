@@ -0,0 +1,38 @@
+package org.example.engine
+
+import org.example.domain.PaymentMethod
+import spock.lang.Specification
+
+class PaymentMethodIndexTest extends Specification {
+    PaymentMethod points = new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("100.00"))
+    PaymentMethod mZysk = new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("180.00"))
+    PaymentMethod bosBankrut = new PaymentMethod("BosBankrut", new BigDecimal("5"), new BigDecimal("200.00"))
+
+    def "should assign dense indices in the given order"() {
+        when:
+        def index = PaymentMethodIndex.of([mZysk, points, bosBankrut], points, [mZysk, bosBankrut])
+
+        then:
+        index.size() == 3
+        index.indexOf("mZysk") == 0
+        index.indexOf("PUNKTY") == 1
+        index.indexOf("BosBankrut") == 2
+        index.method(2).is(bosBankrut)
+        index.pointsIndex() == 1
+        index.pointsMethod().is(points)
+        index.cardCount() == 2
+        index.cardIndex(0) == 0
+        index.cardIndex(1) == 2
+        index.card(1).is(bosBankrut)
+    }
+
+    def "should report unknown ids and a missing points method"() {
+        when:
+        def index = PaymentMethodIndex.of([mZysk], null, [mZysk])
+
+        then:
+        index.indexOf("PUNKTY") == PaymentMethodIndex.UNKNOWN
+        index.pointsIndex() == PaymentMethodIndex.UNKNOWN
+        index.pointsMethod() == null
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.engine
+
+import org.example.domain.Order
+import org.example.domain.PaymentMethod
+
+/*
+ * Seeded random payment methods and baskets for the differential specs. Every spec sets the ranges its engine
+ * needs through the named-argument constructor, e.g. new RandomBaskets(maxCards: 2, cardLimitCents: { random, card -> 10_000 });
+ * limits and order values are drawn in cents.
+ */
+class RandomBaskets {
+    static final List<String> DISCOUNTS = ["0", "5", "7.5", "10", "15", "33.33", "50"]
+
+    // PUNKTY is left out once in pointsOdds draws
+    int pointsOdds = 5
+    List<String> pointsDiscounts = DISCOUNTS
+    Closure<Number> pointsLimitCents = { Random random -> random.nextInt(30_000) }
+
+    // between minCards and maxCards cards CARD0, CARD1, ...
+    int minCards = 0
+    int maxCards = 3
+    List<String> cardDiscounts = DISCOUNTS
+    Closure<Number> cardLimitCents = { Random random, int card -> random.nextInt(40_000) }
+
+    Closure<Number> valueCents = { Random random -> random.nextInt(4) == 0 ? random.nextInt(60) : random.nextInt(25_000) }
+    // every card promotes an order once in promotionOdds draws
+    int promotionOdds = 3
+    // above 1, orders come in runs of up to maxCopies identical ones
+    int maxCopies = 1
+
+    Map<String, PaymentMethod> methods(Random random) {
+        Map<String, PaymentMethod> methods = new LinkedHashMap<>()
+        if(random.nextInt(pointsOdds) > 0){
+            methods.PUNKTY = new PaymentMethod("PUNKTY", new BigDecimal(pointsDiscounts[random.nextInt(pointsDiscounts.size())]),
+                    BigDecimal.valueOf(pointsLimitCents(random) as long, 2))
+        }
+        int cardCount = minCards + random.nextInt(maxCards - minCards + 1)
+        for(int i = 0; i < cardCount; i++){
+            methods["CARD" + i] = new PaymentMethod("CARD" + i, new BigDecimal(cardDiscounts[random.nextInt(cardDiscounts.size())]),
+                    BigDecimal.valueOf(cardLimitCents(random, i) as long, 2))
+        }
+        return methods
+    }
+
+    List<Order> orders(Random random, Map<String, PaymentMethod> methods, int orderCount) {
+        List<Order> orders = []
+        while(orders.size() < orderCount){
+            def value = value(random)
+            def promotions = promotions(random, methods)
+            int copies = maxCopies > 1 ? Math.min(1 + random.nextInt(maxCopies), orderCount - orders.size()) : 1
+            copies.times { orders << new Order("ORDER" + orders.size(), value, promotions) }
+        }
+        return orders
+    }
+
+    BigDecimal value(Random random) {
+        BigDecimal.valueOf(valueCents(random) as long, 2)
+    }
+
+    List<PaymentMethod> promotions(Random random, Map<String, PaymentMethod> methods) {
+        methods.values().findAll { !it.isPoints() && random.nextInt(promotionOdds) == 0 } as List
+    }
+}
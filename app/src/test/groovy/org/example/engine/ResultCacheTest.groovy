@@ -0,0 +1,168 @@
+package org.example.engine
+
+import org.example.domain.AnytimeResult
+import org.example.domain.OptimizerSettings
+import org.example.domain.PaymentMethod
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class ResultCacheTest extends Specification {
+
+    @TempDir
+    Path directory
+
+    private static PreparedPaymentMethods methods(String cardDiscount = "10", String pointsLimit = "100.00") {
+        def methods = new LinkedHashMap<String, PaymentMethod>()
+        methods.PUNKTY = new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal(pointsLimit))
+        methods.mZysk = new PaymentMethod("mZysk", new BigDecimal(cardDiscount), new BigDecimal("180.00"))
+        methods.BosBankrut = new PaymentMethod("BosBankrut", new BigDecimal("5"), new BigDecimal("200.00"))
+        PreparedPaymentMethods.of(methods)
+    }
+
+    private static List basket(PreparedPaymentMethods prepared, String firstValue = "100.00") {
+        [prepared.order("ORDER1", new BigDecimal(firstValue), ["mZysk"]),
+         prepared.order("ORDER2", new BigDecimal("200.00"), ["BosBankrut"]),
+         prepared.order("ORDER3", new BigDecimal("150.00"), ["mZysk", "BosBankrut"])]
+    }
+
+    private static Map<String, String> spentById(AnytimeResult result) {
+        result.plan().collectEntries { payment ->
+            [(payment.orderId()): payment.actualAmountSpent().collectEntries { method, amount -> [(method.id): amount.toPlainString()] }]
+        }
+    }
+
+    def "a cached result should match a fresh solve and pay with the given method instances"() {
+        given:
+        def prepared = methods()
+        def cache = ResultCache.inMemory(4)
+        def engine = new OptimizerEngine(OptimizerSettings.builder().build(), cache)
+        def fresh = new OptimizerEngine(OptimizerSettings.builder().build()).solve(prepared, basket(prepared))
+
+        when:
+        def first = engine.solve(prepared, basket(prepared))
+        def second = engine.solve(prepared, basket(prepared))
+
+        then:
+        cache.misses() == 1
+        cache.hits() == 1
+        second.complete()
+        second.discount() == fresh.discount()
+        spentById(second) == spentById(fresh)
+        second.plan()*.finalPricePaid()*.toPlainString() == fresh.plan()*.finalPricePaid()*.toPlainString()
+        second.plan()*.strategyType() == fresh.plan()*.strategyType()
+        second.plan().every { payment -> payment.actualAmountSpent().keySet().every { prepared.method(it.id).is(it) } }
+    }
+
+    def "the key should follow the problem but not how a discount is written"() {
+        given:
+        def prepared = methods()
+        def key = ResultCache.key(prepared, basket(prepared))
+
+        expect:
+        ResultCache.key(prepared, basket(prepared)) == key
+        ResultCache.key(methods("10.0"), basket(methods("10.0"))) == key
+        ResultCache.key(methods("12"), basket(methods("12"))) != key
+        ResultCache.key(methods("10", "90.00"), basket(methods("10", "90.00"))) != key
+        ResultCache.key(prepared, basket(prepared, "100.01")) != key
+        ResultCache.key(prepared, basket(prepared).reverse()) != key
+        ResultCache.key(prepared, basket(prepared).take(2) + [prepared.order("ORDER3", new BigDecimal("150.00"), ["mZysk"])]) != key
+    }
+
+    def "the memory tier should drop the least recently used result"() {
+        given:
+        def prepared = methods()
+        def cache = ResultCache.inMemory(2)
+        def result = new OptimizerEngine(OptimizerSettings.builder().build()).solve(prepared, basket(prepared))
+        cache.put("a", result)
+        cache.put("b", result)
+
+        when:
+        cache.get("a", prepared)
+        cache.put("c", result)
+
+        then:
+        cache.get("a", prepared) != null
+        cache.get("b", prepared) == null
+        cache.get("c", prepared) != null
+    }
+
+    def "incomplete results should not be cached"() {
+        given:
+        def prepared = methods()
+        def cache = ResultCache.withDirectory(4, directory, 1 << 20)
+        def complete = new OptimizerEngine(OptimizerSettings.builder().build()).solve(prepared, basket(prepared))
+
+        when:
+        cache.put("k", new AnytimeResult(complete.plan(), false, complete.discount(), complete.discount() + 10))
+
+        then:
+        cache.get("k", prepared) == null
+        Files.list(directory).count() == 0
+    }
+
+    def "results written to the directory should be found by another cache sharing it"() {
+        given:
+        def prepared = methods()
+        def writer = new OptimizerEngine(OptimizerSettings.builder().build(), ResultCache.withDirectory(4, directory, 1 << 20))
+        def readerCache = ResultCache.withDirectory(4, directory, 1 << 20)
+        def expected = writer.solve(prepared, basket(prepared))
+
+        when:
+        def other = methods()
+        def cached = readerCache.get(ResultCache.key(other, basket(other)), other)
+
+        then:
+        readerCache.hits() == 1
+        cached.discount().toPlainString() == expected.discount().toPlainString()
+        spentById(cached) == spentById(expected)
+        Files.list(directory).filter { it.toString().endsWith(".tmp") }.count() == 0
+    }
+
+    def "the directory should be trimmed to its size limit starting with the least recently used file"() {
+        given:
+        def prepared = methods()
+        def result = new OptimizerEngine(OptimizerSettings.builder().build()).solve(prepared, basket(prepared))
+        def probe = ResultCache.withDirectory(1, directory.resolve("probe"), 1 << 20)
+        probe.put("probe", result)
+        long entryBytes = Files.size(directory.resolve("probe").resolve("probe.json"))
+        def cache = ResultCache.withDirectory(1, directory.resolve("cache"), entryBytes * 2)
+
+        when:
+        cache.put("a", result)
+        cache.put("b", result)
+        Files.setLastModifiedTime(directory.resolve("cache/a.json"), FileTime.fromMillis(1_000))
+        cache.put("c", result)
+
+        then:
+        !Files.exists(directory.resolve("cache/a.json"))
+        Files.exists(directory.resolve("cache/b.json"))
+        Files.exists(directory.resolve("cache/c.json"))
+    }
+
+    def "concurrent workers should share one cache directory"() {
+        given:
+        def prepared = methods()
+        def expected = new OptimizerEngine(OptimizerSettings.builder().build()).solve(prepared, basket(prepared))
+        def engines = (0..<2).collect {
+            new OptimizerEngine(OptimizerSettings.builder().build(), ResultCache.withDirectory(1, directory, 1 << 20))
+        }
+
+        when:
+        def results = Executors.newVirtualThreadPerTaskExecutor().withCloseable { executor ->
+            (0..<64).collect { i ->
+                executor.submit({ engines[i % 2].solve(prepared, basket(prepared, i % 4 == 0 ? "100.00" : "1" + (i % 4) + "0.00")) } as Callable)
+            }*.get()
+        }
+
+        then:
+        (0..<64).step(4).every { spentById(results[it]) == spentById(expected) }
+        results.every { it.complete() }
+        Files.list(directory).filter { it.toString().endsWith(".json") }.count() == 4
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.engine
+
+import org.example.domain.AppliedPayment
+import org.example.domain.OptimizerSettings
+import org.example.domain.Order
+import org.example.domain.PaymentMethod
+import org.example.domain.PaymentOptimizer
+import org.example.domain.SearchMode
+import spock.lang.Specification
+
+class ScenarioSweepTest extends Specification {
+
+    private static final RandomBaskets BASKETS = new RandomBaskets(
+            pointsDiscounts: ["0", "5", "10", "15"],
+            minCards: 1,
+            cardDiscounts: ["0", "5", "10", "15", "20"],
+            cardLimitCents: { Random random, int card -> random.nextInt(60_000) },
+            valueCents: { Random random -> random.nextInt(8) == 0 ? 0 : random.nextInt(25_000) })
+
+    // one or two axes over random methods, e.g. "CARD1.limit=12.34,500.00;PUNKTY.discount=0,15"
+    private static String randomSpecification(Random random, Map<String, PaymentMethod> methods) {
+        def methodIds = methods.keySet() as List
+        (0..random.nextInt(2)).collect {
+            def methodId = methodIds[random.nextInt(methodIds.size())]
+            random.nextBoolean()
+                    ? methodId + ".limit=" + (0..random.nextInt(3)).collect { BigDecimal.valueOf(random.nextInt(40_000), 2) }.join(",")
+                    : methodId + ".discount=" + (0..random.nextInt(3)).collect { random.nextInt(5) * 5 }.join(",")
+        }.join(";")
+    }
+
+    // plans of different PaymentMethod instances compared by method ID
+    private static List<List<Object>> describe(List<AppliedPayment> plan) {
+        plan.collect { [it.orderId(), it.finalPricePaid(), it.strategyType(), it.actualAmountSpent().collectEntries { method, amount -> [method.id, amount] }] }
+    }
+
+    private static PaymentOptimizer fullSolve(Map<String, PaymentMethod> baseMethods,
+                                              ScenarioSweep.Scenario scenario,
+                                              List<Order> basket,
+                                              OptimizerSettings settings) {
+        Map<String, PaymentMethod> methods = new LinkedHashMap<>(baseMethods)
+        scenario.variations().each { variation ->
+            def method = methods[variation.methodId()]
+            methods[variation.methodId()] = variation.parameter() == ScenarioSweep.Parameter.LIMIT
+                    ? new PaymentMethod(method.id, method.discountPercentage, variation.value())
+                    : new PaymentMethod(method.id, variation.value(), method.methodLimit)
+        }
+        def prepared = PreparedPaymentMethods.of(methods)
+        def orders = basket.collect { order -> prepared.order(order.id(), order.value(), order.applicablePromotions()*.id) }
+        new PaymentOptimizer(orders, prepared.discountCalculator(), prepared.methodIndex(), settings)
+    }
+
+    def "every scenario should get the plan of a separate run on its payment methods"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def prepared = PreparedPaymentMethods.of(methods)
+        def basket = BASKETS.orders(random, methods, 1 + random.nextInt(6))
+        def settings = OptimizerSettings.builder().searchMode(mode).build()
+        def scenarios = ScenarioSweep.grid(randomSpecification(random, methods))
+
+        when:
+        def results = new ScenarioSweep(settings, prepared, basket).solve(scenarios, 1)
+
+        then:
+        results*.scenario() == scenarios
+        results.every { it.result().complete() }
+        results.every { scenarioResult ->
+            def reference = fullSolve(methods, scenarioResult.scenario(), basket, settings).findPaymentPlanWithinBudget()
+            describe(scenarioResult.result().plan()) == describe(reference.plan()) && scenarioResult.result().discount() == reference.discount()
+        }
+
+        where:
+        [seed, mode] << [(1..40), [SearchMode.EXHAUSTIVE, SearchMode.BRANCH_AND_BOUND]].combinations()
+    }
+
+    def "solving scenarios on several threads should not change the results"() {
+        given:
+        def random = new Random(7)
+        def methods = BASKETS.methods(random)
+        methods.PUNKTY = new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("120.00"))
+        def prepared = PreparedPaymentMethods.of(methods)
+        def basket = (1..6).collect { prepared.order("ORDER" + it, new BigDecimal(90 + 13 * it), ["CARD0"]) }
+        def sweep = new ScenarioSweep(OptimizerSettings.defaults(), prepared, basket)
+        def scenarios = ScenarioSweep.grid("PUNKTY.limit=0..300/50;CARD0.discount=0,10")
+
+        when:
+        def sequential = sweep.solve(scenarios, 1)
+        def parallel = sweep.solve(scenarios, threads)
+
+        then:
+        parallel*.scenario() == scenarios
+        parallel.collect { describe(it.result().plan()) } == sequential.collect { describe(it.result().plan()) }
+
+        where:
+        threads << [2, 5, 64]
+    }
+
+    def "a grid should hold every combination of the axes with the last one varying fastest"() {
+        when:
+        def scenarios = ScenarioSweep.grid("PUNKTY.limit=0..100/50; mZysk.discount=5,7.5")
+
+        then:
+        scenarios.size() == 6
+        scenarios.collect { scenario -> scenario.variations().collect { it.name() + "=" + it.value() } } == [
+                ["PUNKTY.limit=0", "mZysk.discount=5"],
+                ["PUNKTY.limit=0", "mZysk.discount=7.5"],
+                ["PUNKTY.limit=50", "mZysk.discount=5"],
+                ["PUNKTY.limit=50", "mZysk.discount=7.5"],
+                ["PUNKTY.limit=100", "mZysk.discount=5"],
+                ["PUNKTY.limit=100", "mZysk.discount=7.5"]
+        ]
+    }
+
+    def "a malformed grid should be rejected"() {
+        when:
+        ScenarioSweep.grid(specification)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        specification << ["", ";", "PUNKTY=5", "limit=5", "PUNKTY.colour=5", "PUNKTY.limit=", "PUNKTY.limit=abc",
+                          "PUNKTY.limit=0..10", "PUNKTY.limit=0..10/0", "PUNKTY.limit=10..0/5"]
+    }
+
+    def "a scenario for an unknown payment method should be rejected"() {
+        given:
+        def prepared = PreparedPaymentMethods.of(["PUNKTY": new PaymentMethod("PUNKTY", BigDecimal.TEN, new BigDecimal("50.00"))])
+        def sweep = new ScenarioSweep(OptimizerSettings.defaults(), prepared, [prepared.order("ORDER1", BigDecimal.TEN, [])])
+
+        when:
+        sweep.solve(ScenarioSweep.grid("Visa.limit=10"), 1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
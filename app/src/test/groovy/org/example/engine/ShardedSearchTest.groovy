@@ -0,0 +1,152 @@
+package org.example.engine
+
+import org.example.domain.CancellationToken
+import org.example.domain.OptimizerSettings
+import org.example.domain.Order
+import org.example.domain.PaymentMethod
+import org.example.domain.PaymentOptimizer
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class ShardedSearchTest extends Specification {
+    @TempDir
+    Path directory
+
+    private static final RandomBaskets BASKETS = new RandomBaskets(
+            cardLimitCents: { Random random, int card -> random.nextInt(60_000) },
+            valueCents: { Random random -> random.nextInt(5) == 0 ? random.nextInt(60) : random.nextInt(25_000) })
+
+    private static PreparedPaymentMethods tightMethods() {
+        PreparedPaymentMethods.of([
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("120.00")),
+                "mZysk" : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("100000.00")),
+                "Visa"  : new PaymentMethod("Visa", new BigDecimal("20"), new BigDecimal("200.00"))
+        ])
+    }
+
+    private static List<Order> tightBasket(PreparedPaymentMethods methods) {
+        (1..8).collect { methods.order("ORDER" + it, new BigDecimal(90 + 13 * it), it % 3 == 0 ? ["mZysk"] : ["Visa", "mZysk"]) }
+    }
+
+    // the methods in the customer's order, like the shards
+    private static PaymentOptimizer optimizer(PreparedPaymentMethods methods, List<Order> basket) {
+        def all = methods.paymentMethods()
+        def index = PaymentMethodIndex.of(all.values() as List, all.PUNKTY, PreparedPaymentMethods.cards(all))
+        new PaymentOptimizer(basket, methods.discountCalculator(), index, OptimizerSettings.defaults())
+    }
+
+    def "the merged plan should be the plan of the single-process search"() {
+        given:
+        def random = new Random(seed)
+        def methods = PreparedPaymentMethods.of(BASKETS.methods(random))
+        def basket = BASKETS.orders(random, methods.paymentMethods(), 1 + random.nextInt(7))
+        def shards = directory.resolve("shards")
+
+        when:
+        new ShardedSearch(shards, methods, basket).partition(depth)
+        new ShardedSearch(shards, methods, basket).solve(OptimizerSettings.defaults())
+        def merged = new ShardedSearch(shards, methods, basket).merge()
+        def reference = optimizer(methods, basket).findPaymentPlanWithinBudget()
+
+        then:
+        merged.complete()
+        merged.plan() == reference.plan()
+        merged.discount() == reference.discount()
+
+        where:
+        [seed, depth] << [(1..60), [0, 2, 100]].combinations()
+    }
+
+    def "workers in parallel should split the shards between them"() {
+        given:
+        def methods = tightMethods()
+        def basket = tightBasket(methods)
+        def search = new ShardedSearch(directory, methods, basket)
+        int shards = search.partition(3)
+        def pool = Executors.newFixedThreadPool(4)
+
+        when:
+        def solved = pool.invokeAll((1..4).collect {
+            { -> new ShardedSearch(directory, methods, basket).solve(OptimizerSettings.defaults()) } as Callable<Integer>
+        })*.get()
+        def merged = search.merge()
+
+        then:
+        shards > 1
+        solved.sum() == shards
+        merged.complete()
+        merged.plan() == optimizer(methods, basket).findOptimalPaymentPlan()
+        Files.exists(directory.resolve("bound"))
+
+        cleanup:
+        pool.shutdown()
+    }
+
+    def "merging before every shard is solved should bound the missing discount"() {
+        given:
+        def methods = tightMethods()
+        def basket = tightBasket(methods)
+        def search = new ShardedSearch(directory, methods, basket)
+        int shards = search.partition(2)
+        def reference = optimizer(methods, basket).findPaymentPlanWithinBudget()
+
+        when:
+        def unsolved = search.merge()
+
+        then:
+        shards > 0
+        !unsolved.complete()
+        unsolved.plan().isEmpty()
+        unsolved.discountUpperBound() >= reference.discount()
+    }
+
+    def "a stopped worker should release its shard for the next one"() {
+        given:
+        def methods = tightMethods()
+        def basket = tightBasket(methods)
+        def search = new ShardedSearch(directory, methods, basket)
+        int shards = search.partition(2)
+        def token = new CancellationToken()
+        token.cancel()
+
+        when:
+        int stoppedSolves = search.solve(OptimizerSettings.builder().cancellationToken(token).build())
+        int solves = search.solve(OptimizerSettings.defaults())
+
+        then:
+        stoppedSolves == 0
+        solves == shards
+        search.merge().plan() == optimizer(methods, basket).findOptimalPaymentPlan()
+    }
+
+    def "shards should be tied to their directory and basket"() {
+        given:
+        def methods = tightMethods()
+        def basket = tightBasket(methods)
+        new ShardedSearch(directory, methods, basket).partition(2)
+        def otherBasket = basket.take(5)
+
+        when:
+        new ShardedSearch(directory, methods, basket).partition(2)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        new ShardedSearch(directory, methods, otherBasket).solve(OptimizerSettings.defaults())
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        new ShardedSearch(directory.resolve("empty"), methods, basket).merge()
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
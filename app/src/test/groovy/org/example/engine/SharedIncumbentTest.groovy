@@ -0,0 +1,49 @@
+package org.example.engine
+
+import spock.lang.Specification
+
+class SharedIncumbentTest extends Specification {
+
+    def "should keep the higher discount, then the higher points, then the earlier trail"() {
+        given:
+        def incumbent = new SharedIncumbent()
+
+        when:
+        incumbent.offer(500, 100, [3, 1] as int[])
+        incumbent.offer(400, 900, [0, 0] as int[])
+        incumbent.offer(500, 200, [2, 2] as int[])
+        incumbent.offer(500, 200, [2, 5] as int[])
+        incumbent.offer(500, 200, [1, 9] as int[])
+
+        then:
+        incumbent.bestTrail() == [1, 9] as int[]
+    }
+
+    def "should only prune subtrees that cannot reach a full tie"() {
+        given:
+        def incumbent = new SharedIncumbent()
+        incumbent.offer(500, 200, [0] as int[])
+
+        expect:
+        incumbent.cannotBeat(499, 1_000)
+        incumbent.cannotBeat(500, 199)
+        !incumbent.cannotBeat(500, 200)
+        !incumbent.cannotBeat(501, 0)
+    }
+
+    def "should accept concurrent offers and keep the best one"() {
+        given:
+        def incumbent = new SharedIncumbent()
+        def threads = (0..<8).collect { worker ->
+            Thread.start {
+                (0..<1_000).each { i -> incumbent.offer(i % 97, worker, [worker, i] as int[]) }
+            }
+        }
+
+        when:
+        threads*.join()
+
+        then:
+        incumbent.bestTrail() == [7, 96] as int[]
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.engine
+
+import org.example.domain.Arithmetic
+import org.example.domain.OptimizerSettings
+import org.example.domain.Order
+import org.example.domain.PaymentMethod
+import org.example.domain.PaymentOptimizer
+import org.example.domain.SearchMode
+import org.example.logic.DiscountCalculator
+import org.example.logic.PaymentOptionTable
+import spock.lang.Specification
+
+class SlackDecompositionTest extends Specification {
+
+    // card limits are usually far above the basket, points usually are not
+    private static final RandomBaskets BASKETS = new RandomBaskets(
+            pointsOdds: 4,
+            pointsDiscounts: ["5", "10", "15"],
+            pointsLimitCents: { Random random -> random.nextInt(random.nextBoolean() ? 30_000 : 300_000) },
+            minCards: 1,
+            cardDiscounts: ["0", "5", "10", "20"],
+            cardLimitCents: { Random random, int card -> random.nextInt(5) == 0 ? random.nextInt(30_000) : 500_000 + random.nextInt(500_000) },
+            valueCents: { Random random -> random.nextInt(6) == 0 ? 0 : random.nextInt(20_000) },
+            promotionOdds: 2)
+
+    private static PaymentOptimizer optimizer(List<Order> orders, Map<String, PaymentMethod> methods, OptimizerSettings settings) {
+        def calculator = new DiscountCalculator(methods.PUNKTY, methods.values().findAll { !it.isPoints() } as List)
+        return new PaymentOptimizer(orders, calculator, methods, settings)
+    }
+
+    private static SlackDecomposition decompose(List<Order> orders, Map<String, PaymentMethod> methods) {
+        def cards = methods.values().findAll { !it.isPoints() } as List
+        def table = PaymentOptionTable.build(orders, new DiscountCalculator(methods.PUNKTY, cards))
+        return SlackDecomposition.of(table, PaymentMethodIndex.of(methods.values() as List, methods.PUNKTY, cards))
+    }
+
+    def "decomposed solves should return the plan of the undecomposed exhaustive search"() {
+        given:
+        def random = new Random(seed)
+        def methods = BASKETS.methods(random)
+        def orders = BASKETS.orders(random, methods, 1 + random.nextInt(6))
+        def reference = optimizer(orders, methods, OptimizerSettings.builder().searchMode(SearchMode.EXHAUSTIVE)
+                .arithmetic(Arithmetic.BIG_DECIMAL).reduceOptions(false).decomposeSlack(false).build())
+
+        expect:
+        [SearchMode.values(), Arithmetic.values()].combinations().every { SearchMode mode, Arithmetic arithmetic ->
+            optimizer(orders, methods, OptimizerSettings.builder().searchMode(mode).arithmetic(arithmetic).build())
+                    .findPaymentPlanWithinBudget().plan() == reference.findOptimalPaymentPlan()
+        }
+
+        where:
+        seed << (1..250)
+    }
+
+    def "should treat every order as independent when no limit can run out"() {
+        given:
+        def methods = [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("1000.00")),
+                "mZysk" : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("1000.00"))
+        ]
+        def orders = [new Order("ORDER1", new BigDecimal("100.00"), [methods.mZysk]), new Order("ORDER2", new BigDecimal("50.00"), [])]
+
+        when:
+        def decomposition = decompose(orders, methods)
+
+        then:
+        decomposition.isDecomposed()
+        decomposition.independentOrders() == [0, 1] as int[]
+        decomposition.contendedOrders().length == 0
+    }
+
+    def "should search only the orders that may spend contended points"() {
+        given:
+        def methods = [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("5"), new BigDecimal("20.00")),
+                "mZysk" : new PaymentMethod("mZysk", new BigDecimal("30"), new BigDecimal("1000.00"))
+        ]
+        def orders = [
+                new Order("ORDER1", new BigDecimal("100.00"), [methods.mZysk]),
+                new Order("ORDER2", new BigDecimal("100.00"), []),
+                new Order("ORDER3", new BigDecimal("100.00"), [])
+        ]
+
+        when:
+        def decomposition = decompose(orders, methods)
+
+        then: "30% on the card beats 5% or 10% with points for ORDER1"
+        decomposition.independentOrders() == [0] as int[]
+        decomposition.contendedOrders() == [1, 2] as int[]
+    }
+
+    def "should leave the basket whole when a card is contended"() {
+        given:
+        def methods = [
+                "PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("1000.00")),
+                "mZysk" : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("150.00"))
+        ]
+        def orders = [new Order("ORDER1", new BigDecimal("100.00"), [methods.mZysk]), new Order("ORDER2", new BigDecimal("100.00"), [])]
+
+        expect:
+        !decompose(orders, methods).isDecomposed()
+    }
+
+    def "should solve a large slack basket in linear time"() {
+        given:
+        def cards = (0..<3).collect { new PaymentMethod("CARD" + it, new BigDecimal(5 * it), new BigDecimal("1000000.00")) }
+        def methods = ["PUNKTY": new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("1000000.00"))]
+        cards.each { methods[it.id] = it }
+        def random = new Random(7)
+        def orders = (0..<500).collect { new Order("ORDER" + it, BigDecimal.valueOf(100 + random.nextInt(50_000), 2), cards.findAll { random.nextBoolean() }) }
+        def optimizer = optimizer(orders, methods, OptimizerSettings.builder().searchMode(SearchMode.BRANCH_AND_BOUND).build())
+
+        when:
+        def plan = optimizer.findOptimalPaymentPlan()
+
+        then:
+        plan*.orderId() == orders*.id()
+        optimizer.getLastSearchStatistics().nodesVisited() <= 10L * orders.size()
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.engine
+
+import spock.lang.Specification
+
+class TranspositionTableTest extends Specification {
+
+    def "should find a stored state only under its own order index and limits"() {
+        given:
+        def table = new TranspositionTable(16, 2)
+        table.store(3, [100L, 50L] as long[], 700, 20, 4)
+
+        when:
+        int slot = table.find(3, [100L, 50L] as long[])
+
+        then:
+        slot != TranspositionTable.NOT_FOUND
+        table.discount(slot) == 700
+        table.points(slot) == 20
+        table.decision(slot) == 4
+        table.find(2, [100L, 50L] as long[]) == TranspositionTable.NOT_FOUND
+        table.find(3, [100L, 49L] as long[]) == TranspositionTable.NOT_FOUND
+        table.lookups() == 3
+        table.hits() == 1
+    }
+
+    def "should overwrite a state stored twice without growing"() {
+        given:
+        def table = new TranspositionTable(16, 1)
+
+        when:
+        table.store(1, [5L] as long[], 10, 0, 1)
+        table.store(1, [5L] as long[], 30, 0, 2)
+
+        then:
+        table.size() == 1
+        table.evictions() == 0
+        table.decision(table.find(1, [5L] as long[])) == 2
+    }
+
+    def "should evict the deepest state once a bucket is full"() {
+        given: "a single bucket of four slots"
+        def table = new TranspositionTable(4, 1)
+        [0, 5, 2, 1].eachWithIndex { orderIndex, i -> table.store(orderIndex, [i as long] as long[], 0, 0, 0) }
+
+        when:
+        table.store(0, [99L] as long[], 0, 0, 0)
+
+        then:
+        table.size() == 4
+        table.evictions() == 1
+        table.find(5, [1L] as long[]) == TranspositionTable.NOT_FOUND
+        table.find(0, [99L] as long[]) != TranspositionTable.NOT_FOUND
+        table.find(0, [0L] as long[]) != TranspositionTable.NOT_FOUND
+    }
+
+    def "should report the memory of its arrays"() {
+        expect:
+        new TranspositionTable(64, 3).memoryBytes() == 64 * (8 * 3 + 4 * 2) + 64 * 3 * 8
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.io
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class AtomicFilesTest extends Specification {
+
+    @TempDir
+    Path directory
+
+    def "writing should replace the target and leave no temporary file"() {
+        given:
+        def target = directory.resolve("entry.json")
+        Files.writeString(target, "old")
+
+        when:
+        def bytes = AtomicFiles.write(target, { Files.writeString(it, "new contents") } as AtomicFiles.IOConsumer<Path>)
+
+        then:
+        Files.readString(target) == "new contents"
+        bytes == "new contents".length()
+        Files.list(directory).withCloseable { it.toList() } == [target]
+    }
+
+    def "a failed write should keep the old target and leave no temporary file"() {
+        given:
+        def target = directory.resolve("entry.json")
+        Files.writeString(target, "old")
+
+        when:
+        AtomicFiles.write(target, { throw new IOException("disk full") } as AtomicFiles.IOConsumer<Path>)
+
+        then:
+        thrown(IOException)
+        Files.readString(target) == "old"
+        Files.list(directory).withCloseable { it.toList() } == [target]
+    }
+}
@@ -122,4 +122,77 @@ class OrdersLoaderTest extends Specification {
         def exception = thrown(IllegalArgumentException)
         exception.getMessage().contains("Invalid value format for Order ID: BAD_VALUE")
     }
+
+    def "should stream orders lazily so the first order is available before a later syntax error"() {
+        given:
+        String jsonContent = """
+        [
+            {"id": "ORDER1", "value": 150.00, "promotions": ["mZysk", null]},
+            {"id": "ORDER2", "value": "20.00"},
+            {"id": "BROKEN", 
+        """
+        Path tempFile = temporaryFolder.resolve("truncated-orders.json")
+        Files.writeString(tempFile, jsonContent)
+
+        when:
+        def stream = loader.streamOrders(tempFile.toString(), availablePaymentMethods)
+        def iterator = stream.iterator()
+        def first = iterator.next()
+        def second = iterator.next()
+
+        then:
+        first.id() == "ORDER1"
+        first.value() == new BigDecimal("150.00")
+        first.applicablePromotions()*.getId() == ["mZysk"]
+        second.id() == "ORDER2"
+
+        when:
+        iterator.hasNext()
+
+        then:
+        thrown(UncheckedIOException)
+
+        cleanup:
+        stream?.close()
+    }
+
+    def "should reject unknown order fields like the data-binding loader"() {
+        given:
+        Path tempFile = temporaryFolder.resolve("unknown-field.json")
+        Files.writeString(tempFile, """[{"id": "ORDER1", "value": "10.00", "discountCode": "X"}]""")
+
+        when:
+        loader.loadOrders(tempFile.toString(), availablePaymentMethods)
+
+        then:
+        def exception = thrown(IOException)
+        exception.getMessage().contains("discountCode")
+    }
+
+    def "should throw IOException when the file is not a JSON array"() {
+        given:
+        Path tempFile = temporaryFolder.resolve("object.json")
+        Files.writeString(tempFile, content)
+
+        when:
+        loader.loadOrders(tempFile.toString(), availablePaymentMethods)
+
+        then:
+        thrown(IOException)
+
+        where:
+        content << ["""{"id": "ORDER1"}""", "", "[1, 2]"]
+    }
+
+    def "should read an orders array embedded in a larger document"() {
+        given:
+        def node = objectMapper.readTree("""{"orders": [{"id": "ORDER1", "value": "10.00", "promotions": ["mZysk", "VISA"]}]}""")
+
+        when:
+        List<Order> result = loader.readOrders(node.get("orders").traverse(objectMapper), availablePaymentMethods)
+
+        then:
+        result*.id() == ["ORDER1"]
+        result[0].applicablePromotions() == [availablePaymentMethods.mZysk]
+    }
 }
@@ -106,4 +106,52 @@ class PaymentMethodsLoaderTest extends Specification {
         "discount format"  | "BAD_DISCOUNT" | "abc"     | "100.00"   | "Invalid discount format for PaymentMethod ID: BAD_DISCOUNT"
         "limit format"     | "BAD_LIMIT"    | "10"      | "xyz"      | "Invalid limit format for PaymentMethod ID: BAD_LIMIT"
     }
+
+    def "should stream payment methods one at a time"() {
+        given:
+        String jsonContent = """
+        [
+            {"id": "PUNKTY", "discount": 15, "limit": "100.00"},
+            {"id": "mZysk", "discount": "10", "limit": 180.00}
+        ]
+        """
+        Path tempFile = temporaryFolder.resolve("stream-payments.json")
+        Files.writeString(tempFile, jsonContent)
+
+        when:
+        List<PaymentMethod> result
+        try(def stream = loader.streamPaymentMethods(tempFile.toString())){
+            result = stream.toList()
+        }
+
+        then:
+        result*.getId() == ["PUNKTY", "mZysk"]
+        result[0].getDiscountPercentage() == new BigDecimal("15")
+        result[1].getMethodLimit() == new BigDecimal("180.00")
+    }
+
+    def "should reject unknown payment method fields"() {
+        given:
+        Path tempFile = temporaryFolder.resolve("unknownPayments.json")
+        Files.writeString(tempFile, """[{"id": "PUNKTY", "discount": "15", "limit": "1.00", "currency": {"code": "PLN"}}]""")
+
+        when:
+        loader.loadPaymentMethods(tempFile.toString())
+
+        then:
+        def exception = thrown(IOException)
+        exception.getMessage().contains("currency")
+    }
+
+    def "should read a payment methods array embedded in a larger document"() {
+        given:
+        def node = objectMapper.readTree("""{"paymentMethods": [{"id": "PUNKTY", "discount": "15", "limit": "100.00"},
+                {"id": "PUNKTY", "discount": "5", "limit": "1.00"}]}""")
+
+        when:
+        loader.readPaymentMethods(node.get("paymentMethods").traverse(objectMapper))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
 }
@@ -0,0 +1,119 @@
+package org.example.loader
+
+import org.example.domain.Order
+import org.example.domain.PaymentMethod
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+
+class SnapshotLoaderTest extends Specification {
+    @TempDir
+    Path temporaryFolder
+
+    SnapshotWriter writer = new SnapshotWriter()
+    SnapshotLoader loader = new SnapshotLoader()
+
+    private static Map<String, PaymentMethod> methods(int cardCount) {
+        Map<String, PaymentMethod> methods = new LinkedHashMap<>()
+        methods.PUNKTY = new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("100.00"))
+        (0..<cardCount).each { methods["CARD" + it] = new PaymentMethod("CARD" + it, new BigDecimal("7.5"), new BigDecimal("1234.56")) }
+        return methods
+    }
+
+    def "should load back the orders and payment methods that were written"() {
+        given: "more than 64 methods, so promotions span two bitset words"
+        def methods = methods(70)
+        def cards = methods.values().findAll { !it.isPoints() } as List
+        def orders = (0..<200).collect { i ->
+            new Order("ORDER-" + i + "-zażółć", BigDecimal.valueOf(i * 137L, 2), cards.findAll { it.id.length() % 3 == i % 3 || it.id == "CARD69" })
+        }
+        Path file = temporaryFolder.resolve("data.snap")
+
+        when:
+        writer.write(file, methods, orders.iterator())
+        def snapshot = loader.load(file)
+
+        then:
+        SnapshotLoader.isSnapshot(file)
+        snapshot.paymentMethods().keySet() as List == methods.keySet() as List
+        snapshot.paymentMethods().values().every { loaded ->
+            def original = methods[loaded.id]
+            loaded.discountPercentage == original.discountPercentage && loaded.methodLimit == original.methodLimit
+        }
+        snapshot.orders().size() == orders.size()
+        (0..<orders.size()).every { i ->
+            def loaded = snapshot.orders()[i]
+            loaded.id() == orders[i].id() && loaded.value() == orders[i].value() &&
+                    loaded.applicablePromotions()*.id == orders[i].applicablePromotions()*.id
+        }
+
+        and: "promotions are the loaded payment method instances"
+        snapshot.orders()[0].applicablePromotions().every { snapshot.paymentMethods()[it.id].is(it) }
+    }
+
+    def "should not take a JSON file for a snapshot"() {
+        given:
+        Path file = temporaryFolder.resolve("orders.json")
+        Files.writeString(file, """[{"id": "ORDER1", "value": "10.00"}, {"id": "ORDER2", "value": "20.00"}, {"id": "ORDER3", "value": "3"}]""")
+
+        expect:
+        !SnapshotLoader.isSnapshot(file)
+        !SnapshotLoader.isSnapshot(temporaryFolder.resolve("missing.snap"))
+
+        when:
+        loader.load(file)
+
+        then:
+        thrown(IOException)
+    }
+
+    def "should reject a snapshot of another version"() {
+        given:
+        Path file = temporaryFolder.resolve("old.snap")
+        writer.write(file, methods(1), [].iterator())
+        byte[] bytes = Files.readAllBytes(file)
+        ByteBuffer.wrap(bytes).putShort(Integer.BYTES, (short) 99)
+        Files.write(file, bytes)
+
+        when:
+        loader.load(file)
+
+        then:
+        def exception = thrown(IOException)
+        exception.message.contains("version 99")
+    }
+
+    def "should refuse orders that reference payment methods outside the snapshot"() {
+        given:
+        def stranger = new PaymentMethod("Stranger", BigDecimal.TEN, new BigDecimal("5.00"))
+        def orders = [new Order("ORDER1", new BigDecimal("10.00"), [stranger])]
+
+        when:
+        writer.write(temporaryFolder.resolve("bad.snap"), methods(1), orders.iterator())
+
+        then:
+        def exception = thrown(IllegalArgumentException)
+        exception.message.contains("Stranger")
+    }
+
+    def "a failing write should leave the previous snapshot untouched"() {
+        given:
+        Path file = temporaryFolder.resolve("data.snap")
+        writer.write(file, methods(1), [new Order("ORDER1", new BigDecimal("10.00"), [])].iterator())
+        byte[] previous = Files.readAllBytes(file)
+        def stranger = new PaymentMethod("Stranger", BigDecimal.TEN, new BigDecimal("5.00"))
+        def orders = [new Order("ORDER2", new BigDecimal("20.00"), []), new Order("ORDER3", new BigDecimal("30.00"), [stranger])]
+
+        when:
+        writer.write(file, methods(2), orders.iterator())
+
+        then:
+        thrown(IllegalArgumentException)
+        Files.readAllBytes(file) == previous
+        loader.load(file).orders()*.id() == ["ORDER1"]
+        Files.list(temporaryFolder).withCloseable { it.toList() } == [file]
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.metrics
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.example.domain.Arithmetic
+import org.example.domain.OptimizerSettings
+import org.example.domain.Order
+import org.example.domain.PaymentMethod
+import org.example.domain.PaymentOptimizer
+import org.example.domain.SearchMode
+import org.example.logic.DiscountCalculator
+import spock.lang.Specification
+
+import javax.management.ObjectName
+import java.lang.management.ManagementFactory
+
+class SolverMetricsTest extends Specification {
+
+    private static PaymentOptimizer optimizer(SolverMetrics metrics, Arithmetic arithmetic) {
+        def methods = [
+                "PUNKTY"    : new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("100.00")),
+                "mZysk"     : new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("180.00")),
+                "BosBankrut": new PaymentMethod("BosBankrut", new BigDecimal("5"), new BigDecimal("200.00"))
+        ]
+        def orders = [
+                new Order("ORDER1", new BigDecimal("100.00"), [methods.mZysk]),
+                new Order("ORDER2", new BigDecimal("200.00"), [methods.BosBankrut]),
+                new Order("ORDER3", new BigDecimal("150.00"), [methods.mZysk, methods.BosBankrut]),
+                new Order("ORDER4", new BigDecimal("50.00"), [])
+        ]
+        def calculator = new DiscountCalculator(methods.PUNKTY, [methods.mZysk, methods.BosBankrut])
+        def settings = OptimizerSettings.builder()
+                .searchMode(SearchMode.BRANCH_AND_BOUND).arithmetic(arithmetic).metrics(metrics).build()
+        return new PaymentOptimizer(orders, calculator, methods, settings)
+    }
+
+    def "should accumulate search counters and phase timings of every solve"() {
+        given:
+        def metrics = SolverMetrics.create()
+        def optimizer = optimizer(metrics, arithmetic)
+
+        when:
+        optimizer.findOptimalPaymentPlan()
+        optimizer.findOptimalPaymentPlan()
+        def statistics = optimizer.getLastSearchStatistics()
+
+        then:
+        metrics.solves == 2
+        metrics.nodesVisited == 2 * statistics.nodesVisited()
+        metrics.feasibleBranches == 2 * statistics.feasibleBranches()
+        statistics.feasibleBranches() > 0
+        statistics.incumbentImprovements() > 0
+        metrics.incumbentImprovements == 2 * statistics.incumbentImprovements()
+        metrics.optionsGenerated > 0
+        metrics.lastTimeToFirstSolutionNanos >= 0
+        metrics.searchNanos > 0
+        metrics.optionGenerationNanos > 0
+        metrics.snapshot().phases.SEARCH.count == 2
+
+        where:
+        arithmetic << Arithmetic.values()
+    }
+
+    def "disabled metrics should ignore every update"() {
+        given:
+        def metrics = SolverMetrics.DISABLED
+
+        when:
+        optimizer(metrics, Arithmetic.LONG_CENTS).findOptimalPaymentPlan()
+        metrics.stop(Phase.LOAD, metrics.start())
+        metrics.recordLoaded(3, 2)
+
+        then:
+        !metrics.enabled
+        metrics.start() == 0
+        metrics.solves == 0
+        metrics.nodesVisited == 0
+        metrics.ordersLoaded == 0
+        metrics.loadNanos == 0
+    }
+
+    def "should export the counters as JSON and through the platform MBean server"() {
+        given:
+        def metrics = SolverMetrics.create()
+        metrics.recordLoaded(4, 3)
+        metrics.stop(Phase.LOAD, metrics.start() - 1_000)
+
+        when:
+        metrics.registerMBean()
+        def json = new ObjectMapper().readValue(metrics.toJson(), Map)
+        def server = ManagementFactory.getPlatformMBeanServer()
+        def name = new ObjectName(SolverMetrics.OBJECT_NAME)
+
+        then:
+        json.ordersLoaded == 4
+        json.paymentMethodsLoaded == 3
+        json.phases.LOAD.count == 1
+        json.phases.LOAD.totalNanos >= 1_000
+        server.getAttribute(name, "OrdersLoaded") == 4L
+        server.getAttribute(name, "LoadNanos") >= 1_000L
+
+        cleanup:
+        server?.unregisterMBean(name)
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.benchmark;
+
+import org.example.domain.Order;
+import org.example.logic.DiscountCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Options generated per second for one order; the gc profiler's alloc.rate.norm is the garbage per order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CalculatorBenchmark {
+    @Param({"2", "5", "10"})
+    public int cardCount;
+
+    @Param({"10", "50", "90"})
+    public int promotionDensity;
+
+    private List<Order> orders;
+    private DiscountCalculator discountCalculator;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        WorkloadGenerator.Workload workload = WorkloadGenerator.generate(7L, 256, cardCount, promotionDensity, 1.0);
+        orders = workload.orders();
+        discountCalculator = workload.discountCalculator();
+    }
+
+    @Benchmark
+    public Object calculateOptionsForOrder() {
+        Order order = orders.get(next);
+        next = (next + 1) & (orders.size() - 1);
+        return discountCalculator.calculateOptionsForOrder(order);
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Walks the same search-shaped tree twice: once copying a HashMap of limits keyed by method id on every
+ * branch (how solveRecursively used to track limits), once charging a long[] in place and undoing on backtrack.
+ * Compare the time and gc.alloc.rate.norm of the two.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LimitTrackingBenchmark {
+    @Param({"6"})
+    public int depth;
+
+    @Param({"3", "5"})
+    public int methodCount;
+
+    private String[] methodIds;
+    private int[] chargedMethod;
+    private long[] chargedCents;
+    private BigDecimal[] chargedAmounts;
+    private Map<String, BigDecimal> initialLimitMap;
+    private long[] initialLimitArray;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7L);
+        methodIds = new String[methodCount];
+        initialLimitMap = new HashMap<>();
+        initialLimitArray = new long[methodCount];
+        for(int m = 0; m < methodCount; m++){
+            methodIds[m] = "METHOD" + m;
+            initialLimitArray[m] = 1_000_000L;
+            initialLimitMap.put(methodIds[m], BigDecimal.valueOf(initialLimitArray[m], 2));
+        }
+        int branches = methodCount;
+        chargedMethod = new int[depth * branches];
+        chargedCents = new long[depth * branches];
+        chargedAmounts = new BigDecimal[depth * branches];
+        for(int i = 0; i < chargedMethod.length; i++){
+            chargedMethod[i] = random.nextInt(methodCount);
+            chargedCents[i] = 100 + random.nextInt(20_000);
+            chargedAmounts[i] = BigDecimal.valueOf(chargedCents[i], 2);
+        }
+    }
+
+    @Benchmark
+    public long mapCopyPerBranch() {
+        return walkWithMapCopies(0, initialLimitMap);
+    }
+
+    @Benchmark
+    public long primitiveApplyUndo() {
+        return walkWithApplyUndo(0, initialLimitArray.clone());
+    }
+
+    private long walkWithMapCopies(int level, Map<String, BigDecimal> limits) {
+        if(level == depth){
+            return 1;
+        }
+        long leaves = 0;
+        for(int branch = 0; branch < methodCount; branch++){
+            int slot = level * methodCount + branch;
+            String methodId = methodIds[chargedMethod[slot]];
+            if(limits.get(methodId).compareTo(chargedAmounts[slot]) < 0){
+                continue;
+            }
+            Map<String, BigDecimal> newLimits = new HashMap<>(limits);
+            newLimits.put(methodId, newLimits.get(methodId).subtract(chargedAmounts[slot]));
+            leaves += walkWithMapCopies(level + 1, newLimits);
+        }
+        return leaves;
+    }
+
+    private long walkWithApplyUndo(int level, long[] limits) {
+        if(level == depth){
+            return 1;
+        }
+        long leaves = 0;
+        for(int branch = 0; branch < methodCount; branch++){
+            int slot = level * methodCount + branch;
+            int method = chargedMethod[slot];
+            long amount = chargedCents[slot];
+            if(limits[method] < amount){
+                continue;
+            }
+            limits[method] -= amount;
+            leaves += walkWithApplyUndo(level + 1, limits);
+            limits[method] += amount;
+        }
+        return leaves;
+    }
+}
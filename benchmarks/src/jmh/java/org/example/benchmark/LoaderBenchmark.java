@@ -0,0 +1,100 @@
+package org.example.benchmark;
+
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.loader.OrdersLoader;
+import org.example.loader.PaymentMethodsLoader;
+import org.example.loader.SnapshotLoader;
+import org.example.loader.SnapshotWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+ * Files loaded per second for the JSON loaders (bound, streamed) and the binary snapshot. Every variant
+ * touches each order once so the lazily decoded snapshot is compared fairly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LoaderBenchmark {
+    @Param({"1000", "100000"})
+    public int orderCount;
+
+    @Param({"5"})
+    public int cardCount;
+
+    private Path directory;
+    private Path ordersJson;
+    private Path paymentMethodsJson;
+    private Path snapshot;
+    private Map<String, PaymentMethod> paymentMethods;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        WorkloadGenerator.Workload workload = WorkloadGenerator.generate(3L, orderCount, cardCount, 50, 1.0);
+        directory = Files.createTempDirectory("loader-benchmark");
+        ordersJson = directory.resolve("orders.json");
+        paymentMethodsJson = directory.resolve("paymentmethods.json");
+        snapshot = directory.resolve("data.snap");
+        WorkloadGenerator.writeOrdersJson(ordersJson, workload.orders());
+        WorkloadGenerator.writePaymentMethodsJson(paymentMethodsJson, workload.paymentMethods());
+        new SnapshotWriter().write(snapshot, workload.paymentMethods(), workload.orders().iterator());
+        paymentMethods = new PaymentMethodsLoader().loadPaymentMethods(paymentMethodsJson.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try(Stream<Path> files = Files.walk(directory)){
+            for(Path file : files.sorted(Comparator.reverseOrder()).toList()){
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object loadPaymentMethods() throws IOException {
+        return new PaymentMethodsLoader().loadPaymentMethods(paymentMethodsJson.toString());
+    }
+
+    @Benchmark
+    public void loadOrders(Blackhole blackhole) throws IOException {
+        for(Order order : new OrdersLoader().loadOrders(ordersJson.toString(), paymentMethods)){
+            blackhole.consume(order);
+        }
+    }
+
+    @Benchmark
+    public void streamOrders(Blackhole blackhole) throws IOException {
+        try(Stream<Order> orders = new OrdersLoader().streamOrders(ordersJson.toString(), paymentMethods)){
+            orders.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void loadSnapshot(Blackhole blackhole) throws IOException {
+        SnapshotLoader.Snapshot loaded = new SnapshotLoader().load(snapshot);
+        blackhole.consume(loaded.paymentMethods());
+        List<Order> orders = loaded.orders();
+        for(int i = 0; i < orders.size(); i++){
+            blackhole.consume(orders.get(i));
+        }
+    }
+}
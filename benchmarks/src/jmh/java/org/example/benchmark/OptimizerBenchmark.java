@@ -0,0 +1,62 @@
+package org.example.benchmark;
+
+import org.example.domain.OptimizerSettings;
+import org.example.domain.PaymentOptimizer;
+import org.example.domain.SearchMode;
+import org.example.domain.SolverBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * End-to-end solves per second over the workload grid, option table included. Narrow the grid with
+ * -PjmhIncludes and JMH's -p when comparing two releases on a single point.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OptimizerBenchmark {
+    @Param({"6", "10"})
+    public int orderCount;
+
+    @Param({"2", "4"})
+    public int cardCount;
+
+    @Param({"25", "75"})
+    public int promotionDensity;
+
+    @Param({"0.5", "1.0", "2.0"})
+    public double limitTightness;
+
+    @Param({"BRANCH_AND_BOUND"})
+    public SearchMode searchMode;
+
+    @Param({"SEARCH"})
+    public SolverBackend solverBackend;
+
+    @Param({"0", "4"})
+    public int relaxationDepth;
+
+    private WorkloadGenerator.Workload workload;
+    private OptimizerSettings settings;
+
+    @Setup
+    public void setUp() {
+        workload = WorkloadGenerator.generate(11L, orderCount, cardCount, promotionDensity, limitTightness);
+        settings = OptimizerSettings.builder().searchMode(searchMode).solverBackend(solverBackend)
+                .relaxationDepth(relaxationDepth).build();
+    }
+
+    @Benchmark
+    public Object findOptimalPaymentPlan() {
+        return new PaymentOptimizer(workload.orders(), workload.discountCalculator(), workload.paymentMethods(), settings)
+                .findOptimalPaymentPlan();
+    }
+}
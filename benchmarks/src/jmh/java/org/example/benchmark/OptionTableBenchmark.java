@@ -0,0 +1,83 @@
+package org.example.benchmark;
+
+import org.example.domain.CalculatedPaymentOption;
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.domain.PaymentOptimizer;
+import org.example.domain.SearchMode;
+import org.example.logic.DiscountCalculator;
+import org.example.logic.PaymentOptionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Run with the gc profiler (enabled in build.gradle) and compare gc.alloc.rate.norm:
+ * calculatorPerNode is what every search node used to pay, optionTableLookup is what it pays now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OptionTableBenchmark {
+    @Param({"8", "64"})
+    public int orderCount;
+
+    @Param({"3", "5"})
+    public int cardCount;
+
+    @Param({"25", "75"})
+    public int promotionDensity;
+
+    @Param({"1.0"})
+    public double limitTightness;
+
+    private List<Order> orders;
+    private Map<String, PaymentMethod> methods;
+    private DiscountCalculator discountCalculator;
+    private PaymentOptionTable optionTable;
+
+    @Setup
+    public void setUp() {
+        WorkloadGenerator.Workload workload = WorkloadGenerator.generate(42L, orderCount, cardCount, promotionDensity, limitTightness);
+        methods = workload.paymentMethods();
+        orders = workload.orders();
+        discountCalculator = workload.discountCalculator();
+        optionTable = PaymentOptionTable.build(orders, discountCalculator);
+    }
+
+    @Benchmark
+    public void calculatorPerNode(Blackhole blackhole) {
+        for(Order order : orders){
+            List<CalculatedPaymentOption> options = discountCalculator.calculateOptionsForOrder(order);
+            blackhole.consume(options);
+        }
+    }
+
+    @Benchmark
+    public void optionTableLookup(Blackhole blackhole) {
+        for(int i = 0; i < optionTable.size(); i++){
+            blackhole.consume(optionTable.options(i));
+        }
+    }
+
+    @Benchmark
+    public PaymentOptionTable buildOptionTable() {
+        return PaymentOptionTable.build(orders, discountCalculator);
+    }
+
+    @Benchmark
+    public Object solveSmallBasket() {
+        List<Order> basket = orders.subList(0, Math.min(6, orders.size()));
+        return new PaymentOptimizer(basket, discountCalculator, methods, SearchMode.BRANCH_AND_BOUND).findOptimalPaymentPlan();
+    }
+}
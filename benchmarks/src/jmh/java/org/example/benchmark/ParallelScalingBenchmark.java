@@ -0,0 +1,64 @@
+package org.example.benchmark;
+
+import org.example.domain.AppliedPayment;
+import org.example.domain.OptimizerSettings;
+import org.example.domain.PaymentOptimizer;
+import org.example.domain.SearchMode;
+import org.example.domain.SolverBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Solve time of one basket as the fork/join parallelism grows; compare against parallelism=1. Sequential branch
+ * and bound takes about 10 ms on 10 orders, 0.4 s on 12 and 8 s on 14, so the search, not starting the pool,
+ * dominates. Run EXHAUSTIVE with -p orderCount=8,10; beyond that it takes minutes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelScalingBenchmark {
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int parallelism;
+
+    @Param({"BRANCH_AND_BOUND"})
+    public SearchMode searchMode;
+
+    @Param({"10", "12", "14"})
+    public int orderCount;
+
+    @Param({"4"})
+    public int cardCount;
+
+    @Param({"50"})
+    public int promotionDensity;
+
+    @Param({"1.0"})
+    public double limitTightness;
+
+    private PaymentOptimizer optimizer;
+
+    @Setup
+    public void setUp() {
+        WorkloadGenerator.Workload workload = WorkloadGenerator.generate(11L, orderCount, cardCount, promotionDensity, limitTightness);
+        OptimizerSettings settings = OptimizerSettings.builder()
+                .searchMode(searchMode)
+                .solverBackend(SolverBackend.SEARCH)
+                .parallelism(parallelism)
+                .build();
+        optimizer = new PaymentOptimizer(workload.orders(), workload.discountCalculator(), workload.paymentMethods(), settings);
+    }
+
+    @Benchmark
+    public List<AppliedPayment> solve() {
+        return optimizer.findOptimalPaymentPlan();
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.benchmark;
+
+import org.example.domain.OptimizerSettings;
+import org.example.domain.PaymentOptimizer;
+import org.example.domain.SearchMode;
+import org.example.domain.SolverBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Branch and bound with and without the LP relaxation on WorkloadGenerator.sharedLimits, where limits shared by
+ * many orders make the per-order bound weak. reduceOptions=false searches the tree option reduction and slack
+ * decomposition would otherwise shrink first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RelaxationBenchmark {
+    @Param({"14"})
+    public int orderCount;
+
+    @Param({"0", "4", "100"})
+    public int relaxationDepth;
+
+    @Param({"true", "false"})
+    public boolean reduceOptions;
+
+    private WorkloadGenerator.Workload workload;
+    private OptimizerSettings settings;
+
+    @Setup
+    public void setUp() {
+        workload = WorkloadGenerator.sharedLimits(orderCount);
+        settings = OptimizerSettings.builder()
+                .searchMode(SearchMode.BRANCH_AND_BOUND)
+                .solverBackend(SolverBackend.SEARCH)
+                .relaxationDepth(relaxationDepth)
+                .reduceOptions(reduceOptions)
+                .decomposeSlack(reduceOptions)
+                .build();
+    }
+
+    @Benchmark
+    public Object findOptimalPaymentPlan() {
+        return new PaymentOptimizer(workload.orders(), workload.discountCalculator(), workload.paymentMethods(), settings)
+                .findOptimalPaymentPlan();
+    }
+}
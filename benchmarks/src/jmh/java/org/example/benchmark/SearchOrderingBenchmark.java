@@ -0,0 +1,102 @@
+package org.example.benchmark;
+
+import org.example.domain.OptimizerSettings;
+import org.example.domain.OptionOrdering;
+import org.example.domain.Order;
+import org.example.domain.OrderOrdering;
+import org.example.domain.PaymentMethod;
+import org.example.domain.SearchMode;
+import org.example.engine.CentsProblem;
+import org.example.engine.CentsSearchEngine;
+import org.example.engine.OptionReduction;
+import org.example.engine.PaymentMethodIndex;
+import org.example.logic.PaymentOptionTable;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Branch-and-bound solve of one basket under each order and option ordering. The score is the time to prove
+ * the optimum; the firstSolutionMicros and bestSolutionMicros counters add up, over all solves of an
+ * iteration, how long the search took to reach its first plan and the plan it returned; divide by solves.
+ * Orders only move when points cannot run short, which plentifulPoints arranges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchOrderingBenchmark {
+    @Param({"8", "11"})
+    public int orderCount;
+
+    @Param({"1.0", "2.0"})
+    public double limitTightness;
+
+    @Param({"false", "true"})
+    public boolean plentifulPoints;
+
+    @Param({"AS_GIVEN", "HIGHEST_VALUE", "MOST_CONSTRAINED"})
+    public OrderOrdering orderOrdering;
+
+    @Param({"AS_GENERATED", "HIGHEST_DISCOUNT", "POINTS_FIRST"})
+    public OptionOrdering optionOrdering;
+
+    private CentsProblem problem;
+    private OptimizerSettings settings;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SolutionTimes {
+        public long solves;
+        public long firstSolutionMicros;
+        public long bestSolutionMicros;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            solves = 0;
+            firstSolutionMicros = 0;
+            bestSolutionMicros = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        WorkloadGenerator.Workload workload = WorkloadGenerator.generate(11L, orderCount, 4, 50, limitTightness);
+        Map<String, PaymentMethod> methods = new LinkedHashMap<>(workload.paymentMethods());
+        if(plentifulPoints){
+            PaymentMethod points = methods.get("PUNKTY");
+            BigDecimal basket = workload.orders().stream().map(Order::value).reduce(BigDecimal.ZERO, BigDecimal::add);
+            methods.put("PUNKTY", new PaymentMethod("PUNKTY", points.getDiscountPercentage(), basket));
+            workload = new WorkloadGenerator.Workload(methods, workload.orders());
+        }
+        PaymentMethodIndex methodIndex = PaymentMethodIndex.forClient(methods);
+        PaymentOptionTable table = PaymentOptionTable.build(workload.orders(), workload.discountCalculator());
+        problem = CentsProblem.from(OptionReduction.reduce(table, methodIndex), methodIndex).orElseThrow();
+        settings = OptimizerSettings.builder()
+                .searchMode(SearchMode.BRANCH_AND_BOUND)
+                .orderOrdering(orderOrdering)
+                .optionOrdering(optionOrdering)
+                .build();
+    }
+
+    @Benchmark
+    public Object solve(SolutionTimes times) {
+        CentsSearchEngine engine = new CentsSearchEngine(problem, settings);
+        Object plan = engine.search();
+        times.solves++;
+        times.firstSolutionMicros += engine.timeToFirstSolutionNanos() / 1_000;
+        times.bestSolutionMicros += engine.timeToBestSolutionNanos() / 1_000;
+        return plan;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+ * Milliseconds from starting a fresh JVM on the CLI to its exit, output printed, for a small basket: the number
+ * a user waits for. The CLI runs on this fork's JVM and classpath, without an archive, with the JDK's default
+ * CDS archive only, or with an AppCDS archive recorded in setup the way the appCdsArchive task records one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBenchmark {
+    @Param({"10"})
+    public int orderCount;
+
+    @Param({"3"})
+    public int cardCount;
+
+    @Param({"NONE", "DEFAULT", "APPCDS"})
+    public String archive;
+
+    private Path directory;
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        WorkloadGenerator.Workload workload = WorkloadGenerator.generate(5L, orderCount, cardCount, 50, 1.0);
+        directory = Files.createTempDirectory("startup-benchmark");
+        Path ordersJson = directory.resolve("orders.json");
+        Path paymentMethodsJson = directory.resolve("paymentmethods.json");
+        WorkloadGenerator.writeOrdersJson(ordersJson, workload.orders());
+        WorkloadGenerator.writePaymentMethodsJson(paymentMethodsJson, workload.paymentMethods());
+
+        Path archiveFile = directory.resolve("app.jsa");
+        List<String> cli = List.of("-cp", System.getProperty("java.class.path"), "org.example.App",
+                ordersJson.toString(), paymentMethodsJson.toString());
+        command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        switch(archive){
+            case "NONE" -> command.add("-Xshare:off");
+            case "DEFAULT" -> { }
+            case "APPCDS" -> {
+                List<String> record = new ArrayList<>(command);
+                record.add("-XX:ArchiveClassesAtExit=" + archiveFile);
+                record.addAll(cli);
+                run(record);
+                command.add("-XX:SharedArchiveFile=" + archiveFile);
+            }
+            default -> throw new IllegalArgumentException("Unknown archive " + archive);
+        }
+        command.addAll(cli);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try(Stream<Path> files = Files.walk(directory)){
+            for(Path file : files.sorted(Comparator.reverseOrder()).toList()){
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int coldStartToOutput() throws IOException, InterruptedException {
+        return run(command);
+    }
+
+    // the CLI's output is read, not discarded, so the measured time includes printing it
+    private static int run(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        byte[] output = process.getInputStream().readAllBytes();
+        if(process.waitFor() != 0 || output.length == 0){
+            throw new IllegalStateException("CLI run failed: " + String.join(" ", command));
+        }
+        return output.length;
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.benchmark;
+
+import org.example.domain.Order;
+import org.example.domain.PaymentMethod;
+import org.example.logic.DiscountCalculator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * Seeded synthetic data sets over the benchmark grid:
+ *   orderCount, cardCount    size of the basket and of the customer's wallet
+ *   promotionDensity         percent chance that a card is a promotion for an order
+ *   limitTightness           sum of all limits (points included) as a multiple of the basket value;
+ *                            below 1 not every order can be paid with a card, above 2 limits rarely bind
+ * The same seed and grid point always produce the same workload.
+ */
+final class WorkloadGenerator {
+    private WorkloadGenerator() {}
+
+    record Workload(Map<String, PaymentMethod> paymentMethods, List<Order> orders) {
+        DiscountCalculator discountCalculator() {
+            return new DiscountCalculator(paymentMethods.get("PUNKTY"),
+                    paymentMethods.values().stream().filter(pm -> !pm.isPoints()).toList());
+        }
+    }
+
+    static Workload generate(long seed, int orderCount, int cardCount, int promotionDensity, double limitTightness) {
+        Random random = new Random(seed);
+        long[] orderCents = new long[orderCount];
+        long basketCents = 0;
+        for(int i = 0; i < orderCount; i++){
+            orderCents[i] = 500 + random.nextInt(40_000);
+            basketCents += orderCents[i];
+        }
+
+        // split the limit budget over points and cards with random weights
+        long limitBudget = Math.round(basketCents * limitTightness);
+        double[] weights = new double[cardCount + 1];
+        double weightSum = 0;
+        for(int i = 0; i < weights.length; i++){
+            weights[i] = 0.5 + random.nextDouble();
+            weightSum += weights[i];
+        }
+
+        Map<String, PaymentMethod> methods = new LinkedHashMap<>();
+        methods.put("PUNKTY", new PaymentMethod("PUNKTY",
+                BigDecimal.valueOf(5 + random.nextInt(16)),
+                BigDecimal.valueOf(Math.round(limitBudget * weights[0] / weightSum), 2)));
+        List<PaymentMethod> cards = new ArrayList<>();
+        for(int i = 0; i < cardCount; i++){
+            PaymentMethod card = new PaymentMethod("CARD" + i,
+                    BigDecimal.valueOf(random.nextInt(21)),
+                    BigDecimal.valueOf(Math.round(limitBudget * weights[i + 1] / weightSum), 2));
+            methods.put(card.getId(), card);
+            cards.add(card);
+        }
+
+        List<Order> orders = new ArrayList<>(orderCount);
+        for(int i = 0; i < orderCount; i++){
+            List<PaymentMethod> promotions = new ArrayList<>();
+            for(PaymentMethod card : cards){
+                if(random.nextInt(100) < promotionDensity){
+                    promotions.add(card);
+                }
+            }
+            orders.add(new Order("ORDER" + i, BigDecimal.valueOf(orderCents[i], 2), promotions));
+        }
+        return new Workload(methods, orders);
+    }
+
+    /*
+     * A hand-built basket whose points and Visa limits bind hard while mZysk pays the rest: the per-order bound
+     * keeps most of the tree, the LP relaxation does not, see OptimizerSettings.relaxationDepth.
+     */
+    static Workload sharedLimits(int orderCount) {
+        Map<String, PaymentMethod> methods = new LinkedHashMap<>();
+        methods.put("PUNKTY", new PaymentMethod("PUNKTY", new BigDecimal("15"), new BigDecimal("300.00")));
+        methods.put("mZysk", new PaymentMethod("mZysk", new BigDecimal("10"), new BigDecimal("100000.00")));
+        methods.put("Visa", new PaymentMethod("Visa", new BigDecimal("20"), new BigDecimal("200.00")));
+        List<Order> orders = new ArrayList<>(orderCount);
+        for(int i = 1; i <= orderCount; i++){
+            orders.add(new Order("ORDER" + i, BigDecimal.valueOf(90 + 13 * i),
+                    i % 3 == 0 ? List.of(methods.get("mZysk")) : List.of(methods.get("Visa"), methods.get("mZysk"))));
+        }
+        return new Workload(methods, orders);
+    }
+
+    static void writeOrdersJson(Path target, List<Order> orders) throws IOException {
+        try(BufferedWriter writer = Files.newBufferedWriter(target)){
+            writer.write('[');
+            for(int i = 0; i < orders.size(); i++){
+                Order order = orders.get(i);
+                writer.write(i == 0 ? "\n" : ",\n");
+                writer.write("{\"id\": \"" + order.id() + "\", \"value\": \"" + order.value().toPlainString() + "\", \"promotions\": [");
+                List<PaymentMethod> promotions = order.applicablePromotions();
+                for(int k = 0; k < promotions.size(); k++){
+                    writer.write((k == 0 ? "\"" : ", \"") + promotions.get(k).getId() + "\"");
+                }
+                writer.write("]}");
+            }
+            writer.write("\n]\n");
+        }
+    }
+
+    static void writePaymentMethodsJson(Path target, Map<String, PaymentMethod> methods) throws IOException {
+        try(BufferedWriter writer = Files.newBufferedWriter(target)){
+            writer.write('[');
+            boolean first = true;
+            for(PaymentMethod method : methods.values()){
+                writer.write(first ? "\n" : ",\n");
+                writer.write("{\"id\": \"" + method.getId() + "\", \"discount\": \"" + method.getDiscountPercentage().toPlainString()
+                        + "\", \"limit\": \"" + method.getMethodLimit().toPlainString() + "\"}");
+                first = false;
+            }
+            writer.write("\n]\n");
+        }
+    }
+}